@@ -0,0 +1,101 @@
+package com.bulletjournal;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.controller.models.Transaction;
+import com.bulletjournal.controller.models.User;
+import com.bulletjournal.ledger.TransactionType;
+import com.bulletjournal.repository.models.HierarchyNode;
+import com.bulletjournal.repository.models.Project;
+import com.bulletjournal.repository.models.Task;
+import com.google.common.collect.ImmutableList;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic datasets shared by benchmarks. Generated with fixed seeds so runs are comparable.
+ */
+public class BenchmarkData {
+
+    public static final String OWNER = "BulletJournal";
+    public static final String TIMEZONE = "America/Los_Angeles";
+
+    // every item has up to FANOUT children, item i is a child of item (i - 1) / FANOUT
+    private static final int FANOUT = 10;
+
+    private static final LocalDate START_DATE = LocalDate.of(2020, 1, 1);
+
+    public static Project createProject() {
+        Project project = new Project();
+        project.setId(1L);
+        project.setOwner(OWNER);
+        return project;
+    }
+
+    /**
+     * @return records of a tree with ids from 0 to size - 1
+     */
+    public static List<HierarchyNode> createHierarchyNodes(int size) {
+        List<HierarchyNode> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Long parentId = i == 0 ? null : (long) (i - 1) / FANOUT;
+            int position = i == 0 ? 0 : (i - 1) % FANOUT;
+            nodes.add(new HierarchyNode(ContentType.TASK, (long) i, "1", parentId, position));
+        }
+        return nodes;
+    }
+
+    /**
+     * @return an item at the middle of the tree, its subtree has a few hundred items at most
+     */
+    public static long getMiddleItemId(int size) {
+        return size / 2;
+    }
+
+    public static List<Task> createTasks(int size) {
+        Project project = createProject();
+        Random random = new Random(size);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Task task = new Task();
+            task.setId((long) i);
+            task.setName("Task " + i);
+            task.setOwner(OWNER);
+            task.setAssignees(ImmutableList.of(OWNER));
+            task.setDueDate(START_DATE.plusDays(random.nextInt(365)).toString());
+            task.setDueTime(random.nextBoolean() ? null : String.format("%02d:%02d", random.nextInt(24),
+                    random.nextInt(60)));
+            task.setTimezone(TIMEZONE);
+            task.setProject(project);
+            task.setLabels(ImmutableList.of());
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    public static List<Transaction> createTransactions(int size) {
+        Project project = createProject();
+        User owner = new User(OWNER);
+        List<User> payers = ImmutableList.of(owner, new User("u1"), new User("u2"), new User("u3"));
+        List<Label> labels = ImmutableList.of(new Label(1L, "Food", "Tag"), new Label(2L, "Rent", "Tag"),
+                new Label(3L, "Salary", "Tag"));
+        Random random = new Random(size);
+        long now = System.currentTimeMillis();
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(new Transaction((long) i, owner, "Transaction " + i, project,
+                    payers.get(random.nextInt(payers.size())), (double) random.nextInt(1000),
+                    START_DATE.plusDays(random.nextInt(365)).toString(), null, TIMEZONE,
+                    random.nextInt(4) == 0 ? TransactionType.INCOME.getValue() : TransactionType.EXPENSE.getValue(),
+                    now, now, ImmutableList.of(labels.get(random.nextInt(labels.size())))));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bulletjournal.controller.utils;
+
+import com.bulletjournal.BenchmarkData;
+import com.bulletjournal.controller.models.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link EtagGenerator#generateEtag} across hash algorithms and hash types
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EtagGeneratorBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"MD5", "ADLER32", "SHA256"})
+    private EtagGenerator.HashAlgorithm hashAlgorithm;
+
+    @Param({"TO_HASHCODE", "TO_STRING"})
+    private EtagGenerator.HashType hashType;
+
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() {
+        this.transactions = BenchmarkData.createTransactions(this.size);
+    }
+
+    @Benchmark
+    public String generateEtag() {
+        return EtagGenerator.generateEtag(this.hashAlgorithm, this.hashType, this.transactions);
+    }
+}
@@ -0,0 +1,43 @@
+package com.bulletjournal.controller.utils;
+
+import com.bulletjournal.BenchmarkData;
+import com.bulletjournal.controller.models.ProjectItems;
+import com.bulletjournal.repository.models.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks grouping tasks by date, merging and sorting them with {@link ProjectItemsGrouper}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectItemsGrouperBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        this.tasks = BenchmarkData.createTasks(this.size);
+    }
+
+    @Benchmark
+    public Map<ZonedDateTime, List<Task>> groupTasksByDate() {
+        return ProjectItemsGrouper.groupTasksByDate(this.tasks, false);
+    }
+
+    @Benchmark
+    public List<ProjectItems> groupAndSortTasks() {
+        Map<ZonedDateTime, List<Task>> tasksMap = ProjectItemsGrouper.groupTasksByDate(this.tasks, false);
+        Map<ZonedDateTime, ProjectItems> mergedMap = ProjectItemsGrouper.mergeTasksMap(new HashMap<>(), tasksMap);
+        return ProjectItemsGrouper.getSortedProjectItems(mergedMap);
+    }
+}
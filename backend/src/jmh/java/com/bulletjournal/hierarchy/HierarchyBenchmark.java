@@ -0,0 +1,50 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link HierarchyTree}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HierarchyBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private long targetId;
+
+    private HierarchyTree tree;
+
+    @Setup
+    public void setUp() {
+        this.targetId = BenchmarkData.getMiddleItemId(this.size);
+        this.tree = HierarchyTree.of(BenchmarkData.createHierarchyNodes(this.size));
+    }
+
+    @Benchmark
+    public HierarchyTree treeCopy() {
+        return this.tree.copy();
+    }
+
+    @Benchmark
+    public HierarchyTree treeOf() {
+        return HierarchyTree.of(BenchmarkData.createHierarchyNodes(this.size));
+    }
+
+    @Benchmark
+    public HierarchyTree.Node treeAppendAndDetach() {
+        this.tree.append((long) this.size);
+        return this.tree.detach((long) this.size);
+    }
+
+    @Benchmark
+    public List<Long> treeGetSubItems() {
+        return this.tree.getSubItems(this.targetId);
+    }
+}
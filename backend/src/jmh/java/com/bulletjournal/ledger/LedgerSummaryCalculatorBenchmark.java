@@ -0,0 +1,49 @@
+package com.bulletjournal.ledger;
+
+import com.bulletjournal.BenchmarkData;
+import com.bulletjournal.controller.models.Transaction;
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link LedgerSummaryCalculator#getLedgerSummary} for each summary type
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LedgerSummaryCalculatorBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"DEFAULT", "LABEL", "PAYER"})
+    private LedgerSummaryType ledgerSummaryType;
+
+    @Param({"WEEKLY", "MONTHLY", "YEARLY"})
+    private FrequencyType frequencyType;
+
+    private final LedgerSummaryCalculator ledgerSummaryCalculator = new LedgerSummaryCalculator();
+
+    private List<Transaction> transactions;
+
+    private ZonedDateTime startTime;
+
+    private ZonedDateTime endTime;
+
+    @Setup
+    public void setUp() {
+        this.transactions = BenchmarkData.createTransactions(this.size);
+        this.startTime = ZonedDateTimeHelper.convertDateOnly("2020-01-01", BenchmarkData.TIMEZONE);
+        this.endTime = ZonedDateTimeHelper.convertDateOnly("2020-12-31", BenchmarkData.TIMEZONE);
+    }
+
+    @Benchmark
+    public LedgerSummary getLedgerSummary() {
+        return this.ledgerSummaryCalculator.getLedgerSummary(this.ledgerSummaryType, this.startTime, this.endTime,
+                this.transactions, this.frequencyType);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bulletjournal.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ContentDiffTool} on texts with a few scattered edits
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContentDiffToolBenchmark {
+
+    private static final int EDITS = 10;
+
+    // length of text in characters
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private ContentDiffTool contentDiffTool;
+
+    private String oldText;
+
+    private String newText;
+
+    private String diff;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        // constructed by Spring otherwise
+        Constructor<ContentDiffTool> constructor = ContentDiffTool.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        this.contentDiffTool = constructor.newInstance();
+
+        Random random = new Random(this.size);
+        StringBuilder text = new StringBuilder(this.size);
+        while (text.length() < this.size) {
+            text.append("word").append(random.nextInt(1000)).append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+        this.oldText = text.toString();
+        for (int i = 0; i < EDITS; i++) {
+            int position = random.nextInt(text.length() - 10);
+            text.replace(position, position + 5, "edit" + i);
+        }
+        this.newText = text.toString();
+        this.diff = this.contentDiffTool.computeDiff(this.oldText, this.newText);
+    }
+
+    @Benchmark
+    public String computeDiff() {
+        return this.contentDiffTool.computeDiff(this.oldText, this.newText);
+    }
+
+    @Benchmark
+    public String applyDiff() {
+        return this.contentDiffTool.applyDiff(this.oldText, this.diff);
+    }
+}
@@ -0,0 +1,79 @@
+package com.bulletjournal.util;
+
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks expanding recurring tasks into a month of occurrences, directly with {@link BuJoRecurrenceRule} as
+ * TaskDaoJpa used to and through {@link RecurrenceOccurrenceIndex}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecurrenceBenchmark {
+
+    private static final String TIMEZONE = "America/Los_Angeles";
+
+    private static final String[] RULES = {
+            "DTSTART:20200420T070000Z RRULE:FREQ=DAILY;INTERVAL=1",
+            "DTSTART:20200420T070000Z RRULE:FREQ=WEEKLY;INTERVAL=1",
+            "DTSTART:20200420T070000Z RRULE:FREQ=HOURLY;INTERVAL=8",
+            "DTSTART:20200420T070000Z RRULE:FREQ=MONTHLY;INTERVAL=1"
+    };
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private DateTime startTime;
+
+    private DateTime endTime;
+
+    private RecurrenceOccurrenceIndex index;
+
+    @Setup
+    public void setUp() throws InvalidRecurrenceRuleException {
+        ZonedDateTime now = ZonedDateTimeHelper.getNow(TIMEZONE);
+        this.startTime = ZonedDateTimeHelper.getDateTime(now);
+        this.endTime = ZonedDateTimeHelper.getDateTime(now.plusDays(30));
+        this.index = new RecurrenceOccurrenceIndex();
+        // warm the index so indexLookup measures hits
+        expandWithIndex();
+    }
+
+    @Benchmark
+    public List<DateTime> expandWithRule() throws InvalidRecurrenceRuleException {
+        List<DateTime> result = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            BuJoRecurrenceRule rule = new BuJoRecurrenceRule(RULES[i % RULES.length], TIMEZONE);
+            RecurrenceRuleIterator it = rule.getIterator();
+            while (it.hasNext()) {
+                DateTime current = it.nextDateTime();
+                if (current.after(this.endTime)) {
+                    break;
+                }
+                if (!current.before(this.startTime)) {
+                    result.add(current);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<DateTime> expandWithIndex() throws InvalidRecurrenceRuleException {
+        List<DateTime> result = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            result.addAll(this.index.getOccurrencesBetween((long) i, RULES[i % RULES.length], TIMEZONE,
+                    this.startTime, this.endTime));
+        }
+        return result;
+    }
+}
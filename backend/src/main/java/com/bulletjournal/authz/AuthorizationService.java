@@ -1,15 +1,14 @@
 package com.bulletjournal.authz;
 
 import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.exceptions.UnAuthorizedException;
-import com.bulletjournal.repository.SharedProjectItemDaoJpa;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.ProjectItemModel;
 import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.Objects;
@@ -26,11 +25,10 @@ public class AuthorizationService {
     private static Set<String> ADMINS = ImmutableSet.of(SUPER_USER);
 
     @Autowired
-    @Lazy
-    private SharedProjectItemDaoJpa sharedProjectItemDaoJpa;
+    private ProjectAccessIndex projectAccessIndex;
 
     public <T extends ProjectItemModel> void validateRequesterInProjectGroup(String requester, T projectItem) {
-        if (this.sharedProjectItemDaoJpa.getSharedProjectItems(requester).contains(projectItem)) {
+        if (this.projectAccessIndex.isSharedWith(requester, projectItem)) {
             return;
         }
         validateRequesterInProjectGroup(requester, projectItem.getProject());
@@ -41,13 +39,23 @@ public class AuthorizationService {
             return;
         }
 
-        if (!project.getGroup().getAcceptedUsers()
-                .stream().anyMatch(u -> Objects.equals(requester, u.getUser().getName()))) {
+        if (!this.projectAccessIndex.isInGroup(requester, project.getGroup().getId())) {
             throw new UnAuthorizedException("User " + requester + " not in Project "
                     + project.getName());
         }
     }
 
+    /**
+     * Get the type of a project the requester can access, without loading the project
+     */
+    public ProjectType getProjectType(String requester, Long projectId) {
+        ProjectType projectType = this.projectAccessIndex.getProjectType(requester, projectId);
+        if (projectType == null) {
+            throw new UnAuthorizedException("User " + requester + " not in Project " + projectId);
+        }
+        return projectType;
+    }
+
     public void checkAuthorizedToOperateOnContent(
             String owner, String requester, ContentType contentType,
             Operation operation, Long contentId, Object... other)
@@ -138,7 +146,7 @@ public class AuthorizationService {
         switch (operation) {
             case DELETE:
             case UPDATE:
-                if (this.sharedProjectItemDaoJpa.getSharedProjectItems(requester).contains(projectItem)) {
+                if (this.projectAccessIndex.isSharedWith(requester, projectItem)) {
                     return;
                 }
                 if (!Objects.equals(owner, requester) && !Objects.equals(projectOwner, requester)
@@ -0,0 +1,195 @@
+package com.bulletjournal.authz;
+
+import com.bulletjournal.controller.models.ProjectType;
+import com.bulletjournal.metrics.CacheMetrics;
+import com.bulletjournal.metrics.MetricsSource;
+import com.bulletjournal.repository.ProjectRepository;
+import com.bulletjournal.repository.SharedProjectItemRepository;
+import com.bulletjournal.repository.UserGroupRepository;
+import com.bulletjournal.repository.models.ProjectItemModel;
+import com.bulletjournal.repository.models.SharedProjectItem;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process index of what a user can access: ids of groups the user has joined, ids and types of the projects in
+ * those groups and keys of project items shared with the user.
+ * <p>
+ * Group membership is changed through GroupDaoJpa, UserDaoJpa and NotificationController, projects through
+ * ProjectDaoJpa and GroupDaoJpa, and sharing through SharedProjectItemDaoJpa; they invalidate the user's entries.
+ * Entries are invalidated again once the transaction completes, so a read racing with the mutation cannot keep the
+ * old index cached.
+ */
+@Component
+public class ProjectAccessIndex implements MetricsSource {
+
+    private static final int MAX_USERS = 10000;
+
+    private final LoadingCache<String, Set<Long>> groups = CacheBuilder.newBuilder()
+            .maximumSize(MAX_USERS).recordStats().build(new CacheLoader<String, Set<Long>>() {
+                @Override
+                public Set<Long> load(String user) {
+                    return ImmutableSet.copyOf(userGroupRepository.findAcceptedGroupIds(user));
+                }
+            });
+
+    private final LoadingCache<String, AccessibleProjects> projects = CacheBuilder.newBuilder()
+            .maximumSize(MAX_USERS).recordStats().build(new CacheLoader<String, AccessibleProjects>() {
+                @Override
+                public AccessibleProjects load(String user) {
+                    ImmutableMap.Builder<Long, ProjectType> types = ImmutableMap.builder();
+                    ImmutableSet.Builder<Long> nonShared = ImmutableSet.builder();
+                    for (Object[] project : projectRepository.findAccessibleProjects(user)) {
+                        types.put((Long) project[0], ProjectType.getType((Integer) project[1]));
+                        if (!(Boolean) project[2]) {
+                            nonShared.add((Long) project[0]);
+                        }
+                    }
+                    return new AccessibleProjects(types.build(), nonShared.build());
+                }
+            });
+
+    private final LoadingCache<String, Set<String>> sharedItems = CacheBuilder.newBuilder()
+            .maximumSize(MAX_USERS).recordStats().build(new CacheLoader<String, Set<String>>() {
+                @Override
+                public Set<String> load(String user) {
+                    ImmutableSet.Builder<String> result = ImmutableSet.builder();
+                    for (SharedProjectItem item : sharedProjectItemRepository.findByUsername(user)) {
+                        if (item.hasNote()) {
+                            result.add(getKey(item.getNote()));
+                        } else if (item.hasTask()) {
+                            result.add(getKey(item.getTask()));
+                        } else if (item.hasTransaction()) {
+                            result.add(getKey(item.getTransaction()));
+                        }
+                    }
+                    return result.build();
+                }
+            });
+
+    @Autowired
+    @Lazy
+    private UserGroupRepository userGroupRepository;
+
+    @Autowired
+    @Lazy
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    @Lazy
+    private SharedProjectItemRepository sharedProjectItemRepository;
+
+    /**
+     * @return whether user has accepted the invitation of the group
+     */
+    public boolean isInGroup(String user, Long groupId) {
+        return this.groups.getUnchecked(user).contains(groupId);
+    }
+
+    /**
+     * @return ids of non-shared projects in the groups user has joined
+     */
+    public Set<Long> getProjects(String user) {
+        return this.projects.getUnchecked(user).nonShared;
+    }
+
+    /**
+     * @return type of a project in the groups user has joined, null if user cannot access the project
+     */
+    public ProjectType getProjectType(String user, Long projectId) {
+        return this.projects.getUnchecked(user).types.get(projectId);
+    }
+
+    /**
+     * @return whether project item is shared with user
+     */
+    public boolean isSharedWith(String user, ProjectItemModel projectItem) {
+        return this.sharedItems.getUnchecked(user).contains(getKey(projectItem));
+    }
+
+    /**
+     * Invalidate groups of users after membership changes
+     */
+    public void invalidateGroups(Iterable<String> users) {
+        Set<String> invalidated = ImmutableSet.copyOf(users);
+        this.groups.invalidateAll(invalidated);
+        this.projects.invalidateAll(invalidated);
+        onCompletion(() -> {
+            this.groups.invalidateAll(invalidated);
+            this.projects.invalidateAll(invalidated);
+        });
+    }
+
+    public void invalidateGroups(String user) {
+        invalidateGroups(ImmutableSet.of(user));
+    }
+
+    /**
+     * Invalidate projects of users after projects are created, deleted or moved between groups
+     */
+    public void invalidateProjects(Iterable<String> users) {
+        Set<String> invalidated = ImmutableSet.copyOf(users);
+        this.projects.invalidateAll(invalidated);
+        onCompletion(() -> this.projects.invalidateAll(invalidated));
+    }
+
+    /**
+     * Invalidate shared items of user after sharing or revoking
+     */
+    public void invalidateSharedItems(String user) {
+        this.sharedItems.invalidate(user);
+        onCompletion(() -> this.sharedItems.invalidate(user));
+    }
+
+    private static void onCompletion(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                runnable.run();
+            }
+        });
+    }
+
+    private static String getKey(ProjectItemModel projectItem) {
+        return projectItem.getContentType() + ":" + projectItem.getId();
+    }
+
+    private static class AccessibleProjects {
+        private final Map<Long, ProjectType> types;
+        private final Set<Long> nonShared;
+
+        AccessibleProjects(Map<Long, ProjectType> types, Set<Long> nonShared) {
+            this.types = types;
+            this.nonShared = nonShared;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "projectAccessIndex";
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        CacheMetrics.of(this.groups).forEach((k, v) -> metrics.put("groups." + k, v));
+        CacheMetrics.of(this.projects).forEach((k, v) -> metrics.put("projects." + k, v));
+        CacheMetrics.of(this.sharedItems).forEach((k, v) -> metrics.put("sharedItems." + k, v));
+        return metrics;
+    }
+}
@@ -6,6 +6,7 @@ import com.bulletjournal.controller.models.ProjectItem;
 import com.bulletjournal.controller.models.Task;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class GoogleCalendarEvent {
 
@@ -26,7 +27,8 @@ public class GoogleCalendarEvent {
 
     public static List<GoogleCalendarEvent> addAvatar(
             List<GoogleCalendarEvent> events, final UserClient userClient) {
-        events.forEach(e -> addAvatar(e, userClient));
+        ProjectItem.addAvatar(events.stream().map(e -> e.task).collect(Collectors.toList()), userClient);
+        events.forEach(e -> Content.addOwnerAvatar(e.content, userClient));
         return events;
     }
 
@@ -3,11 +3,11 @@ package com.bulletjournal.clients;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.CannedAccessControlList;
-import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.*;
 import com.bulletjournal.config.AWSConfig;
 import com.bulletjournal.controller.utils.FileUtil;
 import org.slf4j.Logger;
@@ -16,23 +16,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.annotation.PostConstruct;
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class AWSS3Client {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AWSS3Client.class);
+    public static final long MAX_FILE_SIZE = 25_000_000;
+    // minimum size of all but the last part of a S3 multipart upload
+    public static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private final AWSConfig awsConfig;
+
+    private final AmazonS3 amazonS3Client;
 
     @Autowired
-    private AWSConfig awsConfig;
+    public AWSS3Client(AWSConfig awsConfig) {
+        this(awsConfig, buildAmazonS3Client(awsConfig));
+    }
 
-    private AmazonS3 amazonS3Client;
+    public AWSS3Client(AWSConfig awsConfig, AmazonS3 amazonS3Client) {
+        this.awsConfig = awsConfig;
+        this.amazonS3Client = amazonS3Client;
+    }
 
-    @PostConstruct
-    public void initializeAwsConnection() {
+    private static AmazonS3 buildAmazonS3Client(AWSConfig awsConfig) {
         if (awsConfig.getAWSAccessKey() == null || awsConfig.getAwsSecretKey() == null) {
-            return;
+            return null;
         }
 
         AWSCredentials credentials = new BasicAWSCredentials(
@@ -40,38 +54,101 @@ public class AWSS3Client {
                 awsConfig.getAwsSecretKey()
         );
 
-        this.amazonS3Client = AmazonS3ClientBuilder
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder
                 .standard()
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withRegion(Regions.US_WEST_1)
-                .build();
+                .withCredentials(new AWSStaticCredentialsProvider(credentials));
+        if (awsConfig.getS3Endpoint() == null) {
+            builder.withRegion(Regions.US_WEST_1);
+        } else {
+            // S3 compatible server, e.g. a local stand-in
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                    awsConfig.getS3Endpoint(), Regions.US_WEST_1.getName()))
+                    .withPathStyleAccessEnabled(true);
+        }
+        return builder.build();
     }
 
     public String uploadFile(MultipartFile multipartFile) {
         if (this.amazonS3Client == null) {
             return "amazonS3Client not set up";
         }
+        if (multipartFile.getSize() > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size cannot exceed 20MB");
+        }
 
-        File file = null;
-        try {
-            String fileName = FileUtil.generateFileName(multipartFile.getOriginalFilename());
-            LOGGER.info("Uploading file " + fileName);
-            file = FileUtil.convertMultiPartToFile(multipartFile, fileName);
-            String fileUrl = awsConfig.getEndpointUrl() + "/" + awsConfig.getBucketName() + "/" + fileName;
-            LOGGER.info("AWS file url: " + fileUrl);
-            uploadFileToS3Bucket(fileName, file);
-            return fileUrl;
-        } catch (Exception e) {
+        String fileName = FileUtil.generateFileName(multipartFile.getOriginalFilename());
+        LOGGER.info("Uploading file " + fileName);
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            upload(fileName, inputStream);
+        } catch (IOException e) {
             throw new IllegalStateException(e);
-        } finally {
-            if (file != null) {
-                file.delete();
+        }
+        String fileUrl = awsConfig.getEndpointUrl() + "/" + awsConfig.getBucketName() + "/" + fileName;
+        LOGGER.info("AWS file url: " + fileUrl);
+        return fileUrl;
+    }
+
+    /**
+     * Stream inputStream to S3 holding at most one part in memory. Files smaller than a part are uploaded with one
+     * request, larger ones with a multipart upload that is aborted if the stream fails or exceeds MAX_FILE_SIZE.
+     */
+    public void upload(String fileName, InputStream inputStream) throws IOException {
+        String bucketName = this.awsConfig.getBucketName();
+        byte[] buffer = new byte[PART_SIZE];
+        int length = read(inputStream, buffer);
+        if (length < PART_SIZE) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(length);
+            this.amazonS3Client.putObject(new PutObjectRequest(
+                    bucketName, fileName, new ByteArrayInputStream(buffer, 0, length), metadata)
+                    .withCannedAcl(CannedAccessControlList.PublicRead));
+            return;
+        }
+
+        String uploadId = this.amazonS3Client.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, fileName)
+                        .withCannedACL(CannedAccessControlList.PublicRead)).getUploadId();
+        try {
+            List<PartETag> partETags = new ArrayList<>();
+            long size = 0;
+            while (length > 0) {
+                size += length;
+                if (size > MAX_FILE_SIZE) {
+                    throw new IllegalArgumentException("File size cannot exceed 20MB");
+                }
+                // the part is read before uploadPart returns, so the buffer can be refilled afterwards
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(fileName)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partETags.size() + 1)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, length))
+                        .withPartSize(length);
+                partETags.add(this.amazonS3Client.uploadPart(request).getPartETag());
+                length = read(inputStream, buffer);
             }
+            this.amazonS3Client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, fileName, uploadId, partETags));
+        } catch (IOException | RuntimeException e) {
+            this.amazonS3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, fileName, uploadId));
+            throw e;
         }
     }
 
-    private void uploadFileToS3Bucket(String fileName, File file) {
-        this.amazonS3Client.putObject(new PutObjectRequest(awsConfig.getBucketName(), fileName, file)
-                .withCannedAcl(CannedAccessControlList.PublicRead));
+    /**
+     * Fill buffer unless the stream ends first
+     *
+     * @return number of bytes read, 0 at the end of the stream
+     */
+    private static int read(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
     }
-}
\ No newline at end of file
+}
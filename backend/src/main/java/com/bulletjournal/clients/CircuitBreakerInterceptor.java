@@ -0,0 +1,121 @@
+package com.bulletjournal.clients;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fails requests fast once a server keeps failing.
+ * <p>
+ * After failureThreshold consecutive I/O errors or 5xx responses the circuit opens and requests are rejected with
+ * an IOException, which RestTemplate reports as ResourceAccessException. After openIntervalInMillis one trial request
+ * is let through: success closes the circuit and failure keeps it open for another interval.
+ */
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final long CLOSED = 0;
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openIntervalInMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // time the circuit was opened or the last trial request was let through, CLOSED if closed
+    private final AtomicLong openedAt = new AtomicLong(CLOSED);
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CircuitBreakerInterceptor(String name, int failureThreshold, long openIntervalInMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openIntervalInMillis = openIntervalInMillis;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        acquire();
+
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            onFailure();
+            throw e;
+        }
+        if (response.getRawStatusCode() >= 500) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return response;
+    }
+
+    /**
+     * Guard a request of a RestTemplate without this interceptor, e.g. one streaming its body, since interceptors
+     * get the body as a byte array.
+     */
+    public <T> T execute(Supplier<T> request) {
+        try {
+            acquire();
+        } catch (IOException e) {
+            throw new ResourceAccessException(e.getMessage(), e);
+        }
+
+        T result;
+        try {
+            result = request.get();
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            onFailure();
+            throw e;
+        } catch (HttpClientErrorException e) {
+            onSuccess();
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    private void acquire() throws IOException {
+        long opened = this.openedAt.get();
+        if (opened != CLOSED) {
+            long now = System.currentTimeMillis();
+            if (now - opened < this.openIntervalInMillis || !this.openedAt.compareAndSet(opened, now)) {
+                this.rejected.incrementAndGet();
+                throw new IOException("Circuit to " + this.name + " is open");
+            }
+        }
+    }
+
+    private void onFailure() {
+        this.failures.incrementAndGet();
+        if (this.consecutiveFailures.incrementAndGet() >= this.failureThreshold) {
+            this.openedAt.set(System.currentTimeMillis());
+        }
+    }
+
+    private void onSuccess() {
+        this.consecutiveFailures.set(0);
+        this.openedAt.set(CLOSED);
+    }
+
+    public boolean isOpen() {
+        return this.openedAt.get() != CLOSED;
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -5,13 +5,28 @@ import com.bulletjournal.controller.models.ContactType;
 import com.bulletjournal.controller.models.User;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
+import com.bulletjournal.metrics.CacheMetrics;
+import com.bulletjournal.metrics.MetricsSource;
 import com.bulletjournal.redis.RedisUserRepository;
 import com.bulletjournal.repository.UserAliasDaoJpa;
 import com.bulletjournal.repository.UserDaoJpa;
+import com.bulletjournal.util.CustomThreadFactory;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -19,14 +34,20 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.LinkedHashMap;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
-public class UserClient {
+public class UserClient implements MetricsSource {
     public static final String USER_NAME_KEY = "discourse-user-name";
     public static final String API_USERNAME = "Api-Username";
     public static final String API_KEY = "Api-Key";
@@ -35,23 +56,72 @@ public class UserClient {
     private static final String THUMBNAIL_SIZE = "37";
     private static final String SIZE_HOLDER = "{size}";
     private static final String DEFAULT_USER_TIME_ZONE = "America/Los_Angeles";
+    private static final String USER_KEY_PREFIX = "User:";
+    private static final int SSO_PARALLELISM = 8;
+    private static final int MAX_CACHED_USERS = 10000;
+    private static final long CACHE_EXPIRATION_IN_MINUTES = 30;
+    private static final long CACHE_REFRESH_IN_MINUTES = 5;
+    private final CloseableHttpClient httpClient;
+    private final CircuitBreakerInterceptor circuitBreaker;
     private final RestTemplate restClient;
+    // without interceptors, which would buffer the body, so that uploads are streamed
+    private final RestTemplate uploadClient;
     private final URI ssoEndPoint;
     private final String ssoAPIKey;
     private final RedisUserRepository redisUserRepository;
     private final UserDaoJpa userDaoJpa;
     private final UserAliasDaoJpa userAliasDaoJpa;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ExecutorService ssoExecutorService;
+    // users as stored in Redis, copied before aliases are applied
+    private final LoadingCache<String, User> users;
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong redisMisses = new AtomicLong();
+    private final AtomicLong ssoLoads = new AtomicLong();
 
     @Autowired
     public UserClient(SSOConfig ssoConfig, RedisUserRepository redisUserRepository,
-                      UserDaoJpa userDaoJpa, UserAliasDaoJpa userAliasDaoJpa)
+                      UserDaoJpa userDaoJpa, UserAliasDaoJpa userAliasDaoJpa,
+                      StringRedisTemplate stringRedisTemplate)
             throws URISyntaxException {
-        this.restClient = new RestTemplate();
+        this.httpClient = HttpClients.custom()
+                .setMaxConnTotal(ssoConfig.getMaxConnections())
+                .setMaxConnPerRoute(ssoConfig.getMaxConnections())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(ssoConfig.getConnectTimeoutInMillis())
+                        .setSocketTimeout(ssoConfig.getReadTimeoutInMillis())
+                        .setConnectionRequestTimeout(ssoConfig.getConnectionRequestTimeoutInMillis())
+                        .build())
+                .build();
+        this.circuitBreaker = new CircuitBreakerInterceptor(
+                "sso", ssoConfig.getFailureThreshold(), ssoConfig.getOpenIntervalInMillis());
+        this.restClient = new RestTemplate(new HttpComponentsClientHttpRequestFactory(this.httpClient));
+        this.restClient.getInterceptors().add(this.circuitBreaker);
+        HttpComponentsClientHttpRequestFactory uploadRequestFactory =
+                new HttpComponentsClientHttpRequestFactory(this.httpClient);
+        uploadRequestFactory.setBufferRequestBody(false);
+        this.uploadClient = new RestTemplate(uploadRequestFactory);
         this.ssoEndPoint = new URI(ssoConfig.getEndpoint());
         this.ssoAPIKey = ssoConfig.getAPIKey();
         this.redisUserRepository = redisUserRepository;
         this.userDaoJpa = userDaoJpa;
         this.userAliasDaoJpa = userAliasDaoJpa;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ssoExecutorService = Executors.newFixedThreadPool(
+                SSO_PARALLELISM, new CustomThreadFactory("sso-user-loader"));
+        // refreshed in the background once stale, so hot users are never loaded on the request path again
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_USERS)
+                .expireAfterWrite(CACHE_EXPIRATION_IN_MINUTES, TimeUnit.MINUTES)
+                .refreshAfterWrite(CACHE_REFRESH_IN_MINUTES, TimeUnit.MINUTES)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::loadUser), this.ssoExecutorService));
+    }
+
+    @PreDestroy
+    public void preDestroy() throws IOException {
+        this.ssoExecutorService.shutdown();
+        this.httpClient.close();
     }
 
     public void logout(String username) {
@@ -69,15 +139,120 @@ public class UserClient {
     /**
      * DO NOT wrap this function inside @Transactional
      */
-    @SuppressWarnings("rawtypes")
     public User getUser(String username) {
+        return this.userAliasDaoJpa.updateUserAlias(copy(getCachedUser(username)));
+    }
+
+    /**
+     * Get users from the in-process cache. Users missing in it are read from Redis with one pipelined read, and
+     * users missing in Redis are fetched from SSO in parallel. The requester's aliases are read once.
+     * <p>
+     * DO NOT wrap this function inside @Transactional
+     *
+     * @return username -> user
+     */
+    public Map<String, User> getUsers(Collection<String> usernames) {
+        Set<String> names = new HashSet<>(usernames);
+        Map<String, User> cached = new HashMap<>(this.users.getAllPresent(names));
+        names.removeAll(cached.keySet());
+        if (!names.isEmpty()) {
+            cached.putAll(getRedisUsers(names));
+            names.removeAll(cached.keySet());
+        }
+
+        Map<String, CompletableFuture<User>> misses = new HashMap<>();
+        names.forEach(name -> misses.put(name, getUserAsync(name)));
+        try {
+            misses.forEach((name, user) -> cached.put(name, user.join()));
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+
+        Map<String, User> result = new HashMap<>();
+        cached.forEach((name, user) -> result.put(name, copy(user)));
+        this.userAliasDaoJpa.updateUserAliases(result.values());
+        return result;
+    }
+
+    /**
+     * Get user without blocking the caller. The returned user has no alias applied, since the requester is only
+     * known on the request thread.
+     */
+    public CompletableFuture<User> getUserAsync(String username) {
+        return CompletableFuture.supplyAsync(() -> getCachedUser(username), this.ssoExecutorService)
+                .thenApply(UserClient::copy);
+    }
+
+    /**
+     * Drop user from both the in-process cache and Redis
+     */
+    public void invalidateUser(String username) {
+        this.users.invalidate(username);
+        this.redisUserRepository.deleteById(username);
+    }
+
+    /**
+     * Concurrent gets of the same user wait for one load
+     */
+    private User getCachedUser(String username) {
+        try {
+            return this.users.getUnchecked(username);
+        } catch (UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Read users from Redis with one pipelined request and add them to the in-process cache
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, User> getRedisUsers(Set<String> usernames) {
+        Map<String, User> result = new HashMap<>();
+        List<String> names = new ArrayList<>(usernames);
+        List<Object> hashes;
+        try {
+            hashes = this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                names.forEach(name -> stringRedisConnection.hGetAll(USER_KEY_PREFIX + name));
+                return null;
+            });
+        } catch (Exception e) {
+            LOGGER.error("Fail to read users {} from redis", names, e);
+            return result;
+        }
+        for (int i = 0; i < names.size(); i++) {
+            User user = toUser(names.get(i), (Map<String, String>) hashes.get(i));
+            if (user != null) {
+                result.put(user.getName(), user);
+            }
+        }
+        this.redisHits.addAndGet(result.size());
+        this.redisMisses.addAndGet(names.size() - result.size());
+        this.users.putAll(result);
+        return result;
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getThumbnail(), user.getAvatar());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private User loadUser(String username) {
         User user;
         Optional<User> userOptional = redisUserRepository.findById(username);
         if (userOptional.isPresent()) {
+            this.redisHits.incrementAndGet();
             user = userOptional.get();
             user.setAlias(user.getName()); // disable caching user alias
-            return this.userAliasDaoJpa.updateUserAlias(user);
+            return user;
         }
+        this.redisMisses.incrementAndGet();
 
         LinkedHashMap userInfo;
         try {
@@ -94,7 +269,21 @@ public class UserClient {
         }
 
         redisUserRepository.save(user);
-        return this.userAliasDaoJpa.updateUserAlias(user);
+        this.ssoLoads.incrementAndGet();
+        return user;
+    }
+
+    /**
+     * Read user from the hash RedisUserRepository saves it as
+     *
+     * @return null if user is not cached
+     */
+    private static User toUser(String username, Map<String, String> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        String id = hash.get("id");
+        return new User(id == null ? null : Integer.valueOf(id), username, hash.get("thumbnail"), hash.get("avatar"));
     }
 
     private String getUserTimeZone(LinkedHashMap userInfo) {
@@ -160,7 +349,8 @@ public class UserClient {
                 .filename(file.getOriginalFilename())
                 .build();
         fileMap.add(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString());
-        HttpEntity<byte[]> fileEntity = new HttpEntity<>(file.getBytes(), fileMap);
+        // streamed from the multipart upload by the upload client instead of copied to a byte array
+        HttpEntity<Resource> fileEntity = new HttpEntity<>(file.getResource(), fileMap);
 
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         body.add("file", fileEntity);
@@ -169,17 +359,17 @@ public class UserClient {
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity =
                 new HttpEntity<>(body, headers);
-        String url = this.ssoEndPoint.resolve("/uploads.json").toString();
-        ResponseEntity<LinkedHashMap> response = this.restClient.exchange(
-                url,
+        String uploadUrl = this.ssoEndPoint.resolve("/uploads.json").toString();
+        ResponseEntity<LinkedHashMap> response = this.circuitBreaker.execute(() -> this.uploadClient.exchange(
+                uploadUrl,
                 HttpMethod.POST,
                 requestEntity,
-                LinkedHashMap.class);
+                LinkedHashMap.class));
         LOGGER.info("Upload avatar response {}", response);
 
         int uploadId = (Integer) response.getBody().get("id");
         headers = getHttpHeaders(username, MediaType.APPLICATION_JSON);
-        url = this.ssoEndPoint.resolve("/users/" + username + "/preferences/avatar/pick").toString();
+        String url = this.ssoEndPoint.resolve("/users/" + username + "/preferences/avatar/pick").toString();
         response = this.restClient.exchange(
                 url,
                 HttpMethod.PUT,
@@ -212,4 +402,22 @@ public class UserClient {
         return this.ssoEndPoint.resolve(
                 "/t/" + response.getBody().get("topic_slug") + "/" + response.getBody().get("topic_id")).toString();
     }
+
+    @Override
+    public String getMetricsName() {
+        return "userClient";
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        CacheMetrics.of(this.users).forEach((k, v) -> metrics.put("users." + k, v));
+        metrics.put("redisHits", this.redisHits.get());
+        metrics.put("redisMisses", this.redisMisses.get());
+        metrics.put("ssoLoads", this.ssoLoads.get());
+        metrics.put("sso.failures", this.circuitBreaker.getFailures());
+        metrics.put("sso.rejected", this.circuitBreaker.getRejected());
+        metrics.put("sso.circuitOpen", this.circuitBreaker.isOpen() ? 1 : 0);
+        return metrics;
+    }
 }
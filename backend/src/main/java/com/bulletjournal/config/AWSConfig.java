@@ -11,6 +11,8 @@ public class AWSConfig {
     private static final String SECRET_KEY = "AWS_SECRET_KEY";
     private String endpointUrl;
     private String bucketName;
+    // endpoint of a S3 compatible server to use instead of AWS
+    private String s3Endpoint;
 
     public AWSConfig() {
     }
@@ -36,6 +38,14 @@ public class AWSConfig {
         this.bucketName = bucketName;
     }
 
+    public String getS3Endpoint() {
+        return s3Endpoint;
+    }
+
+    public void setS3Endpoint(String s3Endpoint) {
+        this.s3Endpoint = s3Endpoint;
+    }
+
     public String getAwsSecretKey() {
         return System.getenv(SECRET_KEY);
     }
@@ -0,0 +1,27 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "changelog")
+public class ChangeLogConfig {
+    private long intervalInMillis;
+    private int batchSize;
+
+    public long getIntervalInMillis() {
+        return intervalInMillis;
+    }
+
+    public void setIntervalInMillis(long intervalInMillis) {
+        this.intervalInMillis = intervalInMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
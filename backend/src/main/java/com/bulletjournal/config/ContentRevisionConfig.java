@@ -8,6 +8,16 @@ import org.springframework.context.annotation.Configuration;
 public class ContentRevisionConfig {
     private Integer maxRevisionNumber;
 
+    // every n-th revision of a content stores its full text
+    private Integer checkpointInterval = 10;
+
+    // workers writing revisions after edits commit, revisions are sharded by content
+    private int workers = 2;
+    private int queueCapacity = 10000;
+    // how long an edit waits for a full queue before its revision is dropped
+    private long offerTimeoutInMillis = 100;
+    private long shutdownTimeoutInMillis = 5000;
+
     public Integer getMaxRevisionNumber() {
         return maxRevisionNumber;
     }
@@ -15,4 +25,44 @@ public class ContentRevisionConfig {
     public void setMaxRevisionNumber(Integer maxRevisionNumber) {
         this.maxRevisionNumber = maxRevisionNumber;
     }
+
+    public Integer getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(Integer checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getOfferTimeoutInMillis() {
+        return offerTimeoutInMillis;
+    }
+
+    public void setOfferTimeoutInMillis(long offerTimeoutInMillis) {
+        this.offerTimeoutInMillis = offerTimeoutInMillis;
+    }
+
+    public long getShutdownTimeoutInMillis() {
+        return shutdownTimeoutInMillis;
+    }
+
+    public void setShutdownTimeoutInMillis(long shutdownTimeoutInMillis) {
+        this.shutdownTimeoutInMillis = shutdownTimeoutInMillis;
+    }
 }
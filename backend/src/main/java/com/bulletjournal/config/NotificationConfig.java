@@ -9,6 +9,8 @@ public class NotificationConfig {
 
     private Cleaner cleaner = new Cleaner();
 
+    private Pipeline pipeline = new Pipeline();
+
     public NotificationConfig() {
     }
 
@@ -20,6 +22,14 @@ public class NotificationConfig {
         this.cleaner = cleaner;
     }
 
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
     public static class Cleaner {
         private int maxRetentionTimeInDays;
         private int intervalInSeconds;
@@ -51,4 +61,44 @@ public class NotificationConfig {
 
     }
 
+    public static class Pipeline {
+        // workers of notification and auditable stages, events are sharded by user
+        private int workers = 4;
+        private int queueCapacity = 10000;
+        // how long inform waits for a full queue before dropping the event
+        private long offerTimeoutInMillis = 100;
+        private long shutdownTimeoutInMillis = 5000;
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getOfferTimeoutInMillis() {
+            return offerTimeoutInMillis;
+        }
+
+        public void setOfferTimeoutInMillis(long offerTimeoutInMillis) {
+            this.offerTimeoutInMillis = offerTimeoutInMillis;
+        }
+
+        public long getShutdownTimeoutInMillis() {
+            return shutdownTimeoutInMillis;
+        }
+
+        public void setShutdownTimeoutInMillis(long shutdownTimeoutInMillis) {
+            this.shutdownTimeoutInMillis = shutdownTimeoutInMillis;
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "reminder")
+public class ReminderConfig {
+
+    private int scanIntervalInSeconds;
+
+    public int getScanIntervalInSeconds() {
+        return scanIntervalInSeconds;
+    }
+
+    public void setScanIntervalInSeconds(int scanIntervalInSeconds) {
+        this.scanIntervalInSeconds = scanIntervalInSeconds;
+    }
+}
@@ -8,6 +8,14 @@ import org.springframework.context.annotation.Configuration;
 public class SSOConfig {
     private static final String API_KEY = "SSO_API_KEY";
     private String endpoint;
+    private int connectTimeoutInMillis = 2000;
+    private int readTimeoutInMillis = 5000;
+    // max time to wait for a pooled connection
+    private int connectionRequestTimeoutInMillis = 1000;
+    private int maxConnections = 50;
+    // consecutive failures that open the circuit to the SSO server
+    private int failureThreshold = 5;
+    private long openIntervalInMillis = 30000;
 
     public SSOConfig() {
     }
@@ -27,4 +35,52 @@ public class SSOConfig {
     public String getAPIKey() {
         return System.getenv(API_KEY);
     }
+
+    public int getConnectTimeoutInMillis() {
+        return connectTimeoutInMillis;
+    }
+
+    public void setConnectTimeoutInMillis(int connectTimeoutInMillis) {
+        this.connectTimeoutInMillis = connectTimeoutInMillis;
+    }
+
+    public int getReadTimeoutInMillis() {
+        return readTimeoutInMillis;
+    }
+
+    public void setReadTimeoutInMillis(int readTimeoutInMillis) {
+        this.readTimeoutInMillis = readTimeoutInMillis;
+    }
+
+    public int getConnectionRequestTimeoutInMillis() {
+        return connectionRequestTimeoutInMillis;
+    }
+
+    public void setConnectionRequestTimeoutInMillis(int connectionRequestTimeoutInMillis) {
+        this.connectionRequestTimeoutInMillis = connectionRequestTimeoutInMillis;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getOpenIntervalInMillis() {
+        return openIntervalInMillis;
+    }
+
+    public void setOpenIntervalInMillis(long openIntervalInMillis) {
+        this.openIntervalInMillis = openIntervalInMillis;
+    }
 }
@@ -0,0 +1,48 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "search.indexer")
+public class SearchIndexConfig {
+    private long intervalInMillis;
+    // max number of changes read from the outbox at once
+    private int batchSize;
+    // max number of operations in one bulk request
+    private int bulkSize;
+    // changes whose documents fail this many times are moved to search_index_failed_changes
+    private int maxAttempts;
+
+    public long getIntervalInMillis() {
+        return intervalInMillis;
+    }
+
+    public void setIntervalInMillis(long intervalInMillis) {
+        this.intervalInMillis = intervalInMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBulkSize() {
+        return bulkSize;
+    }
+
+    public void setBulkSize(int bulkSize) {
+        this.bulkSize = bulkSize;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
@@ -5,6 +5,7 @@ import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.config.VersionConfig;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.exceptions.UnAuthorizedException;
+import com.bulletjournal.metrics.MetricsSource;
 import com.bulletjournal.redis.models.LockedIP;
 import com.bulletjournal.redis.models.LockedUser;
 import com.bulletjournal.redis.RedisLockedIPRepository;
@@ -18,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,6 +34,7 @@ public class AdminController {
     public static final String UNLOCK_USER_ROUTE = "/api/admin/unlock";
     public static final String LOCK_USER_ROUTE = "/api/admin/lock";
     public static final String VERSION_ROUTE = "/api/version";
+    public static final String METRICS_ROUTE = "/api/admin/metrics";
 
     @Autowired
     private VersionConfig versionConfig;
@@ -47,6 +51,9 @@ public class AdminController {
     @Autowired
     private RedisLockedIPRepository redisLockedIPRepository;
 
+    @Autowired
+    private List<MetricsSource> metricsSources;
+
     @PostMapping(SET_ROLE_ROUTE)
     public void setRole(@NotBlank @PathVariable String username, @NotNull @RequestBody SetRoleParams setRoleParams) {
         validateRequester();
@@ -152,4 +159,12 @@ public class AdminController {
         return this.versionConfig.getVersion();
     }
 
+    @GetMapping(METRICS_ROUTE)
+    public Map<String, Map<String, Number>> getMetrics() {
+        validateRequester();
+        Map<String, Map<String, Number>> metrics = new TreeMap<>();
+        this.metricsSources.forEach(source -> metrics.put(source.getMetricsName(), source.getMetrics()));
+        return metrics;
+    }
+
 }
@@ -2,10 +2,8 @@ package com.bulletjournal.controller;
 
 import com.bulletjournal.clients.AWSS3Client;
 import com.bulletjournal.clients.UserClient;
-import com.bulletjournal.controller.models.User;
 import com.bulletjournal.filters.rate.limiting.TokenBucket;
 import com.bulletjournal.filters.rate.limiting.TokenBucketType;
-import com.bulletjournal.redis.RedisUserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -16,7 +14,6 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Optional;
 
 @RestController
 public class FileController {
@@ -30,9 +27,6 @@ public class FileController {
     @Autowired
     private UserClient userClient;
 
-    @Autowired
-    private RedisUserRepository redisUserRepository;
-
     @PostMapping("/api/uploadFile")
     public String uploadFile(@RequestPart(value = "file") MultipartFile file) {
         if (this.tokenBucket.isLimitExceeded(TokenBucketType.FILE_UPLOAD)) {
@@ -52,9 +46,6 @@ public class FileController {
         this.userClient.uploadAvatar(file, username);
 
         LOGGER.info("Clearing " + username + " cache");
-        Optional<User> userOptional = redisUserRepository.findById(username);
-        if (userOptional.isPresent()) {
-            this.redisUserRepository.delete(userOptional.get());
-        }
+        this.userClient.invalidateUser(username);
     }
 }
@@ -2,9 +2,10 @@ package com.bulletjournal.controller;
 
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.controller.utils.EtagGenerator;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.notifications.*;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.GroupDaoJpa;
 import com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
@@ -39,6 +40,9 @@ public class GroupController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
     @PostMapping(GROUPS_ROUTE)
     @ResponseStatus(HttpStatus.CREATED)
     public Group createGroup(@Valid @RequestBody CreateGroupParams group) {
@@ -75,10 +79,9 @@ public class GroupController {
     @GetMapping(GROUPS_ROUTE)
     public ResponseEntity<List<GroupsWithOwner>> getGroups() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
+        String groupsEtag = this.etagVersionVector.getEtag(EtagType.GROUPS, username);
         List<Group> groups = this.groupDaoJpa.getGroups(username);
         Long defaultGroupId = groups.get(0).getId();
-        String groupsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                EtagGenerator.HashType.TO_HASHCODE, groups);
         // owner name -> groups (order by owner)
         Map<String, List<Group>> m = new TreeMap<>();
         // group -> self accepted or not
@@ -3,11 +3,13 @@ package com.bulletjournal.controller;
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.contents.ContentAction;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.controller.utils.EtagGenerator;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.notifications.*;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.NoteDaoJpa;
 import com.bulletjournal.repository.NoteRepository;
+import com.bulletjournal.repository.ProjectDaoJpa;
 import com.bulletjournal.repository.models.ContentModel;
 import com.bulletjournal.repository.models.NoteContent;
 import com.bulletjournal.repository.models.ProjectItemModel;
@@ -55,6 +57,12 @@ public class NoteController {
     @Autowired
     private UserClient userClient;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
+    @Autowired
+    private ProjectDaoJpa projectDaoJpa;
+
     @Autowired
     private NoteRepository noteRepository;
 
@@ -71,9 +79,8 @@ public class NoteController {
         }
 
         String username = MDC.get(UserClient.USER_NAME_KEY);
+        String notesEtag = this.etagVersionVector.getEtag(EtagType.NOTES, projectId);
         List<Note> notes = this.noteDaoJpa.getNotes(projectId, username);
-        String notesEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                EtagGenerator.HashType.TO_HASHCODE, notes);
 
         HttpHeaders responseHeader = new HttpHeaders();
         responseHeader.setETag(notesEtag);
@@ -136,7 +143,6 @@ public class NoteController {
     private Note deleteSingleNote(Long noteId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
         Note note = getNote(noteId);
-        List<String> deleteESDocumentIds = this.noteDaoJpa.getDeleteESDocumentIdsForProjectItem(username, noteId);
         Pair<List<Event>, com.bulletjournal.repository.models.Note> res = this.noteDaoJpa.deleteNote(username, noteId);
         List<Event> events = res.getLeft();
         Long projectId = res.getRight().getProject().getId();
@@ -145,7 +151,6 @@ public class NoteController {
         if (!events.isEmpty()) {
             this.notificationService.inform(new RemoveNoteEvent(events, username));
         }
-        this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
         this.notificationService.trackActivity(new Auditable(projectId, "deleted note ##" + noteName + "##", username,
                 noteId, Timestamp.from(Instant.now()), ContentAction.DELETE_NOTE));
         return note;
@@ -170,9 +175,9 @@ public class NoteController {
             @Valid @RequestBody List<Note> notes, @RequestHeader(IF_NONE_MATCH) Optional<String> notesEtag) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
         if (notesEtag.isPresent()) {
-            List<Note> noteList = this.noteDaoJpa.getNotes(projectId, username);
-            String expectedEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE, noteList);
+            // validates requester in project group
+            this.projectDaoJpa.getProject(projectId, username);
+            String expectedEtag = this.etagVersionVector.getEtag(EtagType.NOTES, projectId);
             if (!Objects.equals(expectedEtag, notesEtag.get())) {
                 throw new BadRequestException("Invalid Etag");
             }
@@ -254,20 +259,17 @@ public class NoteController {
     @GetMapping(CONTENTS_ROUTE)
     public List<Content> getContents(@NotNull @PathVariable Long noteId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        return Content.addOwnerAvatar(this.noteDaoJpa.getContents(noteId, username).stream()
-                .map(t -> t.toPresentationModel()).collect(Collectors.toList()), this.userClient);
+        return Content.addOwnerAvatar(this.noteDaoJpa.getContentsWithRevisions(noteId, username), this.userClient);
     }
 
     @DeleteMapping(CONTENT_ROUTE)
     public List<Content> deleteContent(@NotNull @PathVariable Long noteId, @NotNull @PathVariable Long contentId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        List<String> deleteESDocumentIds = this.noteDaoJpa.getDeleteESDocumentIdsForContent(username, contentId);
         ProjectItemModel note = this.noteDaoJpa.deleteContent(contentId, noteId, username);
 
         this.notificationService.trackActivity(new Auditable(note.getProject().getId(),
                 "deleted Content in Note ##" + note.getName() + "## under BuJo ##" + note.getProject().getName() + "##",
                 username, noteId, Timestamp.from(Instant.now()), ContentAction.DELETE_NOTE_CONTENT));
-        this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
 
         return getContents(noteId);
     }
@@ -1,11 +1,13 @@
 package com.bulletjournal.controller;
 
+import com.bulletjournal.authz.ProjectAccessIndex;
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.controller.models.AnswerNotificationParams;
 import com.bulletjournal.controller.models.Notification;
-import com.bulletjournal.controller.utils.EtagGenerator;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.notifications.*;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.*;
 import com.bulletjournal.repository.models.Group;
 import com.bulletjournal.repository.models.User;
@@ -24,7 +26,9 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 public class NotificationController {
@@ -49,15 +53,18 @@ public class NotificationController {
     @Autowired
     private GroupRepository groupRepository;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
+    @Autowired
+    private ProjectAccessIndex projectAccessIndex;
+
     @GetMapping(NOTIFICATIONS_ROUTE)
     public ResponseEntity<List<Notification>> getNotifications() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
+        String notificationsEtag = this.etagVersionVector.getEtag(EtagType.NOTIFICATIONS, username);
         List<Notification> notificationList = this.notificationDaoJpa.getNotifications(username);
 
-        String notificationsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                EtagGenerator.HashType.TO_HASHCODE,
-                notificationList);
-
         HttpHeaders responseHeader = new HttpHeaders();
         responseHeader.setETag(notificationsEtag);
 
@@ -84,13 +91,13 @@ public class NotificationController {
     @DeleteMapping(NOTIFICATIONS_ROUTE)
     public ResponseEntity<List<Notification>> cleanNotifications() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        this.notificationRepository.deleteByTargetUser(username);
+        this.notificationDaoJpa.deleteByTargetUser(username);
         return getNotifications();
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     void deleteNotification(com.bulletjournal.repository.models.Notification notification) {
-        this.notificationRepository.delete(notification);
+        this.notificationDaoJpa.delete(notification);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -112,13 +119,19 @@ public class NotificationController {
                     // set UserGroup's "accepted" to be true
                     userGroup.setAccepted(true);
                     this.userGroupRepository.save(userGroup);
+                    this.etagVersionVector.bump(EtagType.SHARED_PROJECTS, user.getName());
                 } else {
                     // remove UserGroup
                     this.userGroupRepository.delete(userGroup);
                 }
+                this.projectAccessIndex.invalidateGroups(user.getName());
 
                 Group group = this.groupRepository.findById(notification.getContentId()).orElseThrow(() ->
                         new ResourceNotFoundException("Group " + notification.getContentId() + " not found"));
+                List<String> groupUsers = group.getUsers().stream().map(u -> u.getUser().getName())
+                        .collect(Collectors.toCollection(ArrayList::new));
+                groupUsers.add(user.getName());
+                this.etagVersionVector.bump(EtagType.GROUPS, groupUsers);
                 Event event = new Event(
                         notification.getOriginator(),
                         notification.getContentId(),
@@ -3,8 +3,9 @@ package com.bulletjournal.controller;
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.contents.ContentAction;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.controller.utils.EtagGenerator;
 import com.bulletjournal.notifications.*;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.AuditableDaoJpa;
 import com.bulletjournal.repository.ProjectDaoJpa;
 import org.apache.commons.lang3.tuple.Pair;
@@ -50,19 +51,20 @@ public class ProjectController {
     @Autowired
     private UserClient userClient;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
     @GetMapping(PROJECTS_ROUTE)
     public ResponseEntity<Projects> getProjects() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
+        // read version before data so that a concurrent update is never hidden behind a newer etag
+        List<String> etags = this.etagVersionVector.getEtags(Arrays.asList(
+                EtagVersionVector.getKey(EtagType.OWNED_PROJECTS, username),
+                EtagVersionVector.getKey(EtagType.SHARED_PROJECTS, username)));
         Projects projects = this.projectDaoJpa.getProjects(username);
 
-        String ownedProjectsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                EtagGenerator.HashType.TO_HASHCODE, projects.getOwned());
-
-        String sharedProjectsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                EtagGenerator.HashType.TO_HASHCODE, projects.getShared());
-
         HttpHeaders responseHeader = new HttpHeaders();
-        responseHeader.setETag(ownedProjectsEtag + "|" + sharedProjectsEtag);
+        responseHeader.setETag(etags.get(0) + "|" + etags.get(1));
         return ResponseEntity.ok().headers(responseHeader).body(Projects.addOwnerAvatar(projects, this.userClient));
     }
 
@@ -139,9 +141,7 @@ public class ProjectController {
 
         String username = MDC.get(UserClient.USER_NAME_KEY);
         if (projectsEtag.isPresent()) {
-            List<Project> projectsList = this.projectDaoJpa.getProjects(username).getOwned();
-            String expectedEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE, projectsList);
+            String expectedEtag = this.etagVersionVector.getEtag(EtagType.OWNED_PROJECTS, username);
 
             if (!Objects.equals(expectedEtag, projectsEtag.get())) {
                 throw new BadRequestException("Invalid Etag");
@@ -6,6 +6,7 @@ import com.bulletjournal.controller.models.SearchResult;
 import com.bulletjournal.controller.models.SearchResultItem;
 import com.bulletjournal.es.ESUtil;
 import com.bulletjournal.es.repository.SearchIndexDaoJpa;
+import com.bulletjournal.es.repository.models.SearchAfterHits;
 import com.bulletjournal.es.repository.models.SearchIndex;
 import com.bulletjournal.notifications.NotificationService;
 import com.bulletjournal.notifications.RemoveElasticsearchDocumentEvent;
@@ -13,6 +14,7 @@ import com.bulletjournal.repository.NoteDaoJpa;
 import com.bulletjournal.repository.ProjectItemDaoJpa;
 import com.bulletjournal.repository.TaskDaoJpa;
 import com.bulletjournal.repository.TransactionDaoJpa;
+import com.bulletjournal.repository.models.ProjectItemModel;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,10 +32,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @RestController
@@ -58,6 +57,9 @@ public class QueryController {
     @Value("${spring.elasticsearch.rest.enable}")
     private Boolean elasticsearchToggle;
 
+    @Value("${search.pagination.scroll.enable}")
+    private Boolean scrollToggle;
+
     /**
      * Parse Search Index identifier into type and id
      *
@@ -86,6 +88,7 @@ public class QueryController {
      * SearchResult Model Structure
      * - Long totalHits
      * - String ScrollId
+     * - String Cursor
      * - List[SearchResultItem] searchResultItemList
      * <p>
      * SearchResultItem Model Structure
@@ -94,8 +97,13 @@ public class QueryController {
      * - String ProjectItem Name
      * - List[String] HighLights of Name
      * - List[String] HighLights of Content
+     * <p>
+     * Pages are requested either with scrollId of a scroll search or with cursor of a stateless search_after
+     * search. New searches use scroll only while search.pagination.scroll.enable is on, so clients can migrate to
+     * cursor before scroll searches are turned off.
      *
      * @param scrollId user uses scroll id to get next page
+     * @param cursor   user uses cursor to get next page
      * @param term     user input term to be searched in Elastic Search DB
      * @param pageNo   user gives starting page number
      * @param pageSize user gives size for each search
@@ -104,6 +112,7 @@ public class QueryController {
     @GetMapping(SEARCH_ROUTE)
     @ResponseStatus(HttpStatus.OK)
     public SearchResult search(@RequestParam(required = false) String scrollId,
+                               @RequestParam(required = false) String cursor,
                                @Valid @RequestParam @NotBlank String term,
                                @RequestParam(required = false, defaultValue = "0") Integer pageNo,
                                @RequestParam(required = false, defaultValue = "10") Integer pageSize) {
@@ -113,36 +122,46 @@ public class QueryController {
         }
 
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        SearchScrollHits<SearchIndex> scroll;
-        if (scrollId == null || scrollId.length() == 0) {
-            scroll = searchIndexDaoJpa.search(username, term, pageNo, pageSize);
-            scrollId = scroll.getScrollId();
-        } else {
-            scroll = searchIndexDaoJpa.search(scrollId);
-        }
+        List<SearchHit<SearchIndex>> searchResultList = new ArrayList<>();
+        SearchResult validSearchResult = new SearchResult();
+        if (StringUtils.isNotEmpty(scrollId) || (StringUtils.isEmpty(cursor) && scrollToggle)) {
+            SearchScrollHits<SearchIndex> scroll;
+            if (StringUtils.isEmpty(scrollId)) {
+                scroll = searchIndexDaoJpa.search(username, term, pageNo, pageSize);
+                scrollId = scroll.getScrollId();
+            } else {
+                scroll = searchIndexDaoJpa.search(scrollId);
+            }
 
-        if (scroll == null) {
-            throw new IllegalStateException("SearchScrollHits is null");
-        }
+            if (scroll == null) {
+                throw new IllegalStateException("SearchScrollHits is null");
+            }
 
-        List<SearchHit<SearchIndex>> searchResultList = new ArrayList<>();
-        if (scroll.hasSearchHits()) {
-            searchResultList.addAll(scroll.getSearchHits());
+            if (scroll.hasSearchHits()) {
+                searchResultList.addAll(scroll.getSearchHits());
+            }
+            validSearchResult.setScrollId(scrollId);
+            validSearchResult.setTotalHits(scroll.getTotalHits());
+            validSearchResult.setHasSearchHits(scroll.hasSearchHits());
+        } else {
+            SearchAfterHits page = searchIndexDaoJpa.searchAfter(
+                    username, term, StringUtils.isEmpty(cursor) ? null : cursor, pageSize);
+            searchResultList.addAll(page.getSearchHits());
+            validSearchResult.setCursor(page.getCursor());
+            validSearchResult.setTotalHits(page.getTotalHits());
+            validSearchResult.setHasSearchHits(page.hasSearchHits());
         }
 
         List<SearchIndex> invalidResults = new ArrayList<>();
         List<SearchResultItem> validResults = search(username, invalidResults, searchResultList);
 
         // Batch remove all invalid results from ElasticSearch using notification event queue
-        notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(
-                invalidResults.stream().map(SearchIndex::getId).collect(Collectors.toList())));
+        if (!invalidResults.isEmpty()) {
+            notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(
+                    invalidResults.stream().map(SearchIndex::getId).collect(Collectors.toList())));
+        }
 
-        SearchResult validSearchResult = new SearchResult();
-        validSearchResult.setScrollId(scrollId);
         validSearchResult.setSearchResultItemList(validResults);
-        validSearchResult.setTotalHits(scroll.getTotalHits());
-        validSearchResult.setHasSearchHits(scroll.hasSearchHits());
-
         return validSearchResult;
     }
 
@@ -157,6 +176,8 @@ public class QueryController {
     private List<SearchResultItem> search(String username,
                                           List<SearchIndex> invalid,
                                           List<SearchHit<SearchIndex>> searchResultList) {
+        Map<String, String> projectItemNames = validateSearchResults(username, invalid, searchResultList);
+
         // Created a Map to group search result to the same id
         Map<String, SearchResultItem> results = new HashMap<>();
 
@@ -165,10 +186,9 @@ public class QueryController {
             boolean isContent = index.getParentId() != null;
             String projectItemId = isContent ? index.getParentId() : index.getId();
 
-            // If search result is not present in database, add result to invalid results list
-            String projectItemName = validateSearchResult(index, username);
+            // Skip search result not present in database or not accessible by requester
+            String projectItemName = projectItemNames.get(index.getId());
             if (projectItemName == null) {
-                invalid.add(index);
                 return;
             }
 
@@ -197,59 +217,76 @@ public class QueryController {
     }
 
     /**
-     * Validate search result still exists.
+     * Validate search results still exist and are accessible by requester.
      * <p>
-     * 1. Determine the search index type.
-     * - If type is NAME, search id in project item repo
-     * - If type is CONTENT, search content in project content repo and search its parent in project item repo
-     * 2. Return project item name, if result is valid. Otherwise, return null.
+     * 1. Group search results by project item type, load their project items and contents with one query per type.
+     * 2. Check project of each project item against projects of requester.
+     * 3. Search results whose project item or content is gone are added to invalid list.
      *
-     * @param searchIndex the target search index
-     * @param username    the requester username
-     * @return the project item name of the search index
+     * @param username         the requester username
+     * @param invalid          list of invalid search indices
+     * @param searchResultList list of search result
+     * @return search index id -> project item name of valid search results
      */
-    private String validateSearchResult(SearchIndex searchIndex, String username) {
-        Pair<String, Long> searchIndexPair = parseSearchIndexInfo(searchIndex.getId());
-        String searchIndexType = searchIndexPair.getFirst();
-        Long searchIndexId = searchIndexPair.getSecond();
-
-        // If content type contains suffix as CONTENT
-        boolean isContent = searchIndexType.endsWith(CONTENT_TYPE_SUFFIX);
-
-        ProjectItemDaoJpa projectItemDaoJpa = getProjectItemDao(searchIndexType);
-
-        try {
-            if (isContent) {
-                if (projectItemDaoJpa.getContent(searchIndexId, username) == null)
-                    return null;
-
-                searchIndexId = parseSearchIndexInfo(searchIndex.getParentId()).getSecond();
+    private Map<String, String> validateSearchResults(String username,
+                                                      List<SearchIndex> invalid,
+                                                      List<SearchHit<SearchIndex>> searchResultList) {
+        Map<ContentType, Set<Long>> projectItemIds = new HashMap<>();
+        Map<ContentType, Set<Long>> contentIds = new HashMap<>();
+        for (SearchHit<SearchIndex> searchHit : searchResultList) {
+            SearchIndex index = searchHit.getContent();
+            Pair<String, Long> searchIndexPair = parseSearchIndexInfo(index.getId());
+            // If content type contains suffix as CONTENT
+            if (searchIndexPair.getFirst().endsWith(CONTENT_TYPE_SUFFIX)) {
+                Pair<String, Long> parentPair = parseSearchIndexInfo(index.getParentId());
+                ContentType type = ContentType.getType(parentPair.getFirst());
+                contentIds.computeIfAbsent(type, k -> new HashSet<>()).add(searchIndexPair.getSecond());
+                projectItemIds.computeIfAbsent(type, k -> new HashSet<>()).add(parentPair.getSecond());
+            } else {
+                projectItemIds.computeIfAbsent(ContentType.getType(searchIndexPair.getFirst()), k -> new HashSet<>())
+                        .add(searchIndexPair.getSecond());
             }
+        }
 
-            // If ResourceNotFound or NullPointer exception is thrown, return null
-            return projectItemDaoJpa.getProjectItem(searchIndexId, username).getName();
-        } catch (Exception ex) {
-            return null;
+        // search index id -> project item of existing project items
+        Map<String, ProjectItemModel> projectItems = new HashMap<>();
+        projectItemIds.forEach((type, ids) -> getProjectItemDao(type).findProjectItemsByIds(ids).forEach(
+                item -> projectItems.put(SearchIndexDaoJpa.getProjectItemSearchIndexId(type, item.getId()), item)));
+        // search index id of content -> search index id of its project item
+        Map<String, String> contentProjectItems = new HashMap<>();
+        contentIds.forEach((type, ids) -> getProjectItemDao(type).findContentsByIds(ids).forEach(
+                content -> contentProjectItems.put(SearchIndexDaoJpa.getContentSearchIndexId(type, content.getId()),
+                        SearchIndexDaoJpa.getProjectItemSearchIndexId(type, content.getProjectItem().getId()))));
+
+        Set<Long> projectIds = this.searchIndexDaoJpa.getUserProjects(username);
+        Map<String, String> projectItemNames = new HashMap<>();
+        for (SearchHit<SearchIndex> searchHit : searchResultList) {
+            SearchIndex index = searchHit.getContent();
+            String projectItemId = index.getParentId() == null ? index.getId() : contentProjectItems.get(index.getId());
+            ProjectItemModel projectItem = projectItemId == null ? null : projectItems.get(projectItemId);
+            if (projectItem == null) {
+                invalid.add(index);
+            } else if (projectIds.contains(projectItem.getProject().getId())) {
+                projectItemNames.put(index.getId(), projectItem.getName());
+            }
         }
+        return projectItemNames;
     }
 
     /**
      * Get ProjectItemDaoJpa based on input type.
-     * Both ProjectItem and ProjectItem content return the same DaoJpa.
+     * Contents are loaded by the DaoJpa of their project item type.
      *
-     * @param type the requested dao type
+     * @param type the requested project item type
      * @return the ProjectItemDao instance
      */
-    private ProjectItemDaoJpa getProjectItemDao(String type) {
+    private ProjectItemDaoJpa<?> getProjectItemDao(ContentType type) {
         switch (type) {
-            case "task":
-            case "task_content":
+            case TASK:
                 return taskDaoJpa;
-            case "transaction":
-            case "transaction_content":
+            case TRANSACTION:
                 return transactionDaoJpa;
-            case "note":
-            case "note_content":
+            case NOTE:
                 return noteDaoJpa;
             default:
                 LOGGER.error("QueryController failed to get Project Item Dao");
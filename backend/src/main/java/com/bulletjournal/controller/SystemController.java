@@ -4,14 +4,14 @@ import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.controller.utils.EtagGenerator;
-import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.daemon.Reminder;
+import com.bulletjournal.daemon.Reminders;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.UnAuthorizedException;
 import com.bulletjournal.filters.rate.limiting.TokenBucket;
 import com.bulletjournal.filters.rate.limiting.TokenBucketType;
-import com.bulletjournal.redis.RedisEtagRepository;
-import com.bulletjournal.redis.models.Etag;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.*;
 import com.bulletjournal.repository.models.ProjectItemModel;
 import org.apache.commons.lang3.StringUtils;
@@ -41,13 +41,7 @@ public class SystemController {
     private static final String CONTACTS_ROUTE = "/api/contacts";
 
     @Autowired
-    private ProjectDaoJpa projectDaoJpa;
-
-    @Autowired
-    private NotificationDaoJpa notificationDaoJpa;
-
-    @Autowired
-    private GroupDaoJpa groupDaoJpa;
+    private AuthorizationService authorizationService;
 
     @Autowired
     private TaskDaoJpa taskDaoJpa;
@@ -74,7 +68,10 @@ public class SystemController {
     private UserClient userClient;
 
     @Autowired
-    private RedisEtagRepository redisEtagRepository;
+    private EtagVersionVector etagVersionVector;
+
+    @Autowired
+    private Reminder reminder;
 
     @GetMapping(UPDATES_ROUTE)
     public SystemUpdates getUpdates(@RequestParam(name = "targets", required = false) String targets,
@@ -94,64 +91,60 @@ public class SystemController {
         String remindingTaskEtag = null;
         List<Task> remindingTasks = null;
 
-        if (targetEtags == null || targetEtags.contains("projectsEtag")) {
-            Projects projects = this.projectDaoJpa.getProjects(username);
-            ownedProjectsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    projects.getOwned());
-            sharedProjectsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    projects.getShared());
+        // etags come from the version vector in one round trip, without loading the resources
+        List<String> keys = new ArrayList<>();
+        boolean projectsTargeted = targetEtags == null || targetEtags.contains("projectsEtag");
+        boolean notificationsTargeted = targetEtags == null || targetEtags.contains("notificationsEtag");
+        boolean groupsTargeted = targetEtags == null || targetEtags.contains("groupsEtag");
+        if (projectsTargeted) {
+            keys.add(EtagVersionVector.getKey(EtagType.OWNED_PROJECTS, username));
+            keys.add(EtagVersionVector.getKey(EtagType.SHARED_PROJECTS, username));
         }
-        if (targetEtags == null || targetEtags.contains("notificationsEtag")) {
-
-            // Look up etag from cache
-            //Etag cache = redisEtagRepository.findByIndex(username);
-
-            // If cache missed, write new etag to redis
-            //if (Objects.isNull(cache)) {
-            List<Notification> notificationList = this.notificationDaoJpa.getNotifications(username);
-            notificationsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    notificationList);
-            Etag cached = new Etag(username, notificationsEtag);
-            redisEtagRepository.save(cached);
-            //} else {
-            //    notificationsEtag = cache.getEtag();
-            //}
+        if (notificationsTargeted) {
+            keys.add(EtagVersionVector.getKey(EtagType.NOTIFICATIONS, username));
         }
-
+        if (groupsTargeted) {
+            keys.add(EtagVersionVector.getKey(EtagType.GROUPS, username));
+        }
+        ProjectType projectType = null;
         if (projectId != null) {
-            Project project = this.projectDaoJpa.getProject(projectId, username).toPresentationModel();
-            switch (project.getProjectType()) {
+            // membership and type come from the access index, so polls stay off Postgres
+            projectType = this.authorizationService.getProjectType(username, projectId);
+            switch (projectType) {
                 case TODO:
-                    List<Task> taskList = this.taskDaoJpa.getTasks(projectId, username);
-                    tasksEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                            EtagGenerator.HashType.TO_HASHCODE,
-                            taskList);
+                    keys.add(EtagVersionVector.getKey(EtagType.TASKS, projectId));
                     break;
                 case NOTE:
-                    List<Note> noteList = this.noteDaoJpa.getNotes(projectId, username);
-                    notesEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                            EtagGenerator.HashType.TO_HASHCODE,
-                            noteList);
+                    keys.add(EtagVersionVector.getKey(EtagType.NOTES, projectId));
                     break;
                 default:
                     throw new IllegalArgumentException();
             }
         }
 
-        if (targetEtags == null || targetEtags.contains("groupsEtag")) {
-            List<Group> groupList = this.groupDaoJpa.getGroups(username);
-            groupsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    groupList);
+        if (!keys.isEmpty()) {
+            Iterator<String> etags = this.etagVersionVector.getEtags(keys).iterator();
+            if (projectsTargeted) {
+                ownedProjectsEtag = etags.next();
+                sharedProjectsEtag = etags.next();
+            }
+            if (notificationsTargeted) {
+                notificationsEtag = etags.next();
+            }
+            if (groupsTargeted) {
+                groupsEtag = etags.next();
+            }
+            if (ProjectType.TODO.equals(projectType)) {
+                tasksEtag = etags.next();
+            } else if (ProjectType.NOTE.equals(projectType)) {
+                notesEtag = etags.next();
+            }
         }
+
         if (targetEtags == null || targetEtags.contains("taskReminders")) {
-            remindingTasks = this.taskDaoJpa.getRemindingTasks(username, ZonedDateTimeHelper.getNow());
-            remindingTaskEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    remindingTasks);
+            Reminders reminders = this.reminder.getReminders(username);
+            remindingTasks = reminders.getTasks();
+            remindingTaskEtag = reminders.getEtag();
             if (remindingTaskRequestEtag.isPresent() && remindingTaskEtag.equals(remindingTaskRequestEtag.get())) {
                 remindingTasks = null;
             }
@@ -3,9 +3,11 @@ package com.bulletjournal.controller;
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.contents.ContentAction;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.controller.utils.EtagGenerator;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.notifications.*;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
+import com.bulletjournal.repository.ProjectDaoJpa;
 import com.bulletjournal.repository.TaskDaoJpa;
 import com.bulletjournal.repository.TaskRepository;
 import com.bulletjournal.repository.models.CompletedTask;
@@ -26,7 +28,9 @@ import javax.validation.constraints.NotNull;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -67,6 +71,12 @@ public class TaskController {
     @Autowired
     private UserClient userClient;
 
+    @Autowired
+    private ProjectDaoJpa projectDaoJpa;
+
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
     @GetMapping(TASKS_ROUTE)
     public ResponseEntity<List<Task>> getTasks(@NotNull @PathVariable Long projectId,
             @RequestParam(required = false) String assignee, @RequestParam(required = false) String startDate,
@@ -80,9 +90,8 @@ public class TaskController {
         }
 
         String username = MDC.get(UserClient.USER_NAME_KEY);
+        String tasksEtag = this.etagVersionVector.getEtag(EtagType.TASKS, projectId);
         List<Task> tasks = this.taskDaoJpa.getTasks(projectId, username);
-        String tasksEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                EtagGenerator.HashType.TO_HASHCODE, tasks);
 
         HttpHeaders responseHeader = new HttpHeaders();
         responseHeader.setETag(tasksEtag);
@@ -130,8 +139,8 @@ public class TaskController {
     }
 
     @PatchMapping(TASK_ROUTE)
-    public ResponseEntity<List<Task>> updateTask(@NotNull @PathVariable Long taskId,
-            @Valid @RequestBody UpdateTaskParams updateTaskParams) {
+    public ResponseEntity<?> updateTask(@NotNull @PathVariable Long taskId,
+            @Valid @RequestBody UpdateTaskParams updateTaskParams, @RequestParam(required = false) Boolean delta) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
         List<UpdateTaskAssigneeEvent> events = new ArrayList<>();
 
@@ -147,23 +156,25 @@ public class TaskController {
         this.notificationService.trackActivity(new Auditable(projectId,
                 "updated Task ##" + updatedTask.getName() + "## in BuJo ##" + projectName + "##", username,
                 updatedTask.getId(), Timestamp.from(Instant.now()), ContentAction.UPDATE_TASK));
-        return getTasks(projectId, null, null, null, null, null);
+        return getTasksOrDelta(projectId, delta, Collections.singletonList(taskId), Collections.emptyList());
     }
 
     @PutMapping(TASKS_ROUTE)
-    public ResponseEntity<List<Task>> updateTaskRelations(@NotNull @PathVariable Long projectId,
-            @Valid @RequestBody List<Task> tasks, @RequestHeader(IF_NONE_MATCH) Optional<String> tasksEtag) {
+    public ResponseEntity<?> updateTaskRelations(@NotNull @PathVariable Long projectId,
+            @Valid @RequestBody List<Task> tasks, @RequestHeader(IF_NONE_MATCH) Optional<String> tasksEtag,
+            @RequestParam(required = false) Boolean delta) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
         if (tasksEtag.isPresent()) {
-            List<Task> taskList = this.taskDaoJpa.getTasks(projectId, username);
-            String expectedEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE, taskList);
+            // validates requester in project group
+            this.projectDaoJpa.getProject(projectId, username);
+            String expectedEtag = this.etagVersionVector.getEtag(EtagType.TASKS, projectId);
             if (!Objects.equals(expectedEtag, tasksEtag.get())) {
                 throw new BadRequestException("Invalid Etag");
             }
         }
         this.taskDaoJpa.updateUserTasks(projectId, tasks);
-        return getTasks(projectId, null, null, null, null, null);
+        // requester already has the new relations
+        return getTasksOrDelta(projectId, delta, Collections.emptyList(), Collections.emptyList());
     }
 
     @PostMapping(COMPLETE_TASK_ROUTE)
@@ -176,11 +187,8 @@ public class TaskController {
     private CompletedTask completeSingleTask(Long taskId, String dateTime) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
 
-        List<String> deleteESDocumentIds = this.taskDaoJpa.getDeleteESDocumentIdsForProjectItem(username, taskId);
-
         CompletedTask task = this.taskDaoJpa.complete(username, taskId, dateTime);
 
-        this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
         this.notificationService.trackActivity(new Auditable(task.getProject().getId(),
                 "completed Task ##" + task.getName() + "## in BuJo ##" + task.getProject().getName() + "##", username,
                 task.getId(), Timestamp.from(Instant.now()), ContentAction.COMPLETE_TASK));
@@ -188,21 +196,24 @@ public class TaskController {
     }
 
     @PostMapping(COMPLETE_TASKS_ROUTE)
-    public ResponseEntity<List<Task>> completeTasks(@NotNull @PathVariable Long projectId,
-            @RequestParam List<Long> tasks) {
+    public ResponseEntity<?> completeTasks(@NotNull @PathVariable Long projectId,
+            @RequestParam List<Long> tasks, @RequestParam(required = false) Boolean delta) {
 
-        tasks.forEach(t -> {
-            if (this.taskRepository.existsById(t)) {
-                this.completeSingleTask(t, null);
-            }
-        });
+        String username = MDC.get(UserClient.USER_NAME_KEY);
+        Map<Long, CompletedTask> completed = this.taskDaoJpa.complete(username, tasks);
 
-        return getTasks(projectId, null, null, null, null, null);
+        Timestamp now = Timestamp.from(Instant.now());
+        completed.values().forEach(task -> this.notificationService.trackActivity(new Auditable(
+                task.getProject().getId(),
+                "completed Task ##" + task.getName() + "## in BuJo ##" + task.getProject().getName() + "##",
+                username, task.getId(), now, ContentAction.COMPLETE_TASK)));
+
+        return getTasksOrDelta(projectId, delta, Collections.emptyList(), new ArrayList<>(completed.keySet()));
     }
 
     @PostMapping(SET_TASK_STATUS_ROUTE)
-    public ResponseEntity<List<Task>> setTaskStatus(@NotNull @PathVariable Long taskId,
-            @RequestBody SetTaskStatusParams setTaskStatusParams) {
+    public ResponseEntity<?> setTaskStatus(@NotNull @PathVariable Long taskId,
+            @RequestBody SetTaskStatusParams setTaskStatusParams, @RequestParam(required = false) Boolean delta) {
 
         String username = MDC.get(UserClient.USER_NAME_KEY);
         Pair<com.bulletjournal.repository.models.Task, List<Event>> res = this.taskDaoJpa
@@ -220,7 +231,29 @@ public class TaskController {
                         + updatedTask.getProject().getName() + "##",
                 username, updatedTask.getId(), Timestamp.from(Instant.now()), ContentAction.UPDATE_TASK));
 
-        return getTasks(updatedTask.getProject().getId(), null, null, null, null, null);
+        return getTasksOrDelta(updatedTask.getProject().getId(), delta, Collections.singletonList(taskId),
+                Collections.emptyList());
+    }
+
+    /**
+     * Respond to a task mutation with the whole task tree, or with only the changed tasks if delta is requested
+     *
+     * @param updated ids of tasks whose fields changed
+     * @param removed ids of tasks removed with their sub tasks
+     */
+    private ResponseEntity<?> getTasksOrDelta(Long projectId, Boolean delta, List<Long> updated, List<Long> removed) {
+        if (!Boolean.TRUE.equals(delta)) {
+            return getTasks(projectId, null, null, null, null, null);
+        }
+        String username = MDC.get(UserClient.USER_NAME_KEY);
+        List<Task> updatedTasks = updated.stream().map(id -> this.taskDaoJpa.getTask(username, id))
+                .collect(Collectors.toList());
+        String tasksEtag = this.etagVersionVector.getEtag(EtagType.TASKS, projectId);
+
+        HttpHeaders responseHeader = new HttpHeaders();
+        responseHeader.setETag(tasksEtag);
+        return ResponseEntity.ok().headers(responseHeader).body(
+                new TasksDelta(ProjectItem.addAvatar(updatedTasks, this.userClient), removed, tasksEtag));
     }
 
     @PostMapping(UNCOMPLETE_TASK_ROUTE)
@@ -270,8 +303,6 @@ public class TaskController {
     private Long deleteSingleTask(Long taskId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
 
-        List<String> deleteESDocumentIds = this.taskDaoJpa.getDeleteESDocumentIdsForProjectItem(username, taskId);
-
         Pair<List<Event>, com.bulletjournal.repository.models.Task> res = this.taskDaoJpa.deleteTask(username, taskId);
         List<Event> events = res.getLeft();
         String taskName = res.getRight().getName();
@@ -280,7 +311,6 @@ public class TaskController {
         if (!events.isEmpty()) {
             this.notificationService.inform(new RemoveTaskEvent(events, username));
         }
-        this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
         this.notificationService.trackActivity(
                 new Auditable(projectId, "deleted Task ##" + taskName + "## in BuJo ##" + projectName + "##", username,
                         taskId, Timestamp.from(Instant.now()), ContentAction.DELETE_TASK));
@@ -385,8 +415,7 @@ public class TaskController {
     @GetMapping(CONTENTS_ROUTE)
     public List<Content> getContents(@NotNull @PathVariable Long taskId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        return Content.addOwnerAvatar(this.taskDaoJpa.getContents(taskId, username).stream()
-                .map(t -> t.toPresentationModel()).collect(Collectors.toList()), this.userClient);
+        return Content.addOwnerAvatar(this.taskDaoJpa.getContentsWithRevisions(taskId, username), this.userClient);
     }
 
     @GetMapping(COMPLETED_TASK_CONTENTS_ROUTE)
@@ -399,13 +428,11 @@ public class TaskController {
     @DeleteMapping(CONTENT_ROUTE)
     public List<Content> deleteContent(@NotNull @PathVariable Long taskId, @NotNull @PathVariable Long contentId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        List<String> deleteESDocumentIds = this.taskDaoJpa.getDeleteESDocumentIdsForContent(username, contentId);
         ProjectItemModel task = this.taskDaoJpa.deleteContent(contentId, taskId, username);
 
         this.notificationService.trackActivity(new Auditable(task.getProject().getId(),
                 "Deleted Content in Task ##" + task.getName() + "## under BuJo ##" + task.getProject().getName() + "##",
                 username, taskId, Timestamp.from(Instant.now()), ContentAction.DELETE_TASK_CONTENT));
-        this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
 
         return getContents(taskId);
     }
@@ -31,7 +31,6 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 public class TransactionController {
@@ -150,8 +149,6 @@ public class TransactionController {
         public void deleteTransaction(@NotNull @PathVariable Long transactionId) {
                 String username = MDC.get(UserClient.USER_NAME_KEY);
 
-                List<String> deleteESDocumentIds = this.transactionDaoJpa.getDeleteESDocumentIdsForProjectItem(username, transactionId);
-
                 Pair<List<Event>, com.bulletjournal.repository.models.Transaction> res = this.transactionDaoJpa
                                 .delete(username, transactionId);
                 List<Event> events = res.getLeft();
@@ -160,7 +157,6 @@ public class TransactionController {
                 if (!events.isEmpty()) {
                         this.notificationService.inform(new RemoveTransactionEvent(events, username));
                 }
-                this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
                 this.notificationService.trackActivity(new Auditable(projectId,
                                 "deleted Transaction ##" + transactionName + "##", username, transactionId,
                                 Timestamp.from(Instant.now()), ContentAction.DELETE_TRANSACTION));
@@ -250,9 +246,7 @@ public class TransactionController {
         @GetMapping(CONTENTS_ROUTE)
         public List<Content> getContents(@NotNull @PathVariable Long transactionId) {
                 String username = MDC.get(UserClient.USER_NAME_KEY);
-                return Content.addOwnerAvatar(
-                                this.transactionDaoJpa.getContents(transactionId, username).stream()
-                                                .map(t -> t.toPresentationModel()).collect(Collectors.toList()),
+                return Content.addOwnerAvatar(this.transactionDaoJpa.getContentsWithRevisions(transactionId, username),
                                 this.userClient);
         }
 
@@ -260,8 +254,6 @@ public class TransactionController {
         public List<Content> deleteContent(@NotNull @PathVariable Long transactionId,
                         @NotNull @PathVariable Long contentId) {
                 String username = MDC.get(UserClient.USER_NAME_KEY);
-                List<String> deleteESDocumentIds = this.transactionDaoJpa.getDeleteESDocumentIdsForContent(username, contentId);
-
                 ProjectItemModel transaction = this.transactionDaoJpa.deleteContent(contentId, transactionId, username);
 
                 this.notificationService.trackActivity(new Auditable(transaction.getProject().getId(),
@@ -269,7 +261,6 @@ public class TransactionController {
                                                 + transaction.getProject().getName() + "##",
                                 username, transactionId, Timestamp.from(Instant.now()),
                                 ContentAction.DELETE_TRANSACTION_CONTENT));
-                this.notificationService.deleteESDocument(new RemoveElasticsearchDocumentEvent(deleteESDocumentIds));
 
                 return getContents(transactionId);
         }
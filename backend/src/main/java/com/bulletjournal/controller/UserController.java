@@ -2,7 +2,6 @@ package com.bulletjournal.controller;
 
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.redis.RedisUserRepository;
 import com.bulletjournal.repository.UserAliasDaoJpa;
 import com.bulletjournal.repository.UserDaoJpa;
 import org.slf4j.Logger;
@@ -15,7 +14,6 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.Objects;
-import java.util.Optional;
 
 @RestController
 public class UserController {
@@ -36,9 +34,6 @@ public class UserController {
     @Autowired
     private UserAliasDaoJpa userAliasDaoJpa;
 
-    @Autowired
-    private RedisUserRepository redisUserRepository;
-
     @GetMapping(GET_USER_ROUTE)
     public User getUser(@NotNull @PathVariable String username) {
         return this.userClient.getUser(username);
@@ -84,10 +79,7 @@ public class UserController {
     public ResponseEntity<?> clear() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
         LOGGER.info("Clearing " + username + " cache");
-        Optional<User> userOptional = redisUserRepository.findById(username);
-        if (userOptional.isPresent()) {
-            this.redisUserRepository.delete(userOptional.get());
-        }
+        this.userClient.invalidateUser(username);
 
         return ResponseEntity.ok().build();
     }
@@ -1,9 +1,6 @@
 package com.bulletjournal.controller.models;
 
 import com.bulletjournal.clients.UserClient;
-import com.google.gson.Gson;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -11,8 +8,6 @@ import java.util.Arrays;
 import java.util.List;
 
 public class Content {
-    private static final Logger LOGGER = LoggerFactory.getLogger(Content.class);
-    private static final Gson GSON = new Gson();
 
     @NotNull
     private Long id;
@@ -23,38 +18,25 @@ public class Content {
     @NotBlank
     private String text;
 
-    private String baseText;
-
     @NotNull
     private Long createdAt;
 
     @NotNull
     private Long updatedAt;
 
-    private Revision[] revisions;
+    private Revision[] revisions = new Revision[0];
 
     public Content() {
     }
 
     public Content(@NotNull Long id, @NotNull User owner,
-                   @NotBlank String text, String baseText,
-                   @NotNull Long createdAt, @NotNull Long updatedAt,
-                   String revisions) {
+                   @NotBlank String text,
+                   @NotNull Long createdAt, @NotNull Long updatedAt) {
         this.id = id;
         this.owner = owner;
         this.text = text;
-        this.baseText = baseText;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
-        try {
-            this.revisions = GSON.fromJson(revisions, Revision[].class);
-        } catch (Exception ex) {
-            LOGGER.error("Fail to deserialize json: " + revisions, ex);
-        }
-        if (this.revisions == null) {
-            this.revisions = new Revision[0];
-        }
-        deleteRevisionDiff();
     }
 
     public static List<Content> addOwnerAvatar(List<Content> contents, UserClient userClient) {
@@ -70,14 +52,6 @@ public class Content {
         return content;
     }
 
-    private void deleteRevisionDiff() {
-        if (revisions != null) {
-            for (Revision revision : revisions) {
-                revision.setDiff(null);
-            }
-        }
-    }
-
     public Long getId() {
         return id;
     }
@@ -102,14 +76,6 @@ public class Content {
         this.text = text;
     }
 
-    public String getBaseText() {
-        return baseText;
-    }
-
-    public void setBaseText(String baseText) {
-        this.baseText = baseText;
-    }
-
     public Long getCreatedAt() {
         return createdAt;
     }
@@ -8,8 +8,7 @@ import com.google.gson.annotations.Expose;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public abstract class ProjectItem {
@@ -45,43 +44,72 @@ public abstract class ProjectItem {
         this.labels = labels;
     }
 
+    /**
+     * Set users of project items and their sub items, resolving all of them with one UserClient.getUsers call
+     */
     public static <T extends ProjectItem> List<T> addAvatar(
             List<T> projectItems, final UserClient userClient) {
-        projectItems.forEach(item -> addAvatar(item, userClient));
+        Set<String> usernames = new HashSet<>();
+        projectItems.forEach(item -> collectUsernames(item, usernames));
+        Map<String, User> users = userClient.getUsers(usernames);
+        projectItems.forEach(item -> setUsers(item, users));
         return projectItems;
     }
 
     public static <T extends ProjectItem> T addAvatar(T projectItem, UserClient userClient) {
-        projectItem.setOwner(userClient.getUser(projectItem.getOwner().getName()));
+        addAvatar(Collections.singletonList(projectItem), userClient);
+        return projectItem;
+    }
+
+    private static void collectUsernames(ProjectItem projectItem, Set<String> usernames) {
+        usernames.add(projectItem.getOwner().getName());
+        switch (projectItem.getContentType()) {
+            case TRANSACTION:
+                usernames.add(((Transaction) projectItem).getPayer().getName());
+                break;
+            case TASK:
+                Task task = ((Task) projectItem);
+                task.getAssignees().forEach(a -> usernames.add(a.getName()));
+                if (task.getSubTasks() != null) {
+                    task.getSubTasks().forEach(subTask -> collectUsernames(subTask, usernames));
+                }
+                break;
+            case NOTE:
+                Note note = (Note) projectItem;
+                if (note.getSubNotes() != null) {
+                    note.getSubNotes().forEach(subNote -> collectUsernames(subNote, usernames));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid ContentType: " + projectItem.getContentType());
+        }
+    }
+
+    private static void setUsers(ProjectItem projectItem, Map<String, User> users) {
+        projectItem.setOwner(users.get(projectItem.getOwner().getName()));
         switch (projectItem.getContentType()) {
             case TRANSACTION:
                 Transaction transaction = ((Transaction) projectItem);
-                transaction.setPayer(userClient.getUser(transaction.getPayer().getName()));
+                transaction.setPayer(users.get(transaction.getPayer().getName()));
                 break;
             case TASK:
                 Task task = ((Task) projectItem);
                 task.setAssignees(
                         task.getAssignees().stream()
-                                .map(a -> userClient.getUser(a.getName())).collect(Collectors.toList()));
+                                .map(a -> users.get(a.getName())).collect(Collectors.toList()));
                 if (task.getSubTasks() != null) {
-                    for (Task subTask : task.getSubTasks()) {
-                        addAvatar(subTask, userClient);
-                    }
+                    task.getSubTasks().forEach(subTask -> setUsers(subTask, users));
                 }
                 break;
             case NOTE:
                 Note note = (Note) projectItem;
                 if (note.getSubNotes() != null) {
-                    for (Note subNote : note.getSubNotes()) {
-                        addAvatar(subNote, userClient);
-                    }
+                    note.getSubNotes().forEach(subNote -> setUsers(subNote, users));
                 }
                 break;
             default:
                 throw new IllegalArgumentException("Invalid ContentType: " + projectItem.getContentType());
         }
-
-        return projectItem;
     }
 
     public abstract ContentType getContentType();
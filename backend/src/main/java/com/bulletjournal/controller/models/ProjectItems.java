@@ -32,11 +32,13 @@ public class ProjectItems {
 
     public static List<ProjectItems> addAvatar(
             List<ProjectItems> projectItems, final UserClient userClient) {
-        projectItems.forEach(items -> {
-            ProjectItem.addAvatar(items.getNotes(), userClient);
-            ProjectItem.addAvatar(items.getTasks(), userClient);
-            ProjectItem.addAvatar(items.getTransactions(), userClient);
+        List<ProjectItem> items = new ArrayList<>();
+        projectItems.forEach(i -> {
+            items.addAll(i.getNotes());
+            items.addAll(i.getTasks());
+            items.addAll(i.getTransactions());
         });
+        ProjectItem.addAvatar(items, userClient);
         return projectItems;
     }
 
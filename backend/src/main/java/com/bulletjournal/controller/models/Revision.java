@@ -6,6 +6,8 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Revision {
@@ -35,7 +37,9 @@ public class Revision {
     }
 
     public static List<Revision> addAvatar(List<Revision> revisions, UserClient userClient) {
-        revisions.forEach(r -> addAvatar(r, userClient));
+        Map<String, User> users = userClient.getUsers(
+                revisions.stream().map(r -> r.getUser().getName()).collect(Collectors.toSet()));
+        revisions.forEach(r -> r.setUser(users.get(r.getUser().getName())));
         return revisions;
     }
 
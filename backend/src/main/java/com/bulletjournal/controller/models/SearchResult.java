@@ -8,6 +8,7 @@ public class SearchResult {
     private Long totalHits;
     private Boolean hasSearchHits;
     private String scrollId;
+    private String cursor;
     private List<SearchResultItem> searchResultItemList = new ArrayList<>();
 
     public SearchResult() {
@@ -29,6 +30,14 @@ public class SearchResult {
         this.scrollId = scrollId;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public List<SearchResultItem> getSearchResultItemList() {
         return searchResultItemList;
     }
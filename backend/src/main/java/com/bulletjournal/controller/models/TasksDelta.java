@@ -0,0 +1,52 @@
+package com.bulletjournal.controller.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes of a task mutation, returned instead of the whole task tree when requested with delta=true
+ */
+public class TasksDelta {
+
+    // changed tasks without their sub tasks, which keep their place in the tree
+    private List<Task> updated = new ArrayList<>();
+
+    // ids of tasks removed together with their sub tasks
+    private List<Long> removed = new ArrayList<>();
+
+    // etag of the project's tasks after the mutation
+    private String etag;
+
+    public TasksDelta() {
+    }
+
+    public TasksDelta(List<Task> updated, List<Long> removed, String etag) {
+        this.updated = updated;
+        this.removed = removed;
+        this.etag = etag;
+    }
+
+    public List<Task> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<Task> updated) {
+        this.updated = updated;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<Long> removed) {
+        this.removed = removed;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+}
@@ -7,6 +7,7 @@ import com.bulletjournal.repository.GoogleCalendarProjectDaoJpa;
 import com.bulletjournal.repository.NotificationDaoJpa;
 import com.bulletjournal.repository.PublicProjectItemDaoJpa;
 import com.bulletjournal.util.CustomThreadFactory;
+import com.bulletjournal.util.RecurrenceOccurrenceIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +37,9 @@ public class Cleaner {
     @Autowired
     private AuditableDaoJpa auditableDaoJpa;
 
+    @Autowired
+    private RecurrenceOccurrenceIndex recurrenceOccurrenceIndex;
+
     @Autowired
     public Cleaner(NotificationDaoJpa notificationDaoJpa, PublicProjectItemDaoJpa publicProjectItemDaoJpa,
                    GoogleCalendarProjectDaoJpa googleCalendarProjectDaoJpa, GoogleCalClient googleCalClient) {
@@ -80,6 +84,17 @@ public class Cleaner {
         } catch (Exception e) {
             LOGGER.error("renewGoogleCalendarWatch error", e);
         }
+
+        try {
+            cleanRecurrenceOccurrenceIndex();
+        } catch (Exception e) {
+            LOGGER.error("cleanRecurrenceOccurrenceIndex error", e);
+        }
+    }
+
+    private void cleanRecurrenceOccurrenceIndex() {
+        this.recurrenceOccurrenceIndex.evictExpired();
+        LOGGER.info("RecurrenceOccurrenceIndex Cleaning Done");
     }
 
     private void renewGoogleCalendarWatch() throws IOException {
@@ -0,0 +1,58 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.contents.ContentType;
+
+import java.sql.Timestamp;
+
+/**
+ * Published when the text of a content is created or updated, its revision is written after commit
+ */
+public class ContentRevisionEvent {
+
+    private final ContentType type;
+    private final Long contentId;
+    private final String oldText;
+    private final String newText;
+    private final String requester;
+    private final Timestamp editedAt;
+
+    public ContentRevisionEvent(ContentType type, Long contentId, String oldText, String newText, String requester,
+                                Timestamp editedAt) {
+        this.type = type;
+        this.contentId = contentId;
+        this.oldText = oldText;
+        this.newText = newText;
+        this.requester = requester;
+        this.editedAt = editedAt;
+    }
+
+    public ContentType getType() {
+        return type;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public String getOldText() {
+        return oldText;
+    }
+
+    public String getNewText() {
+        return newText;
+    }
+
+    public String getRequester() {
+        return requester;
+    }
+
+    public Timestamp getEditedAt() {
+        return editedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ContentRevisionEvent{" + "type=" + type + ", contentId=" + contentId + ", requester='" + requester
+                + '\'' + ", editedAt=" + editedAt + '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.config.ContentRevisionConfig;
+import com.bulletjournal.metrics.MetricsSource;
+import com.bulletjournal.repository.ContentRevisionDaoJpa;
+import com.bulletjournal.util.EventStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes diffs and writes revisions of contents off the request threads, once their edits commit.
+ * <p>
+ * Events are sharded by content, so revisions of a content are written in order. Edits that are dropped on a full
+ * queue lose their revision, the next revision of the content is then written as a checkpoint.
+ */
+@Service
+public class ContentRevisionWriter implements MetricsSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentRevisionWriter.class);
+    private final ContentRevisionDaoJpa contentRevisionDaoJpa;
+    private final EventStage<ContentRevisionEvent> stage;
+    private final long shutdownTimeoutInMillis;
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public ContentRevisionWriter(ContentRevisionDaoJpa contentRevisionDaoJpa, ContentRevisionConfig revisionConfig) {
+        this.contentRevisionDaoJpa = contentRevisionDaoJpa;
+        this.stage = new EventStage<>("revisions", "content-revision-writer", revisionConfig.getWorkers(),
+                revisionConfig.getQueueCapacity(), revisionConfig.getOfferTimeoutInMillis(),
+                event -> event.getType() + ":" + event.getContentId(), events -> events.forEach(this::write));
+        this.shutdownTimeoutInMillis = revisionConfig.getShutdownTimeoutInMillis();
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        this.stage.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void submit(ContentRevisionEvent event) {
+        this.stage.submit(event);
+    }
+
+    private void write(ContentRevisionEvent event) {
+        try {
+            this.contentRevisionDaoJpa.addRevision(event.getType(), event.getContentId(), event.getOldText(),
+                    event.getNewText(), event.getRequester(), event.getEditedAt());
+        } catch (Exception e) {
+            this.failures.incrementAndGet();
+            LOGGER.error("Fail to write revision of " + event, e);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "contentRevisionWriter";
+    }
+
+    /**
+     * Queue latency is the lag between an edit and its revision
+     */
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = this.stage.getMetrics();
+        metrics.put("pending", metrics.get("submitted").longValue() - metrics.get("processed").longValue());
+        metrics.put("writeFailures", this.failures.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        this.stage.stop();
+        this.stage.awaitTermination(this.shutdownTimeoutInMillis);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.config.ChangeLogConfig;
+import com.bulletjournal.metrics.MetricsSource;
+import com.bulletjournal.repository.ProjectItemChangeDaoJpa;
+import com.bulletjournal.util.CustomThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies project_item_changes logged by row triggers to project_item_content_times, read by
+ * {@link com.bulletjournal.repository.ProjectItemDaoJpa#getRecentProjectItemsBetween}.
+ */
+@Service
+public class ProjectItemChangeApplier implements MetricsSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectItemChangeApplier.class);
+    private final ScheduledExecutorService executorService;
+
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    private ChangeLogConfig changeLogConfig;
+
+    @Autowired
+    private ProjectItemChangeDaoJpa projectItemChangeDaoJpa;
+
+    public ProjectItemChangeApplier() {
+        this.executorService = Executors.newSingleThreadScheduledExecutor(
+                new CustomThreadFactory("project-item-change-applier"));
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        long intervalInMillis = changeLogConfig.getIntervalInMillis();
+        if (intervalInMillis <= 0) {
+            throw new IllegalArgumentException("Invalid intervalInMillis: " + intervalInMillis);
+        }
+        if (changeLogConfig.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("Invalid batchSize: " + changeLogConfig.getBatchSize());
+        }
+
+        this.executorService.scheduleWithFixedDelay(this::apply, 0, intervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void apply() {
+        int batchSize = changeLogConfig.getBatchSize();
+        try {
+            // keep going while there is a backlog
+            int count;
+            do {
+                count = this.projectItemChangeDaoJpa.applyChanges(batchSize);
+                this.applied.addAndGet(count);
+                this.batches.incrementAndGet();
+            } while (count == batchSize);
+        } catch (Exception e) {
+            this.failures.incrementAndGet();
+            LOGGER.error("applyChanges error", e);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "projectItemChanges";
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("applied", this.applied.get());
+        metrics.put("batches", this.batches.get());
+        metrics.put("failures", this.failures.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,116 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.config.ReminderConfig;
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.repository.TaskDaoJpa;
+import com.bulletjournal.util.CustomThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server side reminder engine.
+ * <p>
+ * Every scanIntervalInSeconds it loads the reminders firing within the next two intervals (regular and recurring
+ * tasks) into a {@link ReminderTimeline}, which is advanced every second. Recurring tasks are skipped by a scan
+ * until their next reminding time, which the scan loading them stores. Task mutations publish
+ * {@link RemindingTaskRefreshEvent} so their reminders are rescheduled right after commit.
+ */
+@Service
+public class Reminder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Reminder.class);
+    private static final int TICK_INTERVAL_IN_SECONDS = 1;
+    private final ScheduledExecutorService executorService;
+    private final ReminderTimeline timeline = new ReminderTimeline();
+
+    @Autowired
+    private ReminderConfig reminderConfig;
+
+    @Autowired
+    private TaskDaoJpa taskDaoJpa;
+
+    public Reminder() {
+        this.executorService = Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("reminder"));
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        int scanIntervalInSeconds = reminderConfig.getScanIntervalInSeconds();
+        if (scanIntervalInSeconds <= 0) {
+            throw new IllegalArgumentException("Invalid scanIntervalInSeconds: " + scanIntervalInSeconds);
+        }
+
+        this.executorService.scheduleWithFixedDelay(this::scan, 0, scanIntervalInSeconds, TimeUnit.SECONDS);
+        this.executorService.scheduleWithFixedDelay(this::tick, TICK_INTERVAL_IN_SECONDS, TICK_INTERVAL_IN_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get reminding tasks of the user
+     *
+     * @param username the username of task assignee
+     * @return Reminders - the reminding tasks and their etag
+     */
+    public Reminders getReminders(String username) {
+        return this.timeline.getReminders(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+    public void refresh(RemindingTaskRefreshEvent event) {
+        ZonedDateTime now = ZonedDateTimeHelper.getNow();
+        List<ReminderRecord> records = this.taskDaoJpa.getReminderRecords(event.getTaskIds(), now, getHorizon(now));
+        this.timeline.schedule(event.getTaskIds(), records, System.currentTimeMillis());
+    }
+
+    private void scan() {
+        try {
+            ZonedDateTime now = ZonedDateTimeHelper.getNow();
+            this.timeline.beginReset();
+            List<ReminderRecord> records = this.taskDaoJpa.getReminderRecords(now, getHorizon(now));
+            this.timeline.reset(records, System.currentTimeMillis());
+            LOGGER.info("Reminder scan loaded {} reminders, {} pending", records.size(),
+                    this.timeline.getPendingSize());
+        } catch (Exception e) {
+            LOGGER.error("Reminder scan error", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            this.timeline.advance(System.currentTimeMillis());
+        } catch (Exception e) {
+            LOGGER.error("Reminder tick error", e);
+        }
+    }
+
+    private ZonedDateTime getHorizon(ZonedDateTime now) {
+        // scans overlap so that nothing fires in the gap between two scans
+        return now.plusSeconds(2L * reminderConfig.getScanIntervalInSeconds());
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
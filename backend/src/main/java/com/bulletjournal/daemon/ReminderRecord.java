@@ -0,0 +1,74 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.controller.models.Task;
+
+import java.util.List;
+
+/**
+ * A single reminder of a task (or of one occurrence of a recurring task).
+ * <p>
+ * The reminder becomes visible to the assignees at fireTime and disappears at expireTime.
+ */
+public class ReminderRecord {
+
+    private final Long taskId;
+
+    private final List<String> assignees;
+
+    private final long fireTime;
+
+    private final long expireTime;
+
+    private final Task task;
+
+    private boolean cancelled = false;
+
+    public ReminderRecord(Long taskId, List<String> assignees, long fireTime, long expireTime, Task task) {
+        this.taskId = taskId;
+        this.assignees = assignees;
+        this.fireTime = fireTime;
+        this.expireTime = expireTime;
+        this.task = task;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public List<String> getAssignees() {
+        return assignees;
+    }
+
+    public long getFireTime() {
+        return fireTime;
+    }
+
+    public long getExpireTime() {
+        return expireTime;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * @return key of this reminder, unique among occurrences of the same task
+     */
+    public String getKey() {
+        return taskId + "@" + expireTime;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        this.cancelled = true;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderRecord{" + "taskId=" + taskId + ", assignees=" + assignees + ", fireTime=" + fireTime
+                + ", expireTime=" + expireTime + '}';
+    }
+}
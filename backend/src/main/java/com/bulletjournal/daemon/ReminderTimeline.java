@@ -0,0 +1,165 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.controller.models.Task;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Priority-queue based timeline of reminders.
+ * <p>
+ * Pending reminders are ordered by fire time. Once fired, a reminder moves into the ready set of each of its
+ * assignees until it expires. Every change republishes an immutable {@link Reminders} snapshot for the affected
+ * users, so reading the reminders of a user is a single map lookup.
+ */
+public class ReminderTimeline {
+
+    private static final Comparator<ReminderRecord> READY_ORDER = Comparator
+            .comparingLong(ReminderRecord::getExpireTime).thenComparing(ReminderRecord::getTaskId);
+
+    private final PriorityQueue<ReminderRecord> pending = new PriorityQueue<>(
+            Comparator.comparingLong(ReminderRecord::getFireTime));
+    private final PriorityQueue<ReminderRecord> firing = new PriorityQueue<>(
+            Comparator.comparingLong(ReminderRecord::getExpireTime));
+    private final Map<Long, List<ReminderRecord>> recordsByTask = new HashMap<>();
+    private final Map<String, Map<String, ReminderRecord>> ready = new HashMap<>();
+    private final Map<String, Reminders> published = new ConcurrentHashMap<>();
+    // tasks rescheduled while a reset is loading its records
+    private Set<Long> touchedDuringReset;
+
+    public Reminders getReminders(String username) {
+        return this.published.getOrDefault(username, Reminders.EMPTY);
+    }
+
+    /**
+     * Replace reminders of the given tasks
+     */
+    public synchronized void schedule(Collection<Long> taskIds, List<ReminderRecord> records, long now) {
+        Set<String> changedUsers = new HashSet<>();
+        for (Long taskId : taskIds) {
+            cancel(taskId, changedUsers);
+        }
+        if (this.touchedDuringReset != null) {
+            this.touchedDuringReset.addAll(taskIds);
+        }
+        records.forEach(record -> add(record, now, changedUsers));
+        publish(changedUsers);
+    }
+
+    /**
+     * Mark the start of loading records for {@link #reset(List, long)}
+     */
+    public synchronized void beginReset() {
+        this.touchedDuringReset = new HashSet<>();
+    }
+
+    /**
+     * Rebuild the whole timeline. Tasks scheduled after {@link #beginReset()} keep their current reminders since
+     * the given records may be older than them.
+     */
+    public synchronized void reset(List<ReminderRecord> records, long now) {
+        Set<Long> touched = this.touchedDuringReset == null ? Collections.emptySet() : this.touchedDuringReset;
+        this.touchedDuringReset = null;
+
+        List<ReminderRecord> kept = touched.stream()
+                .flatMap(taskId -> this.recordsByTask.getOrDefault(taskId, Collections.emptyList()).stream())
+                .collect(Collectors.toList());
+        Set<String> changedUsers = new HashSet<>(this.ready.keySet());
+        this.pending.clear();
+        this.firing.clear();
+        this.recordsByTask.clear();
+        this.ready.clear();
+
+        records.stream().filter(record -> !touched.contains(record.getTaskId()))
+                .forEach(record -> add(record, now, changedUsers));
+        kept.forEach(record -> add(record, now, changedUsers));
+        publish(changedUsers);
+    }
+
+    /**
+     * Fire due reminders and drop expired ones
+     */
+    public synchronized void advance(long now) {
+        Set<String> changedUsers = new HashSet<>();
+        while (!this.pending.isEmpty() && this.pending.peek().getFireTime() <= now) {
+            ReminderRecord record = this.pending.poll();
+            if (!record.isCancelled() && record.getExpireTime() > now) {
+                fire(record, changedUsers);
+            }
+        }
+        while (!this.firing.isEmpty() && this.firing.peek().getExpireTime() <= now) {
+            ReminderRecord record = this.firing.poll();
+            if (!record.isCancelled()) {
+                removeFromReady(record, changedUsers);
+                this.recordsByTask.computeIfPresent(record.getTaskId(), (k, v) -> {
+                    v.remove(record);
+                    return v.isEmpty() ? null : v;
+                });
+            }
+        }
+        publish(changedUsers);
+    }
+
+    public synchronized int getPendingSize() {
+        return this.pending.size();
+    }
+
+    private void add(ReminderRecord record, long now, Set<String> changedUsers) {
+        if (record.getExpireTime() <= now) {
+            return;
+        }
+        this.recordsByTask.computeIfAbsent(record.getTaskId(), k -> new ArrayList<>()).add(record);
+        if (record.getFireTime() <= now) {
+            fire(record, changedUsers);
+        } else {
+            this.pending.offer(record);
+        }
+    }
+
+    private void fire(ReminderRecord record, Set<String> changedUsers) {
+        for (String assignee : record.getAssignees()) {
+            this.ready.computeIfAbsent(assignee, k -> new HashMap<>()).put(record.getKey(), record);
+            changedUsers.add(assignee);
+        }
+        this.firing.offer(record);
+    }
+
+    private void cancel(Long taskId, Set<String> changedUsers) {
+        List<ReminderRecord> records = this.recordsByTask.remove(taskId);
+        if (records == null) {
+            return;
+        }
+        for (ReminderRecord record : records) {
+            // cancelled records are skipped lazily when they reach the head of the queues
+            record.cancel();
+            removeFromReady(record, changedUsers);
+        }
+    }
+
+    private void removeFromReady(ReminderRecord record, Set<String> changedUsers) {
+        for (String assignee : record.getAssignees()) {
+            Map<String, ReminderRecord> userRecords = this.ready.get(assignee);
+            if (userRecords != null && userRecords.get(record.getKey()) == record) {
+                userRecords.remove(record.getKey());
+                if (userRecords.isEmpty()) {
+                    this.ready.remove(assignee);
+                }
+                changedUsers.add(assignee);
+            }
+        }
+    }
+
+    private void publish(Set<String> users) {
+        for (String user : users) {
+            Map<String, ReminderRecord> userRecords = this.ready.get(user);
+            if (userRecords == null) {
+                this.published.remove(user);
+                continue;
+            }
+            List<Task> tasks = userRecords.values().stream().sorted(READY_ORDER)
+                    .map(ReminderRecord::getTask).collect(Collectors.toList());
+            this.published.put(user, new Reminders(tasks));
+        }
+    }
+}
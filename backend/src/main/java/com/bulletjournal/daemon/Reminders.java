@@ -0,0 +1,33 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.controller.models.Task;
+import com.bulletjournal.controller.utils.EtagGenerator;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the reminding tasks of a user
+ */
+public class Reminders {
+
+    public static final Reminders EMPTY = new Reminders(Collections.emptyList());
+
+    private final List<Task> tasks;
+
+    private final String etag;
+
+    public Reminders(List<Task> tasks) {
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.etag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                EtagGenerator.HashType.TO_HASHCODE, tasks);
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bulletjournal.daemon;
+
+import java.util.Collection;
+
+/**
+ * Published when tasks whose reminders may have changed are created, updated, completed or deleted
+ */
+public class RemindingTaskRefreshEvent {
+
+    private final Collection<Long> taskIds;
+
+    public RemindingTaskRefreshEvent(Collection<Long> taskIds) {
+        this.taskIds = taskIds;
+    }
+
+    public Collection<Long> getTaskIds() {
+        return taskIds;
+    }
+
+    @Override
+    public String toString() {
+        return "RemindingTaskRefreshEvent{" + "taskIds=" + taskIds + '}';
+    }
+}
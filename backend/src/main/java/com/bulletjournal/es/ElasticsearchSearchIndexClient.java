@@ -0,0 +1,66 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.es.repository.SearchIndexDaoJpa;
+import com.bulletjournal.es.repository.models.SearchIndex;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class ElasticsearchSearchIndexClient implements SearchIndexClient {
+
+    @Autowired
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Override
+    public Map<String, String> bulk(List<SearchIndexOperation> operations) {
+        if (operations.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        BulkRequest request = new BulkRequest();
+        for (SearchIndexOperation operation : operations) {
+            if (operation.isDelete()) {
+                request.add(new DeleteRequest(SearchIndexDaoJpa.SEARCH_INDEX_NAME, operation.getId()));
+            } else {
+                request.add(new IndexRequest(SearchIndexDaoJpa.SEARCH_INDEX_NAME).id(operation.getId())
+                        .source(toSource(operation.getSearchIndex())));
+            }
+        }
+        BulkResponse response = this.elasticsearchRestTemplate.execute(
+                client -> client.bulk(request, RequestOptions.DEFAULT));
+        if (!response.hasFailures()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> failures = new HashMap<>();
+        for (BulkItemResponse item : response) {
+            if (item.isFailed()) {
+                failures.put(item.getId(), item.getFailureMessage());
+            }
+        }
+        return failures;
+    }
+
+    private static Map<String, Object> toSource(SearchIndex searchIndex) {
+        Map<String, Object> source = new HashMap<>();
+        source.put("id", searchIndex.getId());
+        source.put("type", searchIndex.getType());
+        source.put("projectId", searchIndex.getProjectId());
+        source.put("value", searchIndex.getValue());
+        if (searchIndex.getParentId() != null) {
+            source.put("parentId", searchIndex.getParentId());
+        }
+        return source;
+    }
+}
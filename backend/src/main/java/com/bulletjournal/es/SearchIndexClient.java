@@ -0,0 +1,19 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends search index operations to the search engine
+ */
+public interface SearchIndexClient {
+
+    /**
+     * Apply operations in order within one request, throws if the request fails as a whole
+     *
+     * @return failure reasons of the operations that failed, by document id
+     */
+    Map<String, String> bulk(List<SearchIndexOperation> operations);
+}
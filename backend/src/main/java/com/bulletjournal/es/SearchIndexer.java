@@ -0,0 +1,154 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.config.SearchIndexConfig;
+import com.bulletjournal.config.SpringESConfig;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+import com.bulletjournal.metrics.MetricsSource;
+import com.bulletjournal.repository.SearchIndexChangeDaoJpa;
+import com.bulletjournal.util.CustomThreadFactory;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains search_index_changes into elasticsearch bulk requests. The only writer of search index documents other
+ * than removal of stale search hits, so upserts and deletes of a document are applied in the order they were made.
+ */
+@Service
+public class SearchIndexer implements MetricsSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexer.class);
+    private final ScheduledExecutorService executorService;
+    private final SearchIndexChangeDaoJpa searchIndexChangeDaoJpa;
+    private final SearchIndexClient searchIndexClient;
+    private final SearchIndexConfig searchIndexConfig;
+    private final boolean enabled;
+
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong upserts = new AtomicLong();
+    private final AtomicLong deletes = new AtomicLong();
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong failedDocuments = new AtomicLong();
+    private final AtomicLong totalBulkLatencyInNanos = new AtomicLong();
+
+    @Autowired
+    public SearchIndexer(SearchIndexChangeDaoJpa searchIndexChangeDaoJpa, SearchIndexClient searchIndexClient,
+                         SearchIndexConfig searchIndexConfig, SpringESConfig springESConfig) {
+        this.executorService = Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("search-indexer"));
+        this.searchIndexChangeDaoJpa = searchIndexChangeDaoJpa;
+        this.searchIndexClient = searchIndexClient;
+        this.searchIndexConfig = searchIndexConfig;
+        this.enabled = Boolean.TRUE.equals(springESConfig.getEnable());
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        long intervalInMillis = searchIndexConfig.getIntervalInMillis();
+        if (intervalInMillis <= 0) {
+            throw new IllegalArgumentException("Invalid intervalInMillis: " + intervalInMillis);
+        }
+        if (searchIndexConfig.getBatchSize() <= 0 || searchIndexConfig.getBulkSize() <= 0
+                || searchIndexConfig.getMaxAttempts() <= 0) {
+            throw new IllegalArgumentException("Invalid batchSize, bulkSize or maxAttempts");
+        }
+        if (!this.enabled) {
+            LOGGER.info("Elasticsearch is disabled, search index changes are discarded");
+        }
+
+        this.executorService.scheduleWithFixedDelay(this::indexChanges, 0, intervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void indexChanges() {
+        int batchSize = searchIndexConfig.getBatchSize();
+        try {
+            // keep going while there is a backlog, failed changes wait for the next run
+            int count;
+            do {
+                count = this.searchIndexChangeDaoJpa.indexChanges(
+                        batchSize, searchIndexConfig.getMaxAttempts(), this::index);
+                this.changes.addAndGet(count);
+            } while (count == batchSize);
+        } catch (Exception e) {
+            this.failures.incrementAndGet();
+            LOGGER.error("indexChanges error", e);
+        }
+    }
+
+    /**
+     * Send operations in bulk requests of at most bulkSize, only the last operation of each document is sent
+     *
+     * @return failure reasons of the documents that failed, by document id
+     */
+    public Map<String, String> index(List<SearchIndexOperation> operations) {
+        if (!this.enabled || operations.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, SearchIndexOperation> latest = new LinkedHashMap<>();
+        for (SearchIndexOperation operation : operations) {
+            // re-insert so the document moves to the position of its last operation
+            latest.remove(operation.getId());
+            latest.put(operation.getId(), operation);
+        }
+        Map<String, String> failed = new HashMap<>();
+        for (List<SearchIndexOperation> bulk : Lists.partition(new ArrayList<>(latest.values()),
+                searchIndexConfig.getBulkSize())) {
+            long start = System.nanoTime();
+            Map<String, String> bulkFailed = this.searchIndexClient.bulk(bulk);
+            this.totalBulkLatencyInNanos.addAndGet(System.nanoTime() - start);
+            this.bulkRequests.incrementAndGet();
+            failed.putAll(bulkFailed);
+            long deleteCount = bulk.stream()
+                    .filter(o -> o.isDelete() && !bulkFailed.containsKey(o.getId())).count();
+            this.deletes.addAndGet(deleteCount);
+            this.upserts.addAndGet(bulk.size() - bulkFailed.size() - deleteCount);
+        }
+        if (!failed.isEmpty()) {
+            this.failedDocuments.addAndGet(failed.size());
+            LOGGER.error("Fail to index documents {}", failed);
+        }
+        return failed;
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "searchIndexer";
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        long bulkRequestCount = this.bulkRequests.get();
+        metrics.put("changes", this.changes.get());
+        metrics.put("upserts", this.upserts.get());
+        metrics.put("deletes", this.deletes.get());
+        metrics.put("bulkRequests", bulkRequestCount);
+        metrics.put("failures", this.failures.get());
+        metrics.put("failedDocuments", this.failedDocuments.get());
+        metrics.put("averageBulkLatencyInMillis", bulkRequestCount == 0 ? 0.0 :
+                this.totalBulkLatencyInNanos.get() / (double) bulkRequestCount / 1_000_000);
+        return metrics;
+    }
+}
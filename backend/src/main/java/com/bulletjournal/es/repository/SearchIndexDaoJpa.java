@@ -1,34 +1,53 @@
 package com.bulletjournal.es.repository;
 
+import com.bulletjournal.authz.ProjectAccessIndex;
+import com.bulletjournal.config.SearchIndexConfig;
 import com.bulletjournal.config.SpringESConfig;
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.es.SearchIndexClient;
+import com.bulletjournal.es.repository.models.SearchAfterHits;
 import com.bulletjournal.es.repository.models.SearchIndex;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.metrics.MetricsSource;
 import com.bulletjournal.notifications.RemoveElasticsearchDocumentEvent;
-import com.bulletjournal.repository.*;
 import com.bulletjournal.repository.models.*;
+import com.google.common.collect.Lists;
+import com.google.gson.*;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.unit.Fuzziness;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchScrollHits;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Repository
-public class SearchIndexDaoJpa {
+public class SearchIndexDaoJpa implements MetricsSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexDaoJpa.class);
     private static final String PRE_TAG = "<em class='highlight'>";
     private static final String POST_TAG = "</em>";
@@ -36,7 +55,7 @@ public class SearchIndexDaoJpa {
     private static final String HIGHLIGHTER_TYPE = "unified";
     private static final String SEARCH_FIELD = "value";
     private static final String FRAGMENTER = "span";
-    private static final String SEARCH_INDEX_NAME = "project_items";
+    public static final String SEARCH_INDEX_NAME = "project_items";
     private static final char SEARCH_INDEX_SPLITTER = '@';
     private static final String CONTENT_TYPE_SUFFIX = "_content";
 
@@ -44,9 +63,14 @@ public class SearchIndexDaoJpa {
     private static final Integer FRAGMENT_SIZE = 300;
     private static final Integer NUM_OF_FRAGMENTS = 1;
     private static final long SCROLL_TIME_IN_MILLIS = 3600000;
+    private static final Gson GSON = new Gson();
+
+    private final AtomicLong scrollSearches = new AtomicLong();
+    private final AtomicLong scrollContinues = new AtomicLong();
+    private final AtomicLong searchAfterPages = new AtomicLong();
 
     @Autowired
-    private UserDaoJpa userDaoJpa;
+    private ProjectAccessIndex projectAccessIndex;
 
     @Autowired
     private ElasticsearchRestTemplate elasticsearchRestTemplate;
@@ -54,6 +78,12 @@ public class SearchIndexDaoJpa {
     @Autowired
     private SpringESConfig springESConfig;
 
+    @Autowired
+    private SearchIndexConfig searchIndexConfig;
+
+    @Autowired
+    private SearchIndexClient searchIndexClient;
+
     /**
      * Search term in ElasticSearch Database. Initialize search pagination with requested page number
      * and page size.
@@ -67,18 +97,68 @@ public class SearchIndexDaoJpa {
      * @return SearchScrollHits contains the search results
      */
     public SearchScrollHits<SearchIndex> search(String username, String term, int pageNo, int pageSize) {
-        List<Long> projectIdList = getUserProjects(username);
+        NativeSearchQuery query = new NativeSearchQueryBuilder()
+                .withQuery(getQuery(username, term))
+                .withHighlightBuilder(getHighlightBuilder())
+                .withPageable(PageRequest.of(pageNo, pageSize))
+                .build();
+
+        this.scrollSearches.incrementAndGet();
+        return elasticsearchRestTemplate.searchScrollStart(SCROLL_TIME_IN_MILLIS,
+                query,
+                SearchIndex.class,
+                IndexCoordinates.of(SEARCH_INDEX_NAME));
+    }
 
-        BoolQueryBuilder queryBuilder = new BoolQueryBuilder();
-        for (long pid : projectIdList) {
-            queryBuilder.should(QueryBuilders.termQuery("projectId", pid));
+    /**
+     * Search term in ElasticSearch Database with search_after pagination. No search context is kept between
+     * pages: each page is a new search starting after the position encoded in cursor.
+     *
+     * @param username requested username
+     * @param term     search term
+     * @param cursor   cursor of the previous page, null for the first page
+     * @param pageSize the record count in one page
+     * @return SearchAfterHits contains the search results and the cursor of the next page
+     */
+    public SearchAfterHits searchAfter(String username, String term, String cursor, int pageSize) {
+        // hits are ordered by score and then by the unique id, so a position is never ambiguous
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(getQuery(username, term))
+                .highlighter(getHighlightBuilder())
+                .size(pageSize)
+                .sort(SortBuilders.scoreSort())
+                .sort(SortBuilders.fieldSort("id").order(SortOrder.ASC))
+                .trackTotalHits(true);
+        if (cursor != null) {
+            source.searchAfter(decodeCursor(cursor));
         }
-        queryBuilder.minimumShouldMatch(1)
+        SearchRequest request = new SearchRequest(SEARCH_INDEX_NAME).source(source);
+        SearchResponse response = this.elasticsearchRestTemplate.execute(
+                client -> client.search(request, RequestOptions.DEFAULT));
+        this.searchAfterPages.incrementAndGet();
+
+        List<SearchHit<SearchIndex>> searchHits = new ArrayList<>();
+        Object[] lastSortValues = null;
+        for (org.elasticsearch.search.SearchHit hit : response.getHits()) {
+            searchHits.add(new SearchHit<>(hit.getId(), hit.getScore(), hit.getSortValues(),
+                    getHighlightFields(hit), toSearchIndex(hit.getSourceAsMap())));
+            lastSortValues = hit.getSortValues();
+        }
+        String nextCursor = searchHits.size() < pageSize ? null : encodeCursor(lastSortValues);
+        return new SearchAfterHits(searchHits, response.getHits().getTotalHits().value, nextCursor);
+    }
+
+    private BoolQueryBuilder getQuery(String username, String term) {
+        // project ids are a filter, so they are not scored and the clause can be cached by elasticsearch
+        return new BoolQueryBuilder()
+                .filter(QueryBuilders.termsQuery("projectId", getUserProjects(username)))
                 .must(QueryBuilders.matchQuery(SEARCH_FIELD, term)
                         .fuzziness(Fuzziness.AUTO)
                         .prefixLength(3)
                         .maxExpansions(10));
+    }
 
+    private static HighlightBuilder getHighlightBuilder() {
         HighlightBuilder highlightBuilder = new HighlightBuilder();
         highlightBuilder.preTags(PRE_TAG).postTags(POST_TAG)
                 .boundaryScannerType(BOUNDARY_SCANNER_TYPE)
@@ -86,17 +166,42 @@ public class SearchIndexDaoJpa {
                 .field(SEARCH_FIELD)
                 .fragmentSize(FRAGMENT_SIZE)
                 .numOfFragments(NUM_OF_FRAGMENTS).highlighterType(HIGHLIGHTER_TYPE);
+        return highlightBuilder;
+    }
 
-        NativeSearchQuery query = new NativeSearchQueryBuilder()
-                .withQuery(queryBuilder)
-                .withHighlightBuilder(highlightBuilder)
-                .withPageable(PageRequest.of(pageNo, pageSize))
-                .build();
+    private static Map<String, List<String>> getHighlightFields(org.elasticsearch.search.SearchHit hit) {
+        Map<String, List<String>> highlightFields = new HashMap<>();
+        hit.getHighlightFields().forEach((name, field) -> highlightFields.put(name,
+                Arrays.stream(field.getFragments()).map(Text::string).collect(Collectors.toList())));
+        return highlightFields;
+    }
 
-        return elasticsearchRestTemplate.searchScrollStart(SCROLL_TIME_IN_MILLIS,
-                query,
-                SearchIndex.class,
-                IndexCoordinates.of(SEARCH_INDEX_NAME));
+    private static SearchIndex toSearchIndex(Map<String, Object> source) {
+        SearchIndex searchIndex = new SearchIndex();
+        searchIndex.setId((String) source.get("id"));
+        searchIndex.setType((String) source.get("type"));
+        searchIndex.setProjectId(Long.valueOf(String.valueOf(source.get("projectId"))));
+        searchIndex.setValue((String) source.get("value"));
+        searchIndex.setParentId((String) source.get("parentId"));
+        return searchIndex;
+    }
+
+    private static String encodeCursor(Object[] sortValues) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                GSON.toJson(sortValues).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            Object[] sortValues = GSON.fromJson(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), Object[].class);
+            if (sortValues == null || sortValues.length != 2) {
+                throw new BadRequestException("Invalid search cursor");
+            }
+            return sortValues;
+        } catch (IllegalArgumentException | JsonSyntaxException e) {
+            throw new BadRequestException("Invalid search cursor");
+        }
     }
 
     /**
@@ -106,6 +211,7 @@ public class SearchIndexDaoJpa {
      * @return SearchScrollHits contains the search results
      */
     public SearchScrollHits<SearchIndex> search(String scrollId) {
+        this.scrollContinues.incrementAndGet();
         return elasticsearchRestTemplate.searchScrollContinue(scrollId,
                 SCROLL_TIME_IN_MILLIS,
                 SearchIndex.class,
@@ -113,37 +219,22 @@ public class SearchIndexDaoJpa {
     }
 
     /**
-     * Get request user's projects
+     * Get request user's projects from the project access index
      *
      * @param username the requested user's username
-     * @return a list of project Id
-     */
-    private List<Long> getUserProjects(String username) {
-        final Set<Long> set = new HashSet<>();
-        User user = this.userDaoJpa.getByName(username);
-        user.getGroups().stream().filter(UserGroup::isAccepted).forEach((u) -> set.addAll(
-                u.getGroup().getProjects().stream()
-                        .filter(p -> !p.isShared())
-                        .map(Project::getId).collect(Collectors.toList())));
-        return new ArrayList<>(set);
-    }
-
-    /**
-     * Delete target search index from elastic search jpa
-     *
-     * @param searchIndex target search index
+     * @return ids of non-shared projects in the groups the user has joined
      */
-    private void deleteSearchIndex(SearchIndex searchIndex) {
-        this.elasticsearchRestTemplate.delete(searchIndex);
+    public Set<Long> getUserProjects(String username) {
+        return this.projectAccessIndex.getProjects(username);
     }
 
     /**
-     * Delete a list of search indices through delete search index api
+     * Delete a list of search indices in bulk requests
      *
      * @param searchIndices a list of search indices
      */
     public void deleteSearchIndices(List<SearchIndex> searchIndices) {
-        searchIndices.forEach(this::deleteSearchIndex);
+        deleteSearchIndexDocuments(searchIndices.stream().map(SearchIndex::getId).collect(Collectors.toList()));
     }
 
     /**
@@ -156,26 +247,30 @@ public class SearchIndexDaoJpa {
     }
 
     /**
-     * Delete target document by id from elastic search jpa
+     * Delete documents by id in bulk requests of at most search.indexer.bulkSize deletes
      *
      * @param documentIds target search index
      */
-    public void deleteSearchIndexDocuments(List<String> documentIds) {
-        for (String s : documentIds) {
-            deleteSearchIndexDocument(s);
-        }
+    public void deleteSearchIndexDocuments(Collection<String> documentIds) {
+        List<SearchIndexOperation> deletes = documentIds.stream().distinct()
+                .map(SearchIndexOperation::delete).collect(Collectors.toList());
+        Lists.partition(deletes, this.searchIndexConfig.getBulkSize()).forEach(this.searchIndexClient::bulk);
     }
 
     /**
-     * Delete target project by id from elastic search jpa
+     * Delete all documents of target project with one delete-by-query request
      *
      * @param projectId target search index
      */
     public void deleteSearchIndexProject(Long projectId) {
-        QueryBuilder matchQuery = QueryBuilders.matchQuery("projectId", projectId);
-        NativeSearchQuery query = new NativeSearchQueryBuilder().withQuery(matchQuery).build();
+        deleteByQuery(QueryBuilders.termQuery("projectId", projectId));
+    }
+
+    private void deleteByQuery(QueryBuilder queryBuilder) {
+        NativeSearchQuery query = new NativeSearchQueryBuilder().withQuery(queryBuilder).build();
         this.elasticsearchRestTemplate.delete(query, SearchIndex.class, IndexCoordinates.of(SEARCH_INDEX_NAME));
     }
+
     /**
      * Return content's search index id
      *
@@ -183,8 +278,7 @@ public class SearchIndexDaoJpa {
      * @return String- content id in search index format
      */
     public <K extends ContentModel> String getContentSearchIndexId(K content) {
-        return content.getProjectItem().getContentType().toString().toLowerCase() +
-                CONTENT_TYPE_SUFFIX + SEARCH_INDEX_SPLITTER + content.getId();
+        return getContentSearchIndexId(content.getProjectItem().getContentType(), content.getId());
     }
 
     /**
@@ -194,10 +288,69 @@ public class SearchIndexDaoJpa {
      * @return String- projectItem id in search index format
      */
     public <T extends ProjectItemModel> String getProjectItemSearchIndexId(T projectItem) {
-        return projectItem.getContentType().toString().toLowerCase() + SEARCH_INDEX_SPLITTER + projectItem.getId();
+        return getProjectItemSearchIndexId(projectItem.getContentType(), projectItem.getId());
+    }
+
+    public static String getContentSearchIndexType(ContentType projectItemType) {
+        return projectItemType.toString().toLowerCase() + CONTENT_TYPE_SUFFIX;
+    }
+
+    public static String getProjectItemSearchIndexType(ContentType projectItemType) {
+        return projectItemType.toString().toLowerCase();
+    }
+
+    public static String getContentSearchIndexId(ContentType projectItemType, Long contentId) {
+        return getContentSearchIndexType(projectItemType) + SEARCH_INDEX_SPLITTER + contentId;
+    }
+
+    public static String getProjectItemSearchIndexId(ContentType projectItemType, Long projectItemId) {
+        return getProjectItemSearchIndexType(projectItemType) + SEARCH_INDEX_SPLITTER + projectItemId;
     }
 
+    /**
+     * Delete documents of all events together, so deletes queued at the same time share bulk requests
+     */
     public void delete(List<RemoveElasticsearchDocumentEvent> events) {
-        events.forEach(event -> this.deleteSearchIndexDocuments(event.getDocumentIds()));
+        Set<String> documentIds = new LinkedHashSet<>();
+        events.forEach(event -> documentIds.addAll(event.getDocumentIds()));
+        deleteSearchIndexDocuments(documentIds);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "search";
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("scrollSearches", this.scrollSearches.get());
+        metrics.put("scrollContinues", this.scrollContinues.get());
+        metrics.put("searchAfterPages", this.searchAfterPages.get());
+        if (Boolean.TRUE.equals(this.springESConfig.getEnable())) {
+            metrics.put("openContexts", getOpenContexts());
+        }
+        return metrics;
+    }
+
+    /**
+     * @return number of search contexts open on all elasticsearch nodes, which scroll searches keep alive
+     */
+    private long getOpenContexts() {
+        try {
+            Response response = this.elasticsearchRestTemplate.execute(client -> client.getLowLevelClient()
+                    .performRequest(new Request("GET", "/_nodes/stats/indices/search")));
+            JsonObject nodes = JsonParser.parseString(EntityUtils.toString(response.getEntity()))
+                    .getAsJsonObject().getAsJsonObject("nodes");
+            long openContexts = 0;
+            for (Map.Entry<String, JsonElement> node : nodes.entrySet()) {
+                openContexts += node.getValue().getAsJsonObject().getAsJsonObject("indices")
+                        .getAsJsonObject("search").get("open_contexts").getAsLong();
+            }
+            return openContexts;
+        } catch (Exception e) {
+            LOGGER.error("Failed to get open search contexts", e);
+            return -1;
+        }
     }
 }
@@ -0,0 +1,38 @@
+package com.bulletjournal.es.repository.models;
+
+import org.springframework.data.elasticsearch.core.SearchHit;
+
+import java.util.List;
+
+/**
+ * One page of a search_after search
+ */
+public class SearchAfterHits {
+
+    private final List<SearchHit<SearchIndex>> searchHits;
+    private final long totalHits;
+    // opaque position of the page's last hit, null if there is no next page
+    private final String cursor;
+
+    public SearchAfterHits(List<SearchHit<SearchIndex>> searchHits, long totalHits, String cursor) {
+        this.searchHits = searchHits;
+        this.totalHits = totalHits;
+        this.cursor = cursor;
+    }
+
+    public List<SearchHit<SearchIndex>> getSearchHits() {
+        return searchHits;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean hasSearchHits() {
+        return !searchHits.isEmpty();
+    }
+}
@@ -0,0 +1,42 @@
+package com.bulletjournal.es.repository.models;
+
+/**
+ * Upsert or delete of one search index document
+ */
+public class SearchIndexOperation {
+
+    private final String id;
+
+    // null on delete
+    private final SearchIndex searchIndex;
+
+    private SearchIndexOperation(String id, SearchIndex searchIndex) {
+        this.id = id;
+        this.searchIndex = searchIndex;
+    }
+
+    public static SearchIndexOperation upsert(SearchIndex searchIndex) {
+        return new SearchIndexOperation(searchIndex.getId(), searchIndex);
+    }
+
+    public static SearchIndexOperation delete(String id) {
+        return new SearchIndexOperation(id, null);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public boolean isDelete() {
+        return searchIndex == null;
+    }
+
+    @Override
+    public String toString() {
+        return (isDelete() ? "delete " : "upsert ") + id;
+    }
+}
@@ -0,0 +1,228 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.repository.models.HierarchyNode;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory hierarchy of one scope (tasks or notes of a project, projects of an owner).
+ * <p>
+ * Every item is indexed by id and links to its parent, so finding an item is a map lookup and inserting,
+ * detaching or attaching a subtree only touches the item and its parent.
+ */
+public class HierarchyTree {
+
+    private final Node root = new Node(null, 0);
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    public static HierarchyTree of(List<HierarchyNode> records) {
+        HierarchyTree tree = new HierarchyTree();
+        List<HierarchyNode> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparing(HierarchyNode::getPosition));
+        for (HierarchyNode record : sorted) {
+            tree.nodes.put(record.getItemId(), new Node(record.getItemId(), record.getPosition()));
+        }
+        for (HierarchyNode record : sorted) {
+            Node parent = record.getParentId() == null ? null : tree.nodes.get(record.getParentId());
+            // items whose parent is gone are shown at root level
+            (parent == null ? tree.root : parent).addChild(tree.nodes.get(record.getItemId()));
+        }
+        return tree;
+    }
+
+    /**
+     * Build tree from presentation models. Duplicated items and items not accepted by the filter are skipped, and
+     * children of a skipped item take its place.
+     */
+    public static <T> HierarchyTree of(List<T> items, Function<T, Long> getId, Function<T, List<T>> getChildren,
+                                       Predicate<Long> filter) {
+        HierarchyTree tree = new HierarchyTree();
+        tree.addAll(tree.root, items, getId, getChildren, filter);
+        return tree;
+    }
+
+    private <T> void addAll(Node parent, List<T> items, Function<T, Long> getId, Function<T, List<T>> getChildren,
+                            Predicate<Long> filter) {
+        for (T item : items) {
+            Long id = getId.apply(item);
+            Node node = parent;
+            if (id != null && !this.nodes.containsKey(id) && filter.test(id)) {
+                node = new Node(id, parent.getNextPosition());
+                this.nodes.put(id, node);
+                parent.addChild(node);
+            }
+            List<T> children = getChildren.apply(item);
+            if (children != null) {
+                addAll(node, children, getId, getChildren, filter);
+            }
+        }
+    }
+
+    /**
+     * @return a tree with the same items and positions that shares no nodes with this tree
+     */
+    public synchronized HierarchyTree copy() {
+        HierarchyTree tree = new HierarchyTree();
+        copyChildren(this.root, tree.root, tree.nodes);
+        return tree;
+    }
+
+    private static void copyChildren(Node from, Node to, Map<Long, Node> nodes) {
+        for (Node child : from.children.values()) {
+            Node copied = new Node(child.id, child.position);
+            nodes.put(copied.id, copied);
+            to.addChild(copied);
+            copyChildren(child, copied, nodes);
+        }
+        to.lastChildPosition = from.lastChildPosition;
+    }
+
+    public synchronized boolean contains(Long id) {
+        return this.nodes.containsKey(id);
+    }
+
+    public synchronized int size() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Append item at the end of root level
+     *
+     * @return the appended node
+     */
+    public synchronized Node append(Long id) {
+        if (this.nodes.containsKey(id)) {
+            throw new BadRequestException("Item " + id + " already exists");
+        }
+        return attach(new Node(id, 0));
+    }
+
+    /**
+     * Attach detached subtree at the end of root level
+     *
+     * @return the attached node
+     */
+    public synchronized Node attach(Node node) {
+        node.position = this.root.getNextPosition();
+        this.root.addChild(node);
+        node.forEach(n -> this.nodes.put(n.getId(), n));
+        return node;
+    }
+
+    /**
+     * Detach target item and all its descendants
+     *
+     * @return the detached node
+     */
+    public synchronized Node detach(Long targetId) {
+        Node target = getNode(targetId);
+        target.parent.children.remove(targetId);
+        target.parent = null;
+        target.forEach(n -> this.nodes.remove(n.getId()));
+        return target;
+    }
+
+    /**
+     * @return ids of target and all its descendants
+     */
+    public synchronized List<Long> getSubItems(Long targetId) {
+        return getNode(targetId).getSubItems();
+    }
+
+    /**
+     * @return nodes in depth first order
+     */
+    public synchronized List<Node> getNodes() {
+        List<Node> result = new ArrayList<>(this.nodes.size());
+        this.root.children.values().forEach(n -> n.forEach(result::add));
+        return result;
+    }
+
+    /**
+     * Build nested presentation models bottom-up
+     *
+     * @param mapper creates the model of an item from its id and its mapped children, returns null to skip the item
+     */
+    public synchronized <T> List<T> map(BiFunction<Long, List<T>, T> mapper) {
+        return map(this.root, mapper);
+    }
+
+    private static <T> List<T> map(Node node, BiFunction<Long, List<T>, T> mapper) {
+        List<T> result = new ArrayList<>(node.children.size());
+        for (Node child : node.children.values()) {
+            T item = mapper.apply(child.getId(), map(child, mapper));
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    private Node getNode(Long targetId) {
+        Node target = this.nodes.get(targetId);
+        if (target == null) {
+            throw new BadRequestException("Target " + targetId + " not found ");
+        }
+        return target;
+    }
+
+    public static class Node {
+
+        private final Long id;
+
+        private int position;
+
+        private Node parent;
+
+        // children in position order
+        private final LinkedHashMap<Long, Node> children = new LinkedHashMap<>();
+
+        private int lastChildPosition = -1;
+
+        private Node(Long id, int position) {
+            this.id = id;
+            this.position = position;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getParentId() {
+            return parent == null ? null : parent.id;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public List<Long> getSubItems() {
+            List<Long> result = new ArrayList<>();
+            forEach(n -> result.add(n.getId()));
+            return result;
+        }
+
+        private int getNextPosition() {
+            return lastChildPosition + 1;
+        }
+
+        private void addChild(Node child) {
+            child.parent = this;
+            this.children.put(child.getId(), child);
+            this.lastChildPosition = Math.max(this.lastChildPosition, child.position);
+        }
+
+        private void forEach(Consumer<Node> consumer) {
+            consumer.accept(this);
+            for (Node child : this.children.values()) {
+                child.forEach(consumer);
+            }
+        }
+    }
+}
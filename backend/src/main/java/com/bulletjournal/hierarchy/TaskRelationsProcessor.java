@@ -1,41 +0,0 @@
-package com.bulletjournal.hierarchy;
-
-import com.bulletjournal.controller.models.Task;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-
-public class TaskRelationsProcessor {
-
-    private static final String SUB_TASKS_KEY = "subTasks";
-    private static final Gson GSON = new GsonBuilder()
-            .excludeFieldsWithoutExposeAnnotation().create();
-
-    public static List<Task> processRelations(
-            Map<Long, com.bulletjournal.repository.models.Task> taskMap, String relations) {
-        Task[] list = GSON.fromJson(
-                relations.replace(HierarchyItem.SUB_ITEMS_KEY_REPLACEMENT, SUB_TASKS_KEY), Task[].class);
-        List<Task> tasks = new ArrayList<>();
-        for (Task task : list) {
-            tasks.add(merge(taskMap, task));
-        }
-        return tasks;
-    }
-
-    private static Task merge(Map<Long, com.bulletjournal.repository.models.Task> taskMap, Task cur) {
-        cur.clone(taskMap.get(cur.getId()).toPresentationModel());
-        for (Task subNote : cur.getSubTasks()) {
-            merge(taskMap, subNote);
-        }
-        return cur;
-    }
-
-    public static String processRelations(List<Task> tasks) {
-        String jsonString = GSON.toJson(tasks);
-        // replace "subTasks" with "s" to save space
-        return jsonString.replace(SUB_TASKS_KEY, HierarchyItem.SUB_ITEMS_KEY_REPLACEMENT);
-    }
-}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.bulletjournal.metrics;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class CacheMetrics {
+
+    /**
+     * Get metrics of a cache built with recordStats()
+     */
+    public static Map<String, Number> of(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("size", cache.size());
+        metrics.put("hitCount", stats.hitCount());
+        metrics.put("missCount", stats.missCount());
+        metrics.put("hitRate", stats.hitRate());
+        metrics.put("loadCount", stats.loadCount());
+        metrics.put("averageLoadPenaltyInMillis", stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.put("evictionCount", stats.evictionCount());
+        return metrics;
+    }
+}
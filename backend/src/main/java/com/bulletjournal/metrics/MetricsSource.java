@@ -0,0 +1,16 @@
+package com.bulletjournal.metrics;
+
+import java.util.Map;
+
+/**
+ * Component whose metrics are exposed by {@link com.bulletjournal.controller.AdminController#METRICS_ROUTE}
+ */
+public interface MetricsSource {
+
+    String getMetricsName();
+
+    /**
+     * @return metric name -> current value
+     */
+    Map<String, Number> getMetrics();
+}
@@ -8,10 +8,15 @@ import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-public abstract class Informed {
+public abstract class Informed implements Cloneable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Informed.class);
     private static final Gson GSON = new Gson();
     private List<Event> events;
@@ -37,11 +42,41 @@ public abstract class Informed {
 
     public abstract String getLink(Long contentId);
 
-    public List<Notification> toNotifications(final UserAliasDaoJpa userAliasDaoJpa) {
+    public Set<String> getTargetUsers() {
+        return this.getEvents().stream().map(Event::getTargetUser).collect(Collectors.toSet());
+    }
+
+    /**
+     * Split into one informed per target user, each holding the events of that user in their original order
+     */
+    public List<Informed> splitByTargetUser() {
+        Map<String, List<Event>> eventsByTargetUser = new LinkedHashMap<>();
+        this.getEvents().forEach(event -> eventsByTargetUser.computeIfAbsent(
+                event.getTargetUser(), targetUser -> new ArrayList<>()).add(event));
+        if (eventsByTargetUser.size() <= 1) {
+            return ImmutableList.of(this);
+        }
+        return eventsByTargetUser.values().stream().map(this::withEvents).collect(Collectors.toList());
+    }
+
+    private Informed withEvents(List<Event> events) {
+        try {
+            Informed informed = (Informed) super.clone();
+            informed.events = events;
+            return informed;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param aliases aliases of target users, prefetched by {@link UserAliasDaoJpa#getAliases(java.util.Collection)}
+     */
+    public List<Notification> toNotifications(final Map<String, Map<String, String>> aliases) {
         return this.getEvents().stream()
                 .map(event -> {
                     String targetUser = event.getTargetUser();
-                    event.setOriginatorAlias(userAliasDaoJpa.getAliases(targetUser).getOrDefault(
+                    event.setOriginatorAlias(aliases.getOrDefault(targetUser, Collections.emptyMap()).getOrDefault(
                             this.getOriginator(), this.getOriginator()));
                     Notification notification = new Notification(
                             this.getOriginator(),
@@ -1,9 +1,11 @@
 package com.bulletjournal.notifications;
 
+import com.bulletjournal.config.NotificationConfig;
 import com.bulletjournal.es.repository.SearchIndexDaoJpa;
+import com.bulletjournal.metrics.MetricsSource;
 import com.bulletjournal.repository.AuditableDaoJpa;
 import com.bulletjournal.repository.NotificationDaoJpa;
-import com.bulletjournal.util.CustomThreadFactory;
+import com.bulletjournal.util.EventStage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,32 +13,54 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.Map;
 
+/**
+ * Persists notifications and auditables and deletes Elasticsearch documents off the request threads.
+ * <p>
+ * Each event type has its own {@link EventStage}, so a slow Elasticsearch call does not hold back notifications.
+ * Notifications and auditables are sharded by user to keep the order of events of a user.
+ */
 @Service
-public class NotificationService {
+public class NotificationService implements MetricsSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationService.class);
-    private final ExecutorService executorService;
-    private final BlockingQueue<Object> eventQueue;
-    private final NotificationDaoJpa notificationDaoJpa;
-    private final AuditableDaoJpa auditableDaoJpa;
-    private final SearchIndexDaoJpa searchIndexDaoJpa;
-    private volatile boolean stop = false;
+    private static final String THREAD_NAME_PREFIX = "notification-service-";
+    private final EventStage<Informed> informedStage;
+    private final EventStage<Auditable> auditableStage;
+    private final EventStage<RemoveElasticsearchDocumentEvent> removeESDocumentStage;
+    private final long shutdownTimeoutInMillis;
+
+    public NotificationService(NotificationDaoJpa notificationDaoJpa, AuditableDaoJpa auditableDaoJpa,
+                               SearchIndexDaoJpa searchIndexDaoJpa) {
+        this(notificationDaoJpa, auditableDaoJpa, searchIndexDaoJpa, new NotificationConfig());
+    }
 
     @Autowired
-    public NotificationService(NotificationDaoJpa notificationDaoJpa, AuditableDaoJpa auditableDaoJpa, SearchIndexDaoJpa searchIndexDaoJpa) {
-        this.notificationDaoJpa = notificationDaoJpa;
-        this.auditableDaoJpa = auditableDaoJpa;
-        this.searchIndexDaoJpa = searchIndexDaoJpa;
-        this.executorService = Executors.newSingleThreadExecutor(new CustomThreadFactory("notification-service"));
-        this.eventQueue = new LinkedBlockingQueue<>();
+    public NotificationService(NotificationDaoJpa notificationDaoJpa, AuditableDaoJpa auditableDaoJpa,
+                               SearchIndexDaoJpa searchIndexDaoJpa, NotificationConfig notificationConfig) {
+        NotificationConfig.Pipeline pipeline = notificationConfig.getPipeline();
+        // informed are split per target user before submit, so every notification of a user goes through its shard
+        this.informedStage = new EventStage<>("informed", THREAD_NAME_PREFIX + "informed", pipeline.getWorkers(),
+                pipeline.getQueueCapacity(), pipeline.getOfferTimeoutInMillis(),
+                informed -> informed.getEvents().get(0).getTargetUser(), notificationDaoJpa::create);
+        this.auditableStage = new EventStage<>("auditable", THREAD_NAME_PREFIX + "auditable", pipeline.getWorkers(),
+                pipeline.getQueueCapacity(), pipeline.getOfferTimeoutInMillis(), Auditable::getOriginator,
+                auditableDaoJpa::create);
+        // deletes are idempotent and need no order
+        this.removeESDocumentStage = new EventStage<>("removeESDocument", THREAD_NAME_PREFIX + "removeESDocument", 1,
+                pipeline.getQueueCapacity(), pipeline.getOfferTimeoutInMillis(), e -> null,
+                searchIndexDaoJpa::delete);
+        this.shutdownTimeoutInMillis = pipeline.getShutdownTimeoutInMillis();
     }
 
     @PostConstruct
     public void postConstruct() {
-        this.executorService.submit(() -> this.handleNotifications());
+        this.informedStage.start();
+        this.auditableStage.start();
+        this.removeESDocumentStage.start();
     }
 
     public void inform(Informed informed) {
@@ -44,7 +68,7 @@ public class NotificationService {
         if (informed.getEvents().isEmpty()) {
             return;
         }
-        this.eventQueue.offer(informed);
+        informed.splitByTargetUser().forEach(this.informedStage::submit);
     }
 
     public void trackActivity(Auditable auditable) {
@@ -52,7 +76,7 @@ public class NotificationService {
         if (auditable == null) {
             return;
         }
-        this.eventQueue.offer(auditable);
+        this.auditableStage.submit(auditable);
     }
 
     public void deleteESDocument(RemoveElasticsearchDocumentEvent removeElasticsearchDocumentEvent) {
@@ -60,72 +84,33 @@ public class NotificationService {
         if (removeElasticsearchDocumentEvent == null) {
             return;
         }
-        this.eventQueue.offer(removeElasticsearchDocumentEvent);
+        this.removeESDocumentStage.submit(removeElasticsearchDocumentEvent);
     }
 
-    public void handleNotifications() {
-        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-        List<Object> events = new ArrayList<>();
+    @Override
+    public String getMetricsName() {
+        return "notificationService";
+    }
 
-        while (!stop) {
-            try {
-                // waiting until an element becomes available
-                events.add(this.eventQueue.take());
-            } catch (Exception ex) {
-                LOGGER.error("Error on taking from eventQueue", ex);
-            }
-            try {
-                this.eventQueue.drainTo(events);
-            } catch (Exception ex) {
-                LOGGER.error("Error on draining from eventQueue", ex);
-            }
-            List<Informed> informeds = new ArrayList<>();
-            List<Auditable> auditables = new ArrayList<>();
-            List<RemoveElasticsearchDocumentEvent> removeElasticsearchDocumentEvents = new ArrayList<>();
-            events.stream().forEach((e) -> {
-                if (e instanceof Informed) {
-                    informeds.add((Informed) e);
-                } else if (e instanceof Auditable) {
-                    auditables.add((Auditable) e);
-                } else if (e instanceof RemoveElasticsearchDocumentEvent) {
-                    removeElasticsearchDocumentEvents.add((RemoveElasticsearchDocumentEvent) e);
-                }
-            });
-            try {
-                if (!informeds.isEmpty()) {
-                    this.notificationDaoJpa.create(informeds);
-                }
-            } catch (Exception ex) {
-                LOGGER.error("Error on creating records in notificationDaoJpa", ex);
-            }
-            try {
-                if (!auditables.isEmpty()) {
-                    this.auditableDaoJpa.create(auditables);
-                }
-            } catch (Exception ex) {
-                LOGGER.error("Error on creating records in auditableDaoJpa", ex);
-            }
-            try {
-                if (!removeElasticsearchDocumentEvents.isEmpty()) {
-                    this.searchIndexDaoJpa.delete(removeElasticsearchDocumentEvents);
-                }
-            } catch (Exception ex) {
-                LOGGER.error("Error on deleting records in SearchIndexDaoJpa", ex);
-            }
-            events = new ArrayList<>();
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        for (EventStage<?> stage : getStages()) {
+            stage.getMetrics().forEach((k, v) -> metrics.put(stage.getName() + "." + k, v));
         }
+        return metrics;
     }
 
     @PreDestroy
     public void preDestroy() {
-        this.stop = true;
-        if (executorService != null) {
-            try {
-                // wait 5 seconds for closing all threads
-                executorService.awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        // stop accepting events and handle the queued ones
+        List<EventStage<?>> stages = getStages();
+        stages.forEach(EventStage::stop);
+        long deadline = System.currentTimeMillis() + this.shutdownTimeoutInMillis;
+        stages.forEach(stage -> stage.awaitTermination(Math.max(0, deadline - System.currentTimeMillis())));
+    }
+
+    private List<EventStage<?>> getStages() {
+        return Arrays.asList(this.informedStage, this.auditableStage, this.removeESDocumentStage);
     }
 }
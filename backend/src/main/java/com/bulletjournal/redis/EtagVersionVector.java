@@ -0,0 +1,121 @@
+package com.bulletjournal.redis;
+
+import com.bulletjournal.controller.utils.EtagGenerator;
+import com.bulletjournal.redis.models.EtagType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Version vector behind the etags of polled resources.
+ * <p>
+ * Every mutation bumps the redis counter of each affected (resource, scope) once its transaction commits, so etags
+ * are answered from redis without loading the resources. Missing counters are seeded with the current time in
+ * millis, which keeps versions moving forward if redis loses them.
+ */
+@Component
+public class EtagVersionVector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EtagVersionVector.class);
+    private static final String KEY_PREFIX = "EtagVersion:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    public static String getKey(EtagType type, Object scope) {
+        return KEY_PREFIX + type.name() + ":" + scope;
+    }
+
+    public String getEtag(EtagType type, Object scope) {
+        return getEtags(Collections.singletonList(getKey(type, scope))).get(0);
+    }
+
+    /**
+     * Get etags of the given keys in one round trip
+     *
+     * @param keys the keys from {@link #getKey(EtagType, Object)}
+     * @return List<String> - etags in the order of keys
+     */
+    public List<String> getEtags(List<String> keys) {
+        List<String> versions = this.stringRedisTemplate.opsForValue().multiGet(keys);
+        List<String> etags = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            String version = versions == null ? null : versions.get(i);
+            if (version == null) {
+                version = seed(key);
+            }
+            etags.add(EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                    EtagGenerator.HashType.TO_STRING, key, version));
+        }
+        return etags;
+    }
+
+    public void bump(EtagType type, Object scope) {
+        if (scope == null) {
+            return;
+        }
+        bump(type, Collections.singletonList(scope));
+    }
+
+    /**
+     * Bump versions of the given scopes, after the current transaction commits if there is one
+     *
+     * @param type   the resource type
+     * @param scopes usernames or project ids depending on type
+     */
+    public void bump(EtagType type, Collection<?> scopes) {
+        if (type == null) {
+            return;
+        }
+        List<String> keys = scopes.stream().filter(Objects::nonNull).distinct()
+                .map(scope -> getKey(type, scope)).collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                increment(keys);
+            }
+        });
+    }
+
+    private String seed(String key) {
+        String seed = String.valueOf(System.currentTimeMillis());
+        if (Boolean.TRUE.equals(this.stringRedisTemplate.opsForValue().setIfAbsent(key, seed))) {
+            return seed;
+        }
+        String version = this.stringRedisTemplate.opsForValue().get(key);
+        return version == null ? seed : version;
+    }
+
+    private void increment(List<String> keys) {
+        String seed = String.valueOf(System.currentTimeMillis());
+        try {
+            this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                for (String key : keys) {
+                    stringRedisConnection.setNX(key, seed);
+                    stringRedisConnection.incr(key);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            LOGGER.error("Fail to bump etag versions {}", keys, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bulletjournal.redis.models;
+
+import com.bulletjournal.contents.ContentType;
+
+/**
+ * Resources polled by {@link com.bulletjournal.controller.SystemController#getUpdates} and the scope their
+ * versions are kept in
+ */
+public enum EtagType {
+    OWNED_PROJECTS, // per user
+    SHARED_PROJECTS, // per user
+    GROUPS, // per user
+    NOTIFICATIONS, // per user
+    TASKS, // per project
+    NOTES; // per project
+
+    public static EtagType of(ContentType contentType) {
+        switch (contentType) {
+            case TASK:
+                return TASKS;
+            case NOTE:
+                return NOTES;
+            default:
+                return null;
+        }
+    }
+}
@@ -27,7 +27,9 @@ public class AuditableDaoJpa {
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void create(List<com.bulletjournal.notifications.Auditable> auditables) {
-        auditables.forEach(auditable -> this.auditableRepository.save(auditable.toRepositoryAuditable()));
+        // inserted in JDBC batches
+        this.auditableRepository.saveAll(auditables.stream()
+                .map(com.bulletjournal.notifications.Auditable::toRepositoryAuditable).collect(Collectors.toList()));
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -0,0 +1,182 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.config.ContentRevisionConfig;
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.Revision;
+import com.bulletjournal.controller.models.User;
+import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.repository.models.ContentRevision;
+import com.bulletjournal.util.ContentDiffTool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores revisions of contents as one row per revision, so that an edit inserts a single row.
+ * <p>
+ * Every {@code checkpointInterval} revisions a row holds the full text and the rows in between hold the diff from
+ * the previous revision, so building a revision applies fewer than {@code checkpointInterval} diffs. The latest
+ * {@code maxRevisionNumber} revisions are visible; rows before the checkpoint of the oldest visible revision are
+ * deleted whenever a checkpoint is added.
+ * <p>
+ * Adding a revision locks the content row, so revision ids of a content are numbered one writer at a time, and
+ * skips contents already deleted, whose revisions would otherwise never be removed.
+ */
+@Repository
+public class ContentRevisionDaoJpa {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ContentRevisionRepository contentRevisionRepository;
+
+    @Autowired
+    private ContentRevisionConfig revisionConfig;
+
+    @Autowired
+    private ContentDiffTool contentDiffTool;
+
+    /**
+     * Add the revision of a content that changes from old text to new text
+     * <p>
+     * The revision is a diff only if old text is the text of the latest revision, so a revision lost or written out
+     * of order never breaks the revisions after it.
+     *
+     * @param type     the content type of the project item of the content
+     * @param oldText  the text before the change, null for new contents
+     * @param editedAt the time of the change
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void addRevision(ContentType type, Long contentId, String oldText, String newText, String requester,
+                            Timestamp editedAt) {
+        if (!lockContent(type, contentId)) {
+            // deleted before its revision got here, its revisions are gone already
+            return;
+        }
+        List<Object[]> latest = this.contentRevisionRepository.findLatestRevision(type, contentId);
+        Long latestCheckpointId = this.contentRevisionRepository.findLatestCheckpointId(type, contentId);
+        long revisionId = latest.isEmpty() ? 1 : (Long) latest.get(0)[0] + 1;
+        boolean checkpoint = oldText == null || latest.isEmpty() || latestCheckpointId == null
+                || revisionId - latestCheckpointId >= this.revisionConfig.getCheckpointInterval()
+                || !md5(oldText).equals(latest.get(0)[1]);
+        String data = checkpoint ? newText : this.contentDiffTool.computeDiff(oldText, newText);
+        // persist rather than save, which would look the assigned id up first
+        this.entityManager.persist(new ContentRevision(type, contentId, revisionId, checkpoint,
+                compress(data), requester, md5(newText), editedAt));
+        if (checkpoint) {
+            this.contentRevisionRepository.deleteRevisionsBeforeCheckpoint(type, contentId,
+                    getOldestVisibleRevisionId(revisionId));
+        }
+    }
+
+    /**
+     * Build a visible revision of a content
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Revision getRevision(ContentType type, Long contentId, Long revisionId) {
+        Long latestRevisionId = this.contentRevisionRepository.findLatestRevisionId(type, contentId);
+        if (latestRevisionId == null || revisionId > latestRevisionId
+                || revisionId < getOldestVisibleRevisionId(latestRevisionId)) {
+            throw new BadRequestException("Invalid revisionId: " + revisionId + " for content: " + contentId);
+        }
+
+        List<ContentRevision> records = this.contentRevisionRepository.findRevisionsFromCheckpoint(type, contentId,
+                revisionId);
+        if (records.isEmpty() || !records.get(0).isCheckpoint()
+                || !revisionId.equals(records.get(records.size() - 1).getRevisionId())) {
+            throw new IllegalStateException("Revision " + revisionId + " of content " + contentId + " is missing");
+        }
+
+        // the latest revision may still be on its way while the content already has newer text
+        String text = decompress(records.get(0));
+        for (ContentRevision record : records.subList(1, records.size())) {
+            text = this.contentDiffTool.applyDiff(text, decompress(record));
+        }
+        ContentRevision target = records.get(records.size() - 1);
+        Revision revision = toRevision(target.getRevisionId(), target.getOwner(), target.getCreatedAt());
+        revision.setContent(text);
+        return revision;
+    }
+
+    /**
+     * Get visible revisions of contents without their texts, with one query
+     *
+     * @return revisions in ascending order, keyed by content id
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Map<Long, List<Revision>> getRevisions(ContentType type, Collection<Long> contentIds) {
+        if (contentIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<Revision>> revisions = new HashMap<>();
+        for (Object[] row : this.contentRevisionRepository.findRevisionSummaries(type, contentIds)) {
+            revisions.computeIfAbsent((Long) row[0], k -> new ArrayList<>())
+                    .add(toRevision((Long) row[1], (String) row[2], (Timestamp) row[3]));
+        }
+        revisions.values().forEach(list -> {
+            long oldestVisibleRevisionId = getOldestVisibleRevisionId(list.get(list.size() - 1).getId());
+            list.removeIf(r -> r.getId() < oldestVisibleRevisionId);
+        });
+        return revisions;
+    }
+
+    /**
+     * Lock the content row until the transaction ends, so the content is not deleted before its revision is added
+     *
+     * @return whether the content still exists
+     */
+    private boolean lockContent(ContentType type, Long contentId) {
+        return !this.entityManager.createNativeQuery(String.format("SELECT id FROM %s WHERE id = :id FOR UPDATE",
+                ProjectItemTables.of(type).getContentTable()))
+                .setParameter("id", contentId)
+                .getResultList().isEmpty();
+    }
+
+    private long getOldestVisibleRevisionId(long latestRevisionId) {
+        return Math.max(1, latestRevisionId - this.revisionConfig.getMaxRevisionNumber() + 1);
+    }
+
+    private static Revision toRevision(Long revisionId, String owner, Timestamp createdAt) {
+        return new Revision(revisionId, null, createdAt.getTime(), new User(owner));
+    }
+
+    private static String md5(String text) {
+        return DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] compress(String data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decompress(ContentRevision record) {
+        if (!record.isCompressed()) {
+            return new String(record.getData(), StandardCharsets.UTF_8);
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(record.getData()))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.models.ContentRevision;
+import com.bulletjournal.repository.models.ContentRevisionKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ContentRevisionRepository extends JpaRepository<ContentRevision, ContentRevisionKey> {
+
+    @Query("SELECT MAX(r.id.revisionId) FROM ContentRevision r WHERE r.id.type = :type AND r.id.contentId = :contentId")
+    Long findLatestRevisionId(@Param("type") ContentType type, @Param("contentId") Long contentId);
+
+    /**
+     * @return revision id and text md5 of the latest revision
+     */
+    @Query("SELECT r.id.revisionId, r.textMd5 FROM ContentRevision r WHERE r.id.type = :type AND r.id.contentId = :contentId AND r.id.revisionId = " +
+            "(SELECT MAX(c.id.revisionId) FROM ContentRevision c WHERE c.id.type = :type AND c.id.contentId = :contentId)")
+    List<Object[]> findLatestRevision(@Param("type") ContentType type, @Param("contentId") Long contentId);
+
+    @Query("SELECT MAX(r.id.revisionId) FROM ContentRevision r WHERE r.id.type = :type AND r.id.contentId = :contentId AND r.checkpoint = true")
+    Long findLatestCheckpointId(@Param("type") ContentType type, @Param("contentId") Long contentId);
+
+    /**
+     * @return the latest checkpoint at or before the revision, followed by the diffs up to the revision
+     */
+    @Query("SELECT r FROM ContentRevision r WHERE r.id.type = :type AND r.id.contentId = :contentId AND r.id.revisionId <= :revisionId AND r.id.revisionId >= " +
+            "(SELECT MAX(c.id.revisionId) FROM ContentRevision c WHERE c.id.type = :type AND c.id.contentId = :contentId AND c.checkpoint = true AND c.id.revisionId <= :revisionId) " +
+            "ORDER BY r.id.revisionId")
+    List<ContentRevision> findRevisionsFromCheckpoint(@Param("type") ContentType type,
+                                                      @Param("contentId") Long contentId,
+                                                      @Param("revisionId") Long revisionId);
+
+    /**
+     * @return content id, revision id, owner and creation time of revisions, without their data
+     */
+    @Query("SELECT r.id.contentId, r.id.revisionId, r.owner, r.createdAt FROM ContentRevision r WHERE r.id.type = :type AND r.id.contentId IN (:contentIds) " +
+            "ORDER BY r.id.contentId, r.id.revisionId")
+    List<Object[]> findRevisionSummaries(@Param("type") ContentType type,
+                                         @Param("contentIds") Collection<Long> contentIds);
+
+    /**
+     * Delete revisions before the latest checkpoint at or before the revision
+     */
+    @Modifying
+    @Query("DELETE FROM ContentRevision r WHERE r.id.type = :type AND r.id.contentId = :contentId AND r.id.revisionId < " +
+            "(SELECT MAX(c.id.revisionId) FROM ContentRevision c WHERE c.id.type = :type AND c.id.contentId = :contentId AND c.checkpoint = true AND c.id.revisionId <= :revisionId)")
+    void deleteRevisionsBeforeCheckpoint(@Param("type") ContentType type,
+                                         @Param("contentId") Long contentId,
+                                         @Param("revisionId") Long revisionId);
+}
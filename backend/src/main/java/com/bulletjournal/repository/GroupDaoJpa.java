@@ -2,6 +2,7 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
+import com.bulletjournal.authz.ProjectAccessIndex;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.AddUserGroupParams;
 import com.bulletjournal.controller.models.RemoveUserGroupParams;
@@ -12,6 +13,8 @@ import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.exceptions.UnAuthorizedException;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.JoinGroupEvent;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
 import com.google.common.collect.ImmutableSet;
@@ -20,10 +23,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 
@@ -45,6 +45,12 @@ public class GroupDaoJpa {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
+    @Autowired
+    private ProjectAccessIndex projectAccessIndex;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Group create(String name, String owner) {
         User user = this.userDaoJpa.getByName(owner);
@@ -60,6 +66,8 @@ public class GroupDaoJpa {
         UserGroup userGroup = new UserGroup(user, group, true);
         this.userGroupRepository.save(userGroup);
         group.setUsers(ImmutableSet.of(userGroup));
+        this.etagVersionVector.bump(EtagType.GROUPS, owner);
+        this.projectAccessIndex.invalidateGroups(owner);
         return group;
     }
 
@@ -84,6 +92,8 @@ public class GroupDaoJpa {
         }
 
         List<Event> events = new ArrayList<>();
+        this.etagVersionVector.bump(EtagType.GROUPS, getUsers(group, false));
+        this.projectAccessIndex.invalidateGroups(getUsers(group, false));
         for (UserGroup userGroup : group.getUsers()) {
             this.userGroupRepository.delete(userGroup);
             String targetUser = userGroup.getUser().getName();
@@ -117,6 +127,10 @@ public class GroupDaoJpa {
         DaoHelper.updateIfPresent(
                 updateGroupParams.hasName(), updateGroupParams.getName(), (value) -> group.setName(value));
 
+        // group name is part of both groups and projects views
+        this.etagVersionVector.bump(EtagType.GROUPS, getUsers(group, false));
+        this.etagVersionVector.bump(EtagType.OWNED_PROJECTS, getUsers(group, true));
+        this.etagVersionVector.bump(EtagType.SHARED_PROJECTS, getUsers(group, true));
         return this.groupRepository.save(group);
     }
 
@@ -196,6 +210,9 @@ public class GroupDaoJpa {
             User user = this.userDaoJpa.getByName(username);
             events.add(new Event(username, groupId, group.getName()));
             this.userGroupRepository.save(new UserGroup(user, group, false));
+            Set<String> users = getUsers(group, false);
+            users.add(username);
+            this.etagVersionVector.bump(EtagType.GROUPS, users);
         }
 
         return new JoinGroupEvent(events, owner);
@@ -217,6 +234,9 @@ public class GroupDaoJpa {
         Optional<UserGroup> userGroup = this.userGroupRepository.findById(key);
         if (!userGroup.isPresent()) {
             this.userGroupRepository.save(new UserGroup(user, group, false));
+            Set<String> users = getUsers(group, false);
+            users.add(username);
+            this.etagVersionVector.bump(EtagType.GROUPS, users);
         }
 
         return new JoinGroupEvent(new Event(username, groupId, group.getName()), requester);
@@ -254,8 +274,12 @@ public class GroupDaoJpa {
                     .orElseThrow(() ->
                             new ResourceNotFoundException("UserGroupKey not found"));
 
+            this.etagVersionVector.bump(EtagType.GROUPS, getUsers(group, false));
+            this.etagVersionVector.bump(EtagType.OWNED_PROJECTS, getUsers(group, true));
+            this.etagVersionVector.bump(EtagType.SHARED_PROJECTS, getUsers(group, true));
             this.assignProjectsToOwnerDefaultGroup(username, userGroup);
             this.userGroupRepository.delete(userGroup);
+            this.projectAccessIndex.invalidateGroups(username);
 
             events.add(new Event(username, groupId, group.getName()));
         }
@@ -271,6 +295,21 @@ public class GroupDaoJpa {
         ) {
             project.setGroup(group);
             this.projectRepository.save(project);
+            this.etagVersionVector.bump(EtagType.OWNED_PROJECTS, username);
+            this.etagVersionVector.bump(EtagType.SHARED_PROJECTS, getUsers(group, true));
         }
+        this.projectAccessIndex.invalidateProjects(getUsers(userGroup.getGroup(), true));
+    }
+
+    /**
+     * Get usernames of group members
+     *
+     * @param group        the group
+     * @param acceptedOnly whether to skip users who have not accepted the invitation
+     * @return Set<String> - a mutable set of usernames
+     */
+    private static Set<String> getUsers(Group group, boolean acceptedOnly) {
+        return (acceptedOnly ? group.getAcceptedUsers() : group.getUsers()).stream()
+                .map(u -> u.getUser().getName()).collect(Collectors.toCollection(HashSet::new));
     }
 }
@@ -0,0 +1,273 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.hierarchy.HierarchyTree;
+import com.bulletjournal.repository.models.HierarchyNode;
+import com.bulletjournal.repository.models.HierarchyNodeKey;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stores hierarchies of tasks, notes (scoped by project id) and projects (scoped by owner) as one row per item and
+ * keeps a {@link HierarchyTree} per scope in memory, so that reads never load the rows again and mutations only
+ * write the rows of the items they touch.
+ * <p>
+ * Cached trees are never changed. A transaction changes its own copy of a tree, reads its own changes from the copy,
+ * and evicts the cached tree once it commits. Every eviction bumps a version of the key, and a tree loaded while the
+ * version moved is not kept, so a load racing a commit never brings back the tree before it.
+ */
+@Repository
+public class HierarchyDaoJpa {
+
+    private static final int MAX_CACHED_TREES = 10000;
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<String, HierarchyTree> trees = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_TREES).build();
+
+    // keys share a version when their hashes fall on the same stripe, which only evicts more often
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Autowired
+    private HierarchyNodeRepository hierarchyNodeRepository;
+
+    /**
+     * Build nested presentation models of the scope
+     *
+     * @param mapper creates the model of an item from its id and its mapped children, returns null to skip the item
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public <T> List<T> getItems(ContentType type, Object scope, BiFunction<Long, List<T>, T> mapper) {
+        return getTree(type, scope).map(mapper);
+    }
+
+    /**
+     * @return ids of target and all its descendants
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<Long> getSubItems(ContentType type, Object scope, Long targetId) {
+        return getTree(type, scope).getSubItems(targetId);
+    }
+
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void addItem(ContentType type, Object scope, Long itemId) {
+        HierarchyTree tree = getWritableTree(type, scope);
+        HierarchyTree.Node node = tree.append(itemId);
+        this.hierarchyNodeRepository.save(toRecord(type, scope, node));
+    }
+
+    /**
+     * Delete target item and all its descendants
+     *
+     * @return ids of target and all its descendants
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<Long> removeItem(ContentType type, Object scope, Long targetId) {
+        HierarchyTree tree = getWritableTree(type, scope);
+        List<Long> removed = tree.detach(targetId).getSubItems();
+        this.hierarchyNodeRepository.deleteAll(this.hierarchyNodeRepository.findAllById(getKeys(type, removed)));
+        return removed;
+    }
+
+    /**
+     * Delete target items and all their descendants with one lookup of the rows. Targets that are descendants of
+     * other targets are removed along with them.
+     *
+     * @return ids of targets and all their descendants
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<Long> removeItems(ContentType type, Object scope, Collection<Long> targetIds) {
+        HierarchyTree tree = getWritableTree(type, scope);
+        List<Long> removed = new ArrayList<>();
+        for (Long targetId : targetIds) {
+            if (tree.contains(targetId)) {
+                removed.addAll(tree.detach(targetId).getSubItems());
+            }
+        }
+        this.hierarchyNodeRepository.deleteAll(this.hierarchyNodeRepository.findAllById(getKeys(type, removed)));
+        return removed;
+    }
+
+    /**
+     * Move target item and all its descendants to the end of root level of another scope
+     *
+     * @return ids of target and all its descendants
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<Long> moveItem(ContentType type, Object scope, Long targetId, Object targetScope) {
+        HierarchyTree tree = getWritableTree(type, scope);
+        HierarchyTree targetTree = getWritableTree(type, targetScope);
+        HierarchyTree.Node target = tree.detach(targetId);
+        targetTree.attach(target);
+
+        List<Long> moved = target.getSubItems();
+        List<HierarchyNode> records = this.hierarchyNodeRepository.findAllById(getKeys(type, moved));
+        for (HierarchyNode record : records) {
+            record.setScope(getScope(targetScope));
+            if (Objects.equals(targetId, record.getItemId())) {
+                record.setParentId(null);
+                record.setPosition(target.getPosition());
+            }
+        }
+        this.hierarchyNodeRepository.saveAll(records);
+        return moved;
+    }
+
+    /**
+     * Replace hierarchy of the scope. Items that do not belong to the scope are ignored.
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public <T> void updateItems(ContentType type, Object scope, List<T> items, Function<T, Long> getId,
+                                Function<T, List<T>> getChildren) {
+        HierarchyTree current = getTree(type, scope);
+        HierarchyTree tree = HierarchyTree.of(items, getId, getChildren, current::contains);
+
+        Map<Long, HierarchyNode> records = this.hierarchyNodeRepository
+                .findByIdTypeAndScope(type, getScope(scope)).stream()
+                .collect(Collectors.toMap(HierarchyNode::getItemId, r -> r));
+        List<HierarchyNode> updated = new ArrayList<>();
+        for (HierarchyTree.Node node : tree.getNodes()) {
+            HierarchyNode record = records.remove(node.getId());
+            if (record == null) {
+                updated.add(toRecord(type, scope, node));
+                continue;
+            }
+            if (!Objects.equals(record.getParentId(), node.getParentId())
+                    || record.getPosition() != node.getPosition()) {
+                record.setParentId(node.getParentId());
+                record.setPosition(node.getPosition());
+                updated.add(record);
+            }
+        }
+
+        getWorkingTrees().put(getCacheKey(type, scope), tree);
+        this.hierarchyNodeRepository.saveAll(updated);
+        this.hierarchyNodeRepository.deleteAll(records.values());
+    }
+
+    /**
+     * Delete hierarchy of the scope
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteItems(ContentType type, Object scope) {
+        getWorkingTrees().put(getCacheKey(type, scope), HierarchyTree.of(new ArrayList<>()));
+        this.hierarchyNodeRepository.deleteAll(this.hierarchyNodeRepository.findByIdTypeAndScope(type,
+                getScope(scope)));
+    }
+
+    /**
+     * @return the copy changed by the current transaction, or the cached tree that must not be changed
+     */
+    @SuppressWarnings("unchecked")
+    private HierarchyTree getTree(ContentType type, Object scope) {
+        String key = getCacheKey(type, scope);
+        // reads do not bind working trees to the transaction
+        Map<String, HierarchyTree> workingTrees =
+                (Map<String, HierarchyTree>) TransactionSynchronizationManager.getResource(this);
+        HierarchyTree tree = workingTrees == null ? null : workingTrees.get(key);
+        return tree != null ? tree : getCachedTree(type, scope, key);
+    }
+
+    /**
+     * @return the copy of the tree owned by the current transaction
+     */
+    private HierarchyTree getWritableTree(ContentType type, Object scope) {
+        String key = getCacheKey(type, scope);
+        return getWorkingTrees().computeIfAbsent(key, k -> getCachedTree(type, scope, k).copy());
+    }
+
+    private HierarchyTree getCachedTree(ContentType type, Object scope, String key) {
+        HierarchyTree tree = this.trees.getIfPresent(key);
+        if (tree != null) {
+            return tree;
+        }
+        int stripe = getStripe(key);
+        long version = this.versions.get(stripe);
+        tree = HierarchyTree.of(this.hierarchyNodeRepository.findByIdTypeAndScope(type, getScope(scope)));
+        HierarchyTree cached = this.trees.asMap().putIfAbsent(key, tree);
+        if (cached != null) {
+            return cached;
+        }
+        if (this.versions.get(stripe) != version) {
+            // a commit evicted the key while the rows were read
+            this.trees.asMap().remove(key, tree);
+        }
+        return tree;
+    }
+
+    private void evict(String key) {
+        this.versions.incrementAndGet(getStripe(key));
+        this.trees.invalidate(key);
+    }
+
+    /**
+     * @return trees changed by the current transaction, by cache key
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, HierarchyTree> getWorkingTrees() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hierarchies are only accessed in transactions");
+        }
+        Map<String, HierarchyTree> workingTrees =
+                (Map<String, HierarchyTree>) TransactionSynchronizationManager.getResource(this);
+        if (workingTrees != null) {
+            return workingTrees;
+        }
+        Map<String, HierarchyTree> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(HierarchyDaoJpa.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(HierarchyDaoJpa.this, created);
+            }
+
+            @Override
+            public void afterCommit() {
+                created.keySet().forEach(HierarchyDaoJpa.this::evict);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(HierarchyDaoJpa.this);
+            }
+        });
+        return created;
+    }
+
+    private static HierarchyNode toRecord(ContentType type, Object scope, HierarchyTree.Node node) {
+        return new HierarchyNode(type, node.getId(), getScope(scope), node.getParentId(), node.getPosition());
+    }
+
+    private static List<HierarchyNodeKey> getKeys(ContentType type, List<Long> itemIds) {
+        return itemIds.stream().map(id -> new HierarchyNodeKey(type, id)).collect(Collectors.toList());
+    }
+
+    private static String getScope(Object scope) {
+        return String.valueOf(scope);
+    }
+
+    private static String getCacheKey(ContentType type, Object scope) {
+        return type + ":" + scope;
+    }
+
+    private static int getStripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.models.HierarchyNode;
+import com.bulletjournal.repository.models.HierarchyNodeKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HierarchyNodeRepository extends JpaRepository<HierarchyNode, HierarchyNodeKey> {
+    List<HierarchyNode> findByIdTypeAndScope(ContentType type, String scope);
+}
@@ -0,0 +1,132 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.metrics.CacheMetrics;
+import com.bulletjournal.metrics.MetricsSource;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cache of labels by owner and id.
+ * <p>
+ * Labels are cached per owner, ids are resolved to their owner first, which never changes. Cached labels are never
+ * handed out, callers get copies they are free to change. Labels are only changed through {@link LabelDaoJpa},
+ * which invalidates the affected entries. Entries are invalidated again once the transaction completes, so a read
+ * racing with the mutation cannot keep the old label cached.
+ */
+@Component
+public class LabelCache implements MetricsSource {
+
+    private static final int MAX_LABELS = 100000;
+    private static final int MAX_OWNERS = 10000;
+
+    // absent value means label does not exist
+    private final LoadingCache<Long, Optional<String>> labelOwners = CacheBuilder.newBuilder()
+            .maximumSize(MAX_LABELS).recordStats().build(new CacheLoader<Long, Optional<String>>() {
+                @Override
+                public Optional<String> load(Long labelId) {
+                    return loadAll(Collections.singletonList(labelId)).get(labelId);
+                }
+
+                @Override
+                public Map<Long, Optional<String>> loadAll(Iterable<? extends Long> labelIds) {
+                    Map<Long, Optional<String>> result = new HashMap<>();
+                    labelIds.forEach(id -> result.put(id, Optional.empty()));
+                    labelRepository.findAllById(result.keySet())
+                            .forEach(l -> result.put(l.getId(), Optional.of(l.getOwner())));
+                    return result;
+                }
+            });
+
+    // label id -> label, most recently updated first
+    private final LoadingCache<String, ImmutableMap<Long, Label>> ownerLabels = CacheBuilder.newBuilder()
+            .maximumSize(MAX_OWNERS).recordStats().build(new CacheLoader<String, ImmutableMap<Long, Label>>() {
+                @Override
+                public ImmutableMap<Long, Label> load(String owner) {
+                    ImmutableMap.Builder<Long, Label> labels = ImmutableMap.builder();
+                    labelRepository.findByOwner(owner).stream()
+                            .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt()))
+                            .forEach(l -> labels.put(l.getId(), l.toPresentationModel()));
+                    return labels.build();
+                }
+            });
+
+    @Autowired
+    private LabelRepository labelRepository;
+
+    /**
+     * @return label id -> label, ids of labels that do not exist are absent
+     */
+    public Map<Long, Label> getLabels(Collection<Long> labelIds) {
+        Map<Long, Optional<String>> owners;
+        try {
+            owners = this.labelOwners.getAll(labelIds);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        Map<Long, Label> result = new HashMap<>();
+        owners.forEach((id, owner) -> owner.map(o -> this.ownerLabels.getUnchecked(o).get(id))
+                .ifPresent(l -> result.put(id, copy(l))));
+        return result;
+    }
+
+    /**
+     * @return labels of owner, most recently updated first
+     */
+    public List<Label> getLabels(String owner) {
+        return this.ownerLabels.getUnchecked(owner).values().stream().map(LabelCache::copy)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Invalidate labels of owner and the owner of label
+     *
+     * @param owner   the owner of label
+     * @param labelId the label id, null to only invalidate labels of owner
+     */
+    public void invalidate(String owner, Long labelId) {
+        doInvalidate(owner, labelId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    doInvalidate(owner, labelId);
+                }
+            });
+        }
+    }
+
+    private void doInvalidate(String owner, Long labelId) {
+        if (labelId != null) {
+            this.labelOwners.invalidate(labelId);
+        }
+        this.ownerLabels.invalidate(owner);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "labelCache";
+    }
+
+    @Override
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        CacheMetrics.of(this.labelOwners).forEach((k, v) -> metrics.put("labelOwners." + k, v));
+        CacheMetrics.of(this.ownerLabels).forEach((k, v) -> metrics.put("ownerLabels." + k, v));
+        return metrics;
+    }
+
+    private static Label copy(Label label) {
+        return new Label(label.getId(), label.getValue(), label.getIcon());
+    }
+}
@@ -9,6 +9,8 @@ import com.bulletjournal.controller.models.UpdateLabelParams;
 import com.bulletjournal.controller.utils.ProjectItemsGrouper;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,6 +52,12 @@ public class LabelDaoJpa {
     @Autowired
     private AuthorizationService authorizationService;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
+    @Autowired
+    private LabelCache labelCache;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void createDefaultLabels(String owner) {
         List<Label> defaultLabels = DEFAULT_LABELS.entrySet().stream().map(l -> {
@@ -60,6 +68,7 @@ public class LabelDaoJpa {
             return label;
         }).collect(Collectors.toList());
         this.labelRepository.saveAll(defaultLabels);
+        this.labelCache.invalidate(owner, null);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -74,6 +83,7 @@ public class LabelDaoJpa {
         }
 
         label = this.labelRepository.save(label);
+        this.labelCache.invalidate(owner, label.getId());
         return label;
     }
 
@@ -98,6 +108,9 @@ public class LabelDaoJpa {
 
         DaoHelper.updateIfPresent(updateLabelParams.hasIcon(), updateLabelParams.getIcon(), label::setIcon);
 
+        bumpProjectItemsEtags(this.taskRepository.findTasksByLabelId(labelId),
+                this.noteRepository.findNotesByLabelId(labelId));
+        this.labelCache.invalidate(label.getOwner(), labelId);
         return this.labelRepository.save(label);
     }
 
@@ -108,11 +121,11 @@ public class LabelDaoJpa {
         return label;
     }
 
-    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public List<Label> getLabels(String owner) {
-        List<Label> labels = this.labelRepository.findByOwner(owner).stream()
-                .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt())).collect(Collectors.toList());
-        return labels;
+    /**
+     * @return labels of owner, most recently updated first
+     */
+    public List<com.bulletjournal.controller.models.Label> getLabels(String owner) {
+        return this.labelCache.getLabels(owner);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -124,6 +137,7 @@ public class LabelDaoJpa {
                 Operation.DELETE, labelId);
 
         this.labelRepository.delete(label);
+        this.labelCache.invalidate(label.getOwner(), labelId);
 
         List<Task> tasks = this.taskRepository.findTasksByLabelId(labelId);
         tasks.stream().forEach(task -> task
@@ -139,6 +153,18 @@ public class LabelDaoJpa {
         notes.stream().forEach(note -> note
                 .setLabels(note.getLabels().stream().filter(id -> id != labelId).collect(Collectors.toList())));
         this.noteRepository.saveAll(notes);
+
+        bumpProjectItemsEtags(tasks, notes);
+    }
+
+    /**
+     * Labels are part of task and note lists, so changing a label changes the lists it appears in
+     */
+    private void bumpProjectItemsEtags(List<Task> tasks, List<Note> notes) {
+        this.etagVersionVector.bump(EtagType.TASKS,
+                tasks.stream().map(t -> t.getProject().getId()).collect(Collectors.toSet()));
+        this.etagVersionVector.bump(EtagType.NOTES,
+                notes.stream().map(n -> n.getProject().getId()).collect(Collectors.toSet()));
     }
 
     /**
@@ -208,11 +234,9 @@ public class LabelDaoJpa {
         }
 
         Set<Long> labelIds = new HashSet<>();
-        projectItems.forEach(
-                item -> labelIds.addAll(item.getLabels().stream().map(l -> l.getId()).collect(Collectors.toList())));
+        projectItems.forEach(item -> item.getLabels().forEach(l -> labelIds.add(l.getId())));
 
-        Map<Long, com.bulletjournal.controller.models.Label> m = getLabels(new ArrayList<>(labelIds)).stream()
-                .collect(Collectors.toMap(com.bulletjournal.controller.models.Label::getId, l -> l));
+        Map<Long, com.bulletjournal.controller.models.Label> m = getLabelsMap(labelIds);
 
         projectItems.forEach(item -> item
                 .setLabels(item.getLabels().stream()
@@ -227,11 +251,17 @@ public class LabelDaoJpa {
         if (labels == null || labels.isEmpty()) {
             return Collections.emptyList();
         }
-        List<com.bulletjournal.controller.models.Label> labelsForPresentation = new ArrayList<>();
-        labelsForPresentation = this.labelRepository.findAllById(labels).stream()
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparingInt(label -> labels.indexOf(label.getId())))
-                .map(Label::toPresentationModel).collect(Collectors.toList());
-        return labelsForPresentation;
+        Map<Long, com.bulletjournal.controller.models.Label> m = getLabelsMap(labels);
+        return labels.stream().distinct().map(m::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * @return label id -> label, ids of labels that do not exist are absent
+     */
+    private Map<Long, com.bulletjournal.controller.models.Label> getLabelsMap(Collection<Long> labelIds) {
+        if (labelIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return this.labelCache.getLabels(labelIds);
     }
 }
@@ -8,16 +8,12 @@ import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.controller.models.UpdateNoteParams;
 import com.bulletjournal.controller.utils.ProjectItemsGrouper;
 import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
-import com.bulletjournal.es.repository.SearchIndexDaoJpa;
 import com.bulletjournal.exceptions.BadRequestException;
-import com.bulletjournal.exceptions.ResourceNotFoundException;
-import com.bulletjournal.hierarchy.HierarchyItem;
-import com.bulletjournal.hierarchy.HierarchyProcessor;
-import com.bulletjournal.hierarchy.NoteRelationsProcessor;
 import com.bulletjournal.notifications.Event;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
-import com.google.gson.Gson;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,8 +24,6 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.util.*;
@@ -39,10 +33,8 @@ import java.util.stream.Collectors;
 @Repository
 public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
 
-    private static final Gson GSON = new Gson();
-
-    @PersistenceContext
-    EntityManager entityManager;
+    @Autowired
+    private ProjectItemChangeDaoJpa projectItemChangeDaoJpa;
     @Autowired
     private NoteRepository noteRepository;
     @Autowired
@@ -50,13 +42,13 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
     @Autowired
     private AuthorizationService authorizationService;
     @Autowired
-    private ProjectNotesRepository projectNotesRepository;
+    private HierarchyDaoJpa hierarchyDaoJpa;
     @Autowired
     private NoteContentRepository noteContentRepository;
     @Autowired
     private SharedProjectItemDaoJpa sharedProjectItemDaoJpa;
     @Autowired
-    private SearchIndexDaoJpa searchIndexDaoJpa;
+    private EtagVersionVector etagVersionVector;
 
     @Override
     public JpaRepository getJpaRepository() {
@@ -71,25 +63,24 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
             return this.sharedProjectItemDaoJpa.getSharedProjectItems(requester, ProjectType.NOTE);
         }
 
-        Optional<ProjectNotes> projectNotesOptional = this.projectNotesRepository.findById(projectId);
-        if (!projectNotesOptional.isPresent()) {
-            return Collections.emptyList();
-        }
-        ProjectNotes projectNotes = projectNotesOptional.get();
         final Map<Long, Note> notesMap = this.noteRepository.findNoteByProject(project).stream()
                 .collect(Collectors.toMap(n -> n.getId(), n -> n));
-        return NoteRelationsProcessor.processRelations(notesMap, projectNotes.getNotes()).stream()
-                .map(note -> addLabels(note, notesMap)).collect(Collectors.toList());
-    }
-
-    private com.bulletjournal.controller.models.Note addLabels(com.bulletjournal.controller.models.Note note,
-            Map<Long, Note> notesMap) {
-        List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(notesMap.get(note.getId()));
-        note.setLabels(labels);
-        for (com.bulletjournal.controller.models.Note subNote : note.getSubNotes()) {
-            addLabels(subNote, notesMap);
-        }
-        return note;
+        // notes at all levels, to resolve their labels at once
+        List<com.bulletjournal.controller.models.Note> allNotes = new ArrayList<>();
+        List<com.bulletjournal.controller.models.Note> notes = this.hierarchyDaoJpa.getItems(ContentType.NOTE,
+                projectId, (Long id, List<com.bulletjournal.controller.models.Note> subNotes) -> {
+                    Note note = notesMap.get(id);
+                    if (note == null) {
+                        return null;
+                    }
+                    com.bulletjournal.controller.models.Note result = new com.bulletjournal.controller.models.Note();
+                    result.clone(note.toPresentationModel());
+                    result.setSubNotes(subNotes);
+                    allNotes.add(result);
+                    return result;
+                });
+        resolveLabels(allNotes);
+        return notes;
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -112,10 +103,7 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
         }
 
         notes.sort(ProjectItemsGrouper.NOTE_COMPARATOR);
-        return notes.stream().map(t -> {
-            List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(t);
-            return t.toPresentationModel(labels);
-        }).collect(Collectors.toList());
+        return toPresentationModels(notes);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -132,11 +120,8 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
             note.setLabels(createNoteParams.getLabels());
         }
         note = this.noteRepository.save(note);
-        final ProjectNotes projectNotes = this.projectNotesRepository.findById(projectId).orElseGet(ProjectNotes::new);
-        String newRelations = HierarchyProcessor.addItem(projectNotes.getNotes(), note.getId());
-        projectNotes.setNotes(newRelations);
-        projectNotes.setProjectId(projectId);
-        projectNotesRepository.save(projectNotes);
+        this.hierarchyDaoJpa.addItem(ContentType.NOTE, projectId, note.getId());
+        this.etagVersionVector.bump(EtagType.NOTES, projectId);
         return note;
     }
 
@@ -154,6 +139,7 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
             note.setLabels(updateNoteParams.getLabels());
         }
 
+        this.etagVersionVector.bump(EtagType.NOTES, note.getProject().getId());
         return this.noteRepository.save(note);
     }
 
@@ -174,21 +160,14 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
 
         List<Note> notes = this.noteRepository.findNotesByOwnerAndProject(owner, project);
         notes.sort(ProjectItemsGrouper.NOTE_COMPARATOR);
-        return notes.stream().map(t -> {
-            List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(t);
-            return t.toPresentationModel(labels);
-        }).collect(Collectors.toList());
+        return toPresentationModels(notes);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void updateUserNotes(Long projectId, List<com.bulletjournal.controller.models.Note> notes) {
-        Optional<ProjectNotes> projectNotesOptional = this.projectNotesRepository.findById(projectId);
-        final ProjectNotes projectNotes = projectNotesOptional.isPresent() ? projectNotesOptional.get()
-                : new ProjectNotes();
-
-        projectNotes.setNotes(NoteRelationsProcessor.processRelations(notes));
-        projectNotes.setProjectId(projectId);
-        this.projectNotesRepository.save(projectNotes);
+        this.hierarchyDaoJpa.updateItems(ContentType.NOTE, projectId, notes,
+                com.bulletjournal.controller.models.Note::getId, com.bulletjournal.controller.models.Note::getSubNotes);
+        this.etagVersionVector.bump(EtagType.NOTES, projectId);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -196,36 +175,30 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
         Note note = this.getProjectItem(noteId, requester);
 
         Project project = deleteNoteAndAdjustRelations(requester, note,
-                (targetNotes) -> this.noteRepository.deleteAll(targetNotes), (target) -> {
-                });
+                (targetNotes) -> this.noteRepository.deleteAll(targetNotes), null);
 
         return Pair.of(generateEvents(note, requester, project), note);
     }
 
     private Project deleteNoteAndAdjustRelations(String requester, Note note, Consumer<List<Note>> targetNotesOperator,
-            Consumer<HierarchyItem> targetOperator) {
+            Long targetProject) {
         Project project = note.getProject();
         Long projectId = project.getId();
         this.authorizationService.checkAuthorizedToOperateOnContent(note.getOwner(), requester, ContentType.NOTE,
                 Operation.DELETE, projectId, project.getOwner());
 
-        ProjectNotes projectNotes = this.projectNotesRepository.findById(projectId)
-                .orElseThrow(() -> new ResourceNotFoundException("ProjectNotes by " + projectId + " not found"));
-
-        String relations = projectNotes.getNotes();
-
         // delete notes and its subNotes
         List<Note> targetNotes = this.noteRepository
-                .findAllById(HierarchyProcessor.getSubItems(relations, note.getId()));
+                .findAllById(this.hierarchyDaoJpa.getSubItems(ContentType.NOTE, projectId, note.getId()));
         targetNotesOperator.accept(targetNotes);
 
-        // Update note relations
-        HierarchyItem[] target = new HierarchyItem[1];
-        List<HierarchyItem> hierarchy = HierarchyProcessor.removeTargetItem(relations, note.getId(), target);
-        targetOperator.accept(target[0]);
-
-        projectNotes.setNotes(GSON.toJson(hierarchy));
-        this.projectNotesRepository.save(projectNotes);
+        // Update note relations, null targetProject means notes are deleted
+        if (targetProject == null) {
+            this.hierarchyDaoJpa.removeItem(ContentType.NOTE, projectId, note.getId());
+        } else {
+            this.hierarchyDaoJpa.moveItem(ContentType.NOTE, projectId, note.getId(), targetProject);
+        }
+        this.etagVersionVector.bump(EtagType.NOTES, projectId);
 
         return project;
     }
@@ -259,14 +232,8 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
         deleteNoteAndAdjustRelations(requester, note, (targetNotes) -> targetNotes.forEach((t) -> {
             t.setProject(project);
             this.noteRepository.save(t);
-        }), (target) -> {
-            final ProjectNotes projectNotes = this.projectNotesRepository.findById(targetProject)
-                    .orElseGet(ProjectNotes::new);
-            String newRelations = HierarchyProcessor.addItem(projectNotes.getNotes(), target);
-            projectNotes.setNotes(newRelations);
-            projectNotes.setProjectId(targetProject);
-            this.projectNotesRepository.save(projectNotes);
-        });
+        }), targetProject);
+        this.etagVersionVector.bump(EtagType.NOTES, targetProject);
 
         return Pair.of(note, project);
     }
@@ -293,42 +260,6 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
 
     @Override
     public List<Object[]> findRecentProjectItemContentsBetween(Timestamp startTime, Timestamp endTime, List projectIds) {
-        StringBuilder queryBuilder = new StringBuilder(
-                "SELECT notes_join_note_contents.id, notes_join_note_contents.most_recent_time " +
-                        "FROM notes_join_note_contents " +
-                        "WHERE notes_join_note_contents.most_recent_time >= ? " +
-                        "AND notes_join_note_contents.most_recent_time <= ? " +
-                        "AND notes_join_note_contents.project_id IN (");
-        projectIds.stream().forEach(pi -> queryBuilder.append(pi).append(","));
-        int tail = queryBuilder.length() - 1;
-        if (queryBuilder.charAt(tail) == ',') {
-            queryBuilder.deleteCharAt(tail);
-        }
-        queryBuilder.append(")");
-        return entityManager.createNativeQuery(queryBuilder.toString())
-                .setParameter(1, startTime)
-                .setParameter(2, endTime)
-                .getResultList();
-    }
-
-    public List<String> getDeleteESDocumentIdsForProjectItem(String requester, Long noteId) {
-        List<String> deleteESDocumentIds = new ArrayList<>();
-        Note note = this.getProjectItem(noteId, requester);
-
-        deleteESDocumentIds.add(this.searchIndexDaoJpa.getProjectItemSearchIndexId(note));
-        List<NoteContent> noteContents = findContents(note);
-        for (NoteContent content : noteContents) {
-            deleteESDocumentIds.add(this.searchIndexDaoJpa.getContentSearchIndexId(content));
-        }
-
-        return deleteESDocumentIds;
-    }
-
-    public List<String> getDeleteESDocumentIdsForContent(String requester, Long contentId) {
-        List<String> deleteESDocumentIds = new ArrayList<>();
-        NoteContent content = this.getContent(contentId, requester);
-        deleteESDocumentIds.add(this.searchIndexDaoJpa.getContentSearchIndexId(content));
-
-        return deleteESDocumentIds;
+        return this.projectItemChangeDaoJpa.findRecentItemsBetween(ContentType.NOTE, startTime, endTime, projectIds);
     }
 }
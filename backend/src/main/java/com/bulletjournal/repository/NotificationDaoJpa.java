@@ -1,8 +1,11 @@
 package com.bulletjournal.repository;
 
 import com.bulletjournal.clients.UserClient;
+import com.bulletjournal.controller.models.User;
 import com.bulletjournal.notifications.Action;
 import com.bulletjournal.notifications.Informed;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.Notification;
 import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +14,11 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Repository
@@ -25,12 +31,16 @@ public class NotificationDaoJpa {
     private UserClient userClient;
     @Autowired
     private UserAliasDaoJpa userAliasDaoJpa;
+    @Autowired
+    private EtagVersionVector etagVersionVector;
 
     public List<com.bulletjournal.controller.models.Notification> getNotifications(String username) {
         List<Notification> notifications = this.notificationRepository.findByTargetUser(username);
+        Map<String, User> originators = this.userClient.getUsers(
+                notifications.stream().map(Notification::getOriginator).collect(Collectors.toSet()));
         List<com.bulletjournal.controller.models.Notification> returnNotifications = notifications.stream().map(n -> {
             com.bulletjournal.controller.models.Notification notification = n.toPresentationModel();
-            notification.setOriginator(this.userClient.getUser(n.getOriginator()));
+            notification.setOriginator(originators.get(n.getOriginator()));
             if (n.getActions() != null) {
                 Action[] actions = GSON.fromJson(n.getActions(), Action[].class);
                 notification.setActions(
@@ -54,13 +64,33 @@ public class NotificationDaoJpa {
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void create(List<Informed> events) {
-        events.forEach(event -> event.toNotifications(userAliasDaoJpa).forEach(n -> {
-            this.notificationRepository.save(n);
-        }));
+        // aliases of all target users are fetched at once rather than per event
+        Map<String, Map<String, String>> aliases = this.userAliasDaoJpa.getAliases(
+                events.stream().flatMap(event -> event.getTargetUsers().stream()).collect(Collectors.toSet()));
+        List<Notification> notifications = new ArrayList<>();
+        events.forEach(event -> notifications.addAll(event.toNotifications(aliases)));
+        // inserted in JDBC batches
+        this.notificationRepository.saveAll(notifications);
+        Set<String> targetUsers = notifications.stream().map(Notification::getTargetUser).collect(Collectors.toSet());
+        this.etagVersionVector.bump(EtagType.NOTIFICATIONS, targetUsers);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void deleteAllExpiredNotifications(Timestamp expirationTime) {
+        List<String> targetUsers = this.notificationRepository.findTargetUsersByUpdatedAtBefore(expirationTime);
         this.notificationRepository.deleteByUpdatedAtBefore(expirationTime);
+        this.etagVersionVector.bump(EtagType.NOTIFICATIONS, targetUsers);
+    }
+
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void delete(Notification notification) {
+        this.notificationRepository.delete(notification);
+        this.etagVersionVector.bump(EtagType.NOTIFICATIONS, notification.getTargetUser());
+    }
+
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteByTargetUser(String targetUser) {
+        this.notificationRepository.deleteByTargetUser(targetUser);
+        this.etagVersionVector.bump(EtagType.NOTIFICATIONS, targetUser);
     }
 }
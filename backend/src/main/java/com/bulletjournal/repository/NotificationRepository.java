@@ -3,6 +3,8 @@ package com.bulletjournal.repository;
 import com.bulletjournal.repository.models.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +15,9 @@ import java.util.List;
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByTargetUser(String targetUser);
 
+    @Query("SELECT DISTINCT n.targetUser FROM Notification n WHERE n.updatedAt < :expiryTime")
+    List<String> findTargetUsersByUpdatedAtBefore(@Param("expiryTime") Timestamp expiryTime);
+
     @Modifying
     @Transactional
     void deleteByUpdatedAtBefore(Timestamp expiryTime);
@@ -2,14 +2,14 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
+import com.bulletjournal.authz.ProjectAccessIndex;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
-import com.bulletjournal.hierarchy.HierarchyItem;
-import com.bulletjournal.hierarchy.HierarchyProcessor;
-import com.bulletjournal.hierarchy.ProjectRelationsProcessor;
 import com.bulletjournal.notifications.Event;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.Group;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.User;
@@ -43,6 +43,12 @@ public class ProjectDaoJpa {
     private AuthorizationService authorizationService;
     @Autowired
     private UserGroupRepository userGroupRepository;
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+    @Autowired
+    private HierarchyDaoJpa hierarchyDaoJpa;
+    @Autowired
+    private ProjectAccessIndex projectAccessIndex;
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Projects getProjects(String owner) {
@@ -56,7 +62,7 @@ public class ProjectDaoJpa {
             this.userProjectsRepository.save(userProjects);
         }
 
-        result.setOwned(getOwnerProjects(userProjects, owner));
+        result.setOwned(getOwnerProjects(owner));
 
         // projects that are shared with owner
         result.setShared(getSharedProjects(userProjects, owner));
@@ -153,11 +159,7 @@ public class ProjectDaoJpa {
         }
 
         newOwners.add(o);
-        List<Project> projects = this.projectRepository.findByOwner(o);
-        String projectRelationsByOwner = this.userProjectsRepository.findById(o).get().getOwnedProjects();
-        List<com.bulletjournal.controller.models.Project> l = ProjectRelationsProcessor.processRelations(
-                projects.stream().collect(Collectors.toMap(Project::getId, p -> p)), projectRelationsByOwner,
-                projectsByOwner);
+        List<com.bulletjournal.controller.models.Project> l = getProjects(o, projectsByOwner);
 
         if (l.isEmpty()) {
             return;
@@ -166,14 +168,39 @@ public class ProjectDaoJpa {
         result.add(new ProjectsWithOwner(new com.bulletjournal.controller.models.User(o), l));
     }
 
-    private List<com.bulletjournal.controller.models.Project> getOwnerProjects(UserProjects userProjects,
-                                                                               String owner) {
-        if (userProjects.getOwnedProjects() == null) {
-            return Collections.emptyList();
-        }
+    private List<com.bulletjournal.controller.models.Project> getOwnerProjects(String owner) {
+        return getProjects(owner, null);
+    }
+
+    /**
+     * Get project hierarchy of owner
+     *
+     * @param selectedProjects projects to show, null to show all. Unselected projects only show name and type,
+     *                         and only if any of their sub projects is selected
+     */
+    private List<com.bulletjournal.controller.models.Project> getProjects(String owner, Set<Long> selectedProjects) {
         Map<Long, Project> projects = this.projectRepository.findByOwner(owner).stream()
                 .collect(Collectors.toMap(p -> p.getId(), p -> p));
-        return ProjectRelationsProcessor.processRelations(projects, userProjects.getOwnedProjects(), null);
+        return this.hierarchyDaoJpa.getItems(ContentType.PROJECT, owner,
+                (Long id, List<com.bulletjournal.controller.models.Project> subProjects) -> {
+                    Project project = projects.get(id);
+                    if (project == null) {
+                        return null;
+                    }
+                    com.bulletjournal.controller.models.Project result =
+                            new com.bulletjournal.controller.models.Project(id);
+                    if (selectedProjects == null || selectedProjects.contains(id)) {
+                        result.clone(project.toPresentationModel());
+                    } else if (subProjects.isEmpty()) {
+                        return null;
+                    } else {
+                        // unselected project only shows name and type, without owner
+                        result.setName(project.getName());
+                        result.setProjectType(ProjectType.getType(project.getType()));
+                    }
+                    result.setSubProjects(subProjects);
+                    return result;
+                });
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -195,14 +222,10 @@ public class ProjectDaoJpa {
         project.setGroup(group);
         project = this.projectRepository.save(project);
 
-        Optional<UserProjects> userProjectsOptional = this.userProjectsRepository.findById(owner);
-        final UserProjects userProjects = userProjectsOptional.isPresent() ? userProjectsOptional.get()
-                : new UserProjects();
-
-        String newRelations = HierarchyProcessor.addItem(userProjects.getOwnedProjects(), project.getId());
-        userProjects.setOwnedProjects(newRelations);
-        userProjects.setOwner(owner);
-        this.userProjectsRepository.save(userProjects);
+        this.hierarchyDaoJpa.addItem(ContentType.PROJECT, owner, project.getId());
+        Set<String> viewers = getProjectsViewers(Collections.singletonList(project));
+        bumpProjectsEtags(Collections.singletonList(project), viewers);
+        this.projectAccessIndex.invalidateProjects(viewers);
         events.addAll(generateEvents(group, owner, project));
         return project;
     }
@@ -242,6 +265,7 @@ public class ProjectDaoJpa {
                 (value) -> project.setDescription(value));
 
         Group oldGroup = project.getGroup();
+        Set<String> viewers = getProjectsViewers(Collections.singletonList(project));
         if (updateProjectParams.hasGroupId() && !Objects.equals(updateProjectParams.getGroupId(), oldGroup.getId())) {
             Group group = this.groupRepository.findById(updateProjectParams.getGroupId()).orElseThrow(
                     () -> new ResourceNotFoundException("Group " + updateProjectParams.getGroupId() + " not found"));
@@ -253,9 +277,11 @@ public class ProjectDaoJpa {
                     .collect(Collectors.toSet());
 
             generateEvents(joined, removed, project, oldUsers, newUsers);
-
+            viewers.addAll(newUsers);
+            this.projectAccessIndex.invalidateProjects(viewers);
         }
 
+        bumpProjectsEtags(Collections.singletonList(project), viewers);
         return this.projectRepository.save(project);
     }
 
@@ -277,14 +303,12 @@ public class ProjectDaoJpa {
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void updateUserOwnedProjects(String user, List<com.bulletjournal.controller.models.Project> projects) {
-        Optional<UserProjects> userProjectsOptional = this.userProjectsRepository.findById(user);
-        final UserProjects userProjects = userProjectsOptional.isPresent() ? userProjectsOptional.get()
-                : new UserProjects();
-
-        userProjects.setOwnedProjects(ProjectRelationsProcessor.processRelations(projects));
-        userProjects.setOwner(user);
-
-        this.userProjectsRepository.save(userProjects);
+        this.hierarchyDaoJpa.updateItems(ContentType.PROJECT, user, projects,
+                com.bulletjournal.controller.models.Project::getId,
+                com.bulletjournal.controller.models.Project::getSubProjects);
+        // shared projects of other users follow the owner's relations as well
+        List<Project> ownedProjects = this.projectRepository.findByOwner(user);
+        bumpProjectsEtags(ownedProjects, getProjectsViewers(ownedProjects));
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -297,6 +321,7 @@ public class ProjectDaoJpa {
                 (value) -> userProjects.setSharedProjects(GSON.toJson(value)));
         userProjects.setOwner(owner);
         this.userProjectsRepository.save(userProjects);
+        this.etagVersionVector.bump(EtagType.SHARED_PROJECTS, owner);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -307,25 +332,47 @@ public class ProjectDaoJpa {
         this.authorizationService.checkAuthorizedToOperateOnContent(project.getOwner(), requester, ContentType.PROJECT,
                 Operation.DELETE, projectId);
 
-        UserProjects userProjects = this.userProjectsRepository.findById(requester)
-                .orElseThrow(() -> new ResourceNotFoundException("UserProjects by " + requester + " not found"));
-
-        String relations = userProjects.getOwnedProjects();
-
         // delete project and its subProjects
         List<Project> targetProjects = this.projectRepository
-                .findAllById(HierarchyProcessor.getSubItems(relations, projectId));
+                .findAllById(this.hierarchyDaoJpa.getSubItems(ContentType.PROJECT, requester, projectId));
         this.projectRepository.deleteAll(targetProjects);
+        for (Project targetProject : targetProjects) {
+            this.hierarchyDaoJpa.deleteItems(ContentType.TASK, targetProject.getId());
+            this.hierarchyDaoJpa.deleteItems(ContentType.NOTE, targetProject.getId());
+        }
 
         // Update project relations
-        List<HierarchyItem> hierarchy = HierarchyProcessor.removeTargetItem(relations, projectId);
-        userProjects.setOwnedProjects(GSON.toJson(hierarchy));
-        this.userProjectsRepository.save(userProjects);
+        this.hierarchyDaoJpa.removeItem(ContentType.PROJECT, requester, projectId);
+        Set<String> viewers = getProjectsViewers(targetProjects);
+        bumpProjectsEtags(targetProjects, viewers);
+        this.projectAccessIndex.invalidateProjects(viewers);
 
         // return generated events
         return Pair.of(generateEvents(requester, targetProjects), project);
     }
 
+    /**
+     * Get users whose projects view contains any of the given projects
+     */
+    private Set<String> getProjectsViewers(List<Project> projects) {
+        Set<String> viewers = new HashSet<>();
+        for (Project project : projects) {
+            viewers.add(project.getOwner());
+            project.getGroup().getAcceptedUsers().forEach(u -> viewers.add(u.getUser().getName()));
+        }
+        return viewers;
+    }
+
+    /**
+     * Bump owned projects of the project owners and shared projects of the other viewers
+     */
+    private void bumpProjectsEtags(List<Project> projects, Set<String> viewers) {
+        Set<String> owners = projects.stream().map(Project::getOwner).collect(Collectors.toSet());
+        this.etagVersionVector.bump(EtagType.OWNED_PROJECTS, owners);
+        this.etagVersionVector.bump(EtagType.SHARED_PROJECTS,
+                viewers.stream().filter(viewer -> !owners.contains(viewer)).collect(Collectors.toSet()));
+    }
+
     private List<Event> generateEvents(String owner, List<Project> targetProjects) {
         List<Event> events = new ArrayList<>();
         for (Project p : targetProjects) {
@@ -0,0 +1,96 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Maintains project_item_content_times from project_item_changes, which row triggers append to whenever a content
+ * changes or an item moves or is deleted. Each change only rewrites the row of its own item.
+ */
+@Repository
+public class ProjectItemChangeDaoJpa {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Apply the oldest changes to project_item_content_times
+     *
+     * @param batchSize the max number of changes to apply
+     * @return the number of changes applied
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public int applyChanges(int batchSize) {
+        List<Object[]> changes = this.entityManager.createNativeQuery(
+                "SELECT id, type, item_id FROM project_item_changes ORDER BY id LIMIT :batchSize " +
+                        "FOR UPDATE SKIP LOCKED")
+                .setParameter("batchSize", batchSize)
+                .getResultList();
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> changeIds = new ArrayList<>(changes.size());
+        Map<ContentType, Set<Long>> changedItems = new HashMap<>();
+        for (Object[] change : changes) {
+            changeIds.add(((BigInteger) change[0]).longValue());
+            changedItems.computeIfAbsent(ContentType.valueOf((String) change[1]), k -> new HashSet<>())
+                    .add(((BigInteger) change[2]).longValue());
+        }
+
+        changedItems.forEach(this::updateItems);
+
+        this.entityManager.createNativeQuery("DELETE FROM project_item_changes WHERE id IN (:ids)")
+                .setParameter("ids", changeIds)
+                .executeUpdate();
+        return changes.size();
+    }
+
+    /**
+     * @return [item id, most recent time of its contents] of items in projects whose contents were updated in range
+     */
+    public List<Object[]> findRecentItemsBetween(ContentType type, Timestamp startTime, Timestamp endTime,
+                                                 List<Long> projectIds) {
+        if (projectIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.entityManager.createNativeQuery(
+                "SELECT item_id, most_recent_time FROM project_item_content_times " +
+                        "WHERE type = :type AND project_id IN (:projectIds) " +
+                        "AND most_recent_time >= :startTime AND most_recent_time <= :endTime")
+                .setParameter("type", type.name())
+                .setParameter("projectIds", projectIds)
+                .setParameter("startTime", startTime)
+                .setParameter("endTime", endTime)
+                .getResultList();
+    }
+
+    private void updateItems(ContentType type, Set<Long> itemIds) {
+        ProjectItemTables tables = ProjectItemTables.of(type);
+        this.entityManager.createNativeQuery(String.format(
+                "INSERT INTO project_item_content_times (type, item_id, project_id, most_recent_time) " +
+                        "SELECT :type, i.id, i.project_id, max(c.updated_at) " +
+                        "FROM %1$s i JOIN %2$s c ON c.%3$s = i.id WHERE i.id IN (:ids) GROUP BY i.id, i.project_id " +
+                        "ON CONFLICT (type, item_id) DO UPDATE SET project_id = excluded.project_id, " +
+                        "most_recent_time = excluded.most_recent_time",
+                tables.getItemTable(), tables.getContentTable(), tables.getItemColumn()))
+                .setParameter("type", type.name())
+                .setParameter("ids", itemIds)
+                .executeUpdate();
+        this.entityManager.createNativeQuery(String.format(
+                "DELETE FROM project_item_content_times t WHERE t.type = :type AND t.item_id IN (:ids) " +
+                        "AND NOT EXISTS (SELECT 1 FROM %1$s i JOIN %2$s c ON c.%3$s = i.id WHERE i.id = t.item_id)",
+                tables.getItemTable(), tables.getContentTable(), tables.getItemColumn()))
+                .setParameter("type", type.name())
+                .setParameter("ids", itemIds)
+                .executeUpdate();
+    }
+}
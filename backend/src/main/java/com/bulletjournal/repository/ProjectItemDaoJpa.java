@@ -2,27 +2,27 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
-import com.bulletjournal.config.ContentRevisionConfig;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.daemon.ContentRevisionEvent;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.RevokeSharableEvent;
 import com.bulletjournal.notifications.SetLabelEvent;
 import com.bulletjournal.notifications.ShareProjectItemEvent;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.ContentModel;
 import com.bulletjournal.repository.models.Group;
 import com.bulletjournal.repository.models.ProjectItemModel;
 import com.bulletjournal.repository.models.UserGroup;
-import com.bulletjournal.util.ContentDiffTool;
 import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,7 +36,6 @@ import java.util.stream.Collectors;
 public abstract class ProjectItemDaoJpa<K extends ContentModel> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProjectItemDaoJpa.class);
-    private static final Gson GSON = new Gson();
 
     @Autowired
     private LabelDaoJpa labelDaoJpa;
@@ -49,9 +48,9 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
     @Autowired
     private PublicProjectItemDaoJpa publicProjectItemDaoJpa;
     @Autowired
-    private ContentRevisionConfig revisionConfig;
+    private ContentRevisionDaoJpa contentRevisionDaoJpa;
     @Autowired
-    private ContentDiffTool contentDiffTool;
+    private ApplicationEventPublisher applicationEventPublisher;
     @Autowired
     private ProjectRepository projectRepository;
     @Autowired
@@ -66,6 +65,8 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
     private TransactionRepository transactionRepository;
     @Autowired
     private TransactionContentRepository transactionContentRepository;
+    @Autowired
+    private EtagVersionVector etagVersionVector;
 
     abstract <T extends ProjectItemModel> JpaRepository<T, Long> getJpaRepository();
 
@@ -141,8 +142,9 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
         T projectItem = getProjectItem(projectItemId, owner);
         content.setProjectItem(projectItem);
         content.setOwner(owner);
-        updateRevision(content, content.getText(), owner);
         this.getContentJpaRepository().save(content);
+        this.applicationEventPublisher.publishEvent(new ContentRevisionEvent(projectItem.getContentType(),
+                content.getId(), null, content.getText(), owner, Timestamp.from(Instant.now())));
         return Pair.of(content, projectItem);
     }
 
@@ -164,7 +166,10 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
         this.authorizationService.checkAuthorizedToOperateOnContent(content.getOwner(), requester, ContentType.CONTENT,
                 Operation.UPDATE, content.getId(), projectItem.getOwner(), projectItem.getProject().getOwner(),
                 projectItem);
-        updateRevision(content, updateContentParams.getText(), requester);
+        // the diff is computed by ContentRevisionWriter once the new text commits
+        this.applicationEventPublisher.publishEvent(new ContentRevisionEvent(projectItem.getContentType(),
+                content.getId(), content.getText(), updateContentParams.getText(), requester,
+                Timestamp.from(Instant.now())));
         content.setText(updateContentParams.getText());
         this.getContentJpaRepository().save(content);
         return Pair.of(content, projectItem);
@@ -191,12 +196,45 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
         return (T) projectItem;
     }
 
+    /**
+     * Find project items by ids with one query, without authorization. Callers check projects of returned items.
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public <T extends ProjectItemModel> List<T> findProjectItemsByIds(Collection<Long> projectItemIds) {
+        return (List<T>) this.getJpaRepository().findAllById(projectItemIds);
+    }
+
+    /**
+     * Find contents by ids with one query, without authorization. Callers check projects of returned contents.
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<K> findContentsByIds(Collection<Long> contentIds) {
+        return this.getContentJpaRepository().findAllById(contentIds);
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     protected <T extends ProjectItemModel> List<com.bulletjournal.controller.models.Label> getLabelsToProjectItem(
             T projectItem) {
         return this.labelDaoJpa.getLabels(projectItem.getLabels());
     }
 
+    /**
+     * Convert project items to presentation models, resolving labels of all items with one query
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    protected <T extends ProjectItem> List<T> toPresentationModels(List<? extends ProjectItemModel<T>> projectItems) {
+        return resolveLabels(projectItems.stream().map(item -> item.toPresentationModel())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Replace label ids of presentation models with labels, resolving labels of all items with one query
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    protected <T extends ProjectItem> List<T> resolveLabels(List<T> projectItems) {
+        return this.labelDaoJpa.getLabelsForProjectItemList(projectItems);
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public SetLabelEvent setLabels(String requester, Long projectItemId, List<Long> labels) {
         ProjectItemModel projectItem = getProjectItem(projectItemId, requester);
@@ -210,6 +248,7 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
         }
 
         this.getJpaRepository().save(projectItem);
+        this.etagVersionVector.bump(EtagType.of(projectItem.getContentType()), projectItem.getProject().getId());
         return new SetLabelEvent(events, requester, projectItem.getContentType());
     }
 
@@ -220,52 +259,7 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
         K content = getContent(contentId, requester);
         Preconditions.checkState(Objects.equals(projectItem.getId(), content.getProjectItem().getId()),
                 "ProjectItem ID mismatch");
-        Revision[] revisions = GSON.fromJson(content.getRevisions(), Revision[].class);
-        Preconditions.checkNotNull(revisions, "Revisions for Content: {} is null", contentId);
-        if (!Arrays.stream(revisions).anyMatch(revision -> Objects.equals(revision.getId(), revisionId))) {
-            throw new BadRequestException("Invalid revisionId: " + revisionId + " for content: " + contentId);
-        }
-
-        if (revisionId.equals(revisions[revisions.length - 1].getId())) {
-            revisions[revisions.length - 1].setContent(content.getText());
-            return revisions[revisions.length - 1];
-        }
-
-        String ret = content.getBaseText();
-        for (Revision revision : revisions) {
-            ret = contentDiffTool.applyDiff(ret, revision.getDiff());
-            if (revision.getId().equals(revisionId)) {
-                revision.setContent(ret);
-                return revision;
-            }
-        }
-        throw new IllegalStateException("Cannot reach here");
-    }
-
-    private void updateRevision(K content, String newText, String requester) {
-        String revisionsJson = content.getRevisions();
-        if (revisionsJson == null) {
-            revisionsJson = "[]";
-        }
-        LinkedList<Revision> revisionList = new LinkedList<>(
-                Arrays.asList(GSON.fromJson(revisionsJson, Revision[].class)));
-        int maxRevisionNumber = revisionConfig.getMaxRevisionNumber();
-        long nextRevisionId;
-        if (revisionList.isEmpty()) {
-            content.setBaseText(content.getText());
-            nextRevisionId = 1;
-        } else {
-            nextRevisionId = revisionList.getLast().getId() + 1;
-            if (revisionList.size() == maxRevisionNumber) {
-                String oldBaseText = content.getBaseText();
-                String diffToMerge = revisionList.pollFirst().getDiff();
-                content.setBaseText(contentDiffTool.applyDiff(oldBaseText, diffToMerge));
-            }
-        }
-        String diff = contentDiffTool.computeDiff(content.getText(), newText);
-        Revision newRevision = new Revision(nextRevisionId, diff, Instant.now().toEpochMilli(), new User(requester));
-        revisionList.offerLast(newRevision);
-        content.setRevisions(GSON.toJson(revisionList));
+        return this.contentRevisionDaoJpa.getRevision(projectItem.getContentType(), contentId, revisionId);
     }
 
     /**
@@ -281,6 +275,26 @@ public abstract class ProjectItemDaoJpa<K extends ContentModel> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get presentation models of contents for project item, with their revisions resolved by one query
+     *
+     * @param projectItemId the project item id
+     * @param requester     the username of action requester
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public <T extends ProjectItemModel> List<Content> getContentsWithRevisions(Long projectItemId, String requester) {
+        T projectItem = getProjectItem(projectItemId, requester);
+        List<K> contents = this.findContents(projectItem).stream()
+                .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt())).collect(Collectors.toList());
+        Map<Long, List<Revision>> revisions = this.contentRevisionDaoJpa.getRevisions(projectItem.getContentType(),
+                contents.stream().map(ContentModel::getId).collect(Collectors.toList()));
+        return contents.stream().map(c -> {
+            Content content = c.toPresentationModel();
+            content.setRevisions(revisions.getOrDefault(c.getId(), Collections.emptyList()).toArray(new Revision[0]));
+            return content;
+        }).collect(Collectors.toList());
+    }
+
     abstract <T extends ProjectItemModel> List<T> findRecentProjectItemsBetween(Timestamp startTime, Timestamp endTime, List projects);
 
     abstract List<Object[]> findRecentProjectItemContentsBetween(Timestamp startTime, Timestamp endTime, List projectIds);
@@ -0,0 +1,48 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * Table names of a project item type, for native queries shared by all item types
+ */
+class ProjectItemTables {
+
+    private static final Map<ContentType, ProjectItemTables> TABLES = ImmutableMap.of(
+            ContentType.TASK, new ProjectItemTables("tasks", "task_contents", "task_id"),
+            ContentType.NOTE, new ProjectItemTables("notes", "note_contents", "note_id"),
+            ContentType.TRANSACTION, new ProjectItemTables("transactions", "transaction_contents", "transaction_id"));
+
+    private final String itemTable;
+    private final String contentTable;
+    // column of content table referring to item
+    private final String itemColumn;
+
+    private ProjectItemTables(String itemTable, String contentTable, String itemColumn) {
+        this.itemTable = itemTable;
+        this.contentTable = contentTable;
+        this.itemColumn = itemColumn;
+    }
+
+    static ProjectItemTables of(ContentType type) {
+        ProjectItemTables tables = TABLES.get(type);
+        if (tables == null) {
+            throw new IllegalArgumentException("Invalid project item type: " + type);
+        }
+        return tables;
+    }
+
+    String getItemTable() {
+        return itemTable;
+    }
+
+    String getContentTable() {
+        return contentTable;
+    }
+
+    String getItemColumn() {
+        return itemColumn;
+    }
+}
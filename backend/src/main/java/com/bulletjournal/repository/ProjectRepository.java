@@ -2,6 +2,8 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.repository.models.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +13,11 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     List<Project> findByOwner(String owner);
 
     List<Project> findByNameAndOwner(String name, String owner);
+
+    /**
+     * @return [project id, project type, whether project is shared] of projects in the groups user has joined
+     */
+    @Query("SELECT project.id, project.type, project.shared FROM Project project, UserGroup userGroup "
+            + "WHERE userGroup.group = project.group AND userGroup.user.name = :username AND userGroup.accepted = true")
+    List<Object[]> findAccessibleProjects(@Param("username") String username);
 }
\ No newline at end of file
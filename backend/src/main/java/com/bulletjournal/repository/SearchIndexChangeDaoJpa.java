@@ -0,0 +1,190 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.es.repository.SearchIndexDaoJpa;
+import com.bulletjournal.es.repository.models.SearchIndex;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Outbox of search index documents: row triggers append to search_index_changes in the transaction changing a
+ * task, note, transaction or one of their contents, and the changes are turned into operations on the current state
+ * of the changed rows.
+ * <p>
+ * A change is removed once the documents it touches are indexed. A change whose documents fail stays in the outbox
+ * with its attempts counted, without holding back the other changes, and is moved to search_index_failed_changes
+ * once it runs out of attempts.
+ */
+@Repository
+public class SearchIndexChangeDaoJpa {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexChangeDaoJpa.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Turn the oldest changes into search index operations and remove the changes whose documents are indexed.
+     * If the indexer throws, all the changes are kept and retried.
+     *
+     * @param batchSize   the max number of changes to index
+     * @param maxAttempts the number of failures after which a change is given up
+     * @param indexer     sends operations to the search engine, returns failure reasons by document id
+     * @return the number of changes removed from the outbox, indexed or given up
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public int indexChanges(int batchSize, int maxAttempts,
+                            Function<List<SearchIndexOperation>, Map<String, String>> indexer) {
+        List<Object[]> changes = this.entityManager.createNativeQuery(
+                "SELECT id, type, item_id, content_id, attempts FROM search_index_changes ORDER BY id " +
+                        "LIMIT :batchSize FOR UPDATE SKIP LOCKED")
+                .setParameter("batchSize", batchSize)
+                .getResultList();
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        // document id touched by each change
+        Map<Long, String> changedDocuments = new LinkedHashMap<>();
+        Map<ContentType, Set<Long>> changedItems = new HashMap<>();
+        Map<ContentType, Set<Long>> changedContents = new HashMap<>();
+        for (Object[] change : changes) {
+            Long changeId = ((BigInteger) change[0]).longValue();
+            ContentType type = ContentType.valueOf((String) change[1]);
+            if (change[3] == null) {
+                Long itemId = ((BigInteger) change[2]).longValue();
+                changedItems.computeIfAbsent(type, k -> new HashSet<>()).add(itemId);
+                changedDocuments.put(changeId, SearchIndexDaoJpa.getProjectItemSearchIndexId(type, itemId));
+            } else {
+                Long contentId = ((BigInteger) change[3]).longValue();
+                changedContents.computeIfAbsent(type, k -> new HashSet<>()).add(contentId);
+                changedDocuments.put(changeId, SearchIndexDaoJpa.getContentSearchIndexId(type, contentId));
+            }
+        }
+
+        List<SearchIndexOperation> operations = new ArrayList<>();
+        changedItems.forEach((type, itemIds) -> operations.addAll(getItemOperations(type, itemIds)));
+        changedContents.forEach((type, contentIds) -> operations.addAll(getContentOperations(type, contentIds)));
+        Map<String, String> failed = new HashMap<>(indexer.apply(operations));
+        for (SearchIndexOperation operation : operations) {
+            // contents reindexed for an item change fail the item change as well
+            if (!operation.isDelete() && operation.getSearchIndex().getParentId() != null
+                    && failed.containsKey(operation.getId())) {
+                failed.putIfAbsent(operation.getSearchIndex().getParentId(), failed.get(operation.getId()));
+            }
+        }
+
+        List<Long> removedIds = new ArrayList<>();
+        List<Long> retriedIds = new ArrayList<>();
+        for (Object[] change : changes) {
+            Long changeId = ((BigInteger) change[0]).longValue();
+            String reason = failed.get(changedDocuments.get(changeId));
+            if (reason == null) {
+                removedIds.add(changeId);
+            } else if ((Integer) change[4] + 1 < maxAttempts) {
+                retriedIds.add(changeId);
+            } else {
+                LOGGER.error("Give up search index change {} of {}: {}", changeId, changedDocuments.get(changeId),
+                        reason);
+                this.entityManager.createNativeQuery(
+                        "INSERT INTO search_index_failed_changes (id, type, item_id, content_id, attempts, reason) " +
+                                "SELECT id, type, item_id, content_id, attempts + 1, :reason " +
+                                "FROM search_index_changes WHERE id = :id")
+                        .setParameter("reason", reason)
+                        .setParameter("id", changeId)
+                        .executeUpdate();
+                removedIds.add(changeId);
+            }
+        }
+
+        if (!retriedIds.isEmpty()) {
+            this.entityManager.createNativeQuery(
+                    "UPDATE search_index_changes SET attempts = attempts + 1 WHERE id IN (:ids)")
+                    .setParameter("ids", retriedIds)
+                    .executeUpdate();
+        }
+        if (!removedIds.isEmpty()) {
+            this.entityManager.createNativeQuery("DELETE FROM search_index_changes WHERE id IN (:ids)")
+                    .setParameter("ids", removedIds)
+                    .executeUpdate();
+        }
+        return removedIds.size();
+    }
+
+    /**
+     * An item change also reindexes its contents, which carry the item's project
+     */
+    private List<SearchIndexOperation> getItemOperations(ContentType type, Set<Long> itemIds) {
+        ProjectItemTables tables = ProjectItemTables.of(type);
+        List<Object[]> items = this.entityManager.createNativeQuery(String.format(
+                "SELECT id, name, project_id FROM %s WHERE id IN (:ids)", tables.getItemTable()))
+                .setParameter("ids", itemIds)
+                .getResultList();
+
+        List<SearchIndexOperation> operations = new ArrayList<>();
+        Set<Long> deletedItemIds = new HashSet<>(itemIds);
+        for (Object[] item : items) {
+            Long itemId = ((BigInteger) item[0]).longValue();
+            deletedItemIds.remove(itemId);
+            SearchIndex searchIndex = new SearchIndex();
+            searchIndex.setId(SearchIndexDaoJpa.getProjectItemSearchIndexId(type, itemId));
+            searchIndex.setType(SearchIndexDaoJpa.getProjectItemSearchIndexType(type));
+            searchIndex.setValue((String) item[1]);
+            searchIndex.setProjectId(((BigInteger) item[2]).longValue());
+            operations.add(SearchIndexOperation.upsert(searchIndex));
+        }
+        // contents of deleted items are deleted by their own changes
+        deletedItemIds.forEach(itemId -> operations.add(
+                SearchIndexOperation.delete(SearchIndexDaoJpa.getProjectItemSearchIndexId(type, itemId))));
+
+        if (deletedItemIds.size() < itemIds.size()) {
+            findContents(type, "c." + tables.getItemColumn() + " IN (:ids)", itemIds)
+                    .forEach(searchIndex -> operations.add(SearchIndexOperation.upsert(searchIndex)));
+        }
+        return operations;
+    }
+
+    private List<SearchIndexOperation> getContentOperations(ContentType type, Set<Long> contentIds) {
+        List<SearchIndexOperation> operations = new ArrayList<>();
+        Set<String> deletedIds = new HashSet<>();
+        contentIds.forEach(contentId -> deletedIds.add(SearchIndexDaoJpa.getContentSearchIndexId(type, contentId)));
+        for (SearchIndex searchIndex : findContents(type, "c.id IN (:ids)", contentIds)) {
+            deletedIds.remove(searchIndex.getId());
+            operations.add(SearchIndexOperation.upsert(searchIndex));
+        }
+        deletedIds.forEach(id -> operations.add(SearchIndexOperation.delete(id)));
+        return operations;
+    }
+
+    private List<SearchIndex> findContents(ContentType type, String condition, Set<Long> ids) {
+        ProjectItemTables tables = ProjectItemTables.of(type);
+        List<Object[]> contents = this.entityManager.createNativeQuery(String.format(
+                "SELECT c.id, c.text, c.%2$s, i.project_id FROM %1$s c JOIN %3$s i ON c.%2$s = i.id WHERE %4$s",
+                tables.getContentTable(), tables.getItemColumn(), tables.getItemTable(), condition))
+                .setParameter("ids", ids)
+                .getResultList();
+
+        List<SearchIndex> searchIndices = new ArrayList<>(contents.size());
+        for (Object[] content : contents) {
+            SearchIndex searchIndex = new SearchIndex();
+            searchIndex.setId(SearchIndexDaoJpa.getContentSearchIndexId(type, ((BigInteger) content[0]).longValue()));
+            searchIndex.setType(SearchIndexDaoJpa.getContentSearchIndexType(type));
+            searchIndex.setValue((String) content[1]);
+            searchIndex.setParentId(SearchIndexDaoJpa.getProjectItemSearchIndexId(
+                    type, ((BigInteger) content[2]).longValue()));
+            searchIndex.setProjectId(((BigInteger) content[3]).longValue());
+            searchIndices.add(searchIndex);
+        }
+        return searchIndices;
+    }
+}
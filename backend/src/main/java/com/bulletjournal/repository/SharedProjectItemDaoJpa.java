@@ -1,10 +1,13 @@
 package com.bulletjournal.repository;
 
+import com.bulletjournal.authz.ProjectAccessIndex;
 import com.bulletjournal.controller.models.ProjectItem;
 import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.ShareProjectItemEvent;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +40,12 @@ public class SharedProjectItemDaoJpa {
     @Autowired
     private GroupDaoJpa groupDaoJpa;
 
+    @Autowired
+    private EtagVersionVector etagVersionVector;
+
+    @Autowired
+    private ProjectAccessIndex projectAccessIndex;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public <T extends ProjectItem> List<T> getSharedProjectItems(
             String user, final ProjectType projectType) {
@@ -119,6 +128,7 @@ public class SharedProjectItemDaoJpa {
                     throw new IllegalArgumentException();
             }
             this.sharedProjectItemsRepository.save(sharedProjectItem);
+            this.projectAccessIndex.invalidateSharedItems(user);
             Event event = new Event(user, projectItem.getId(), projectItem.getName());
             events.add(event);
         }
@@ -141,6 +151,7 @@ public class SharedProjectItemDaoJpa {
 
         userConsumer.accept(project);
         this.userRepository.save(user);
+        this.etagVersionVector.bump(EtagType.OWNED_PROJECTS, user.getName());
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -167,5 +178,6 @@ public class SharedProjectItemDaoJpa {
                 .filter(item -> Objects.equals(item.getUsername(), user))
                 .findAny().orElseThrow(() -> new ResourceNotFoundException("User " + user + " not found"));
         this.sharedProjectItemsRepository.delete(sharedProjectItem);
+        this.projectAccessIndex.invalidateSharedItems(user);
     }
 }
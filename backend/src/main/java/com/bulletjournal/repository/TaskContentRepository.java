@@ -8,12 +8,15 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TaskContentRepository extends JpaRepository<TaskContent, Long> {
     List<TaskContent> findTaskContentByTask(Task task);
 
+    List<TaskContent> findTaskContentByTaskIn(Collection<Task> tasks);
+
     @Query("SELECT taskContent FROM TaskContent taskContent WHERE taskContent.updatedAt >= :startTime AND taskContent.updatedAt <= :endTime")
     List<TaskContent> findRecentTaskContentsBetween(@Param("startTime") Timestamp startTime,
                                                     @Param("endTime") Timestamp endTime);
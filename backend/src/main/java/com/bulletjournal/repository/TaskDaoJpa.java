@@ -6,30 +6,30 @@ import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.ProjectItemsGrouper;
 import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
-import com.bulletjournal.es.repository.SearchIndexDaoJpa;
+import com.bulletjournal.daemon.ReminderRecord;
+import com.bulletjournal.daemon.RemindingTaskRefreshEvent;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
-import com.bulletjournal.hierarchy.HierarchyItem;
-import com.bulletjournal.hierarchy.HierarchyProcessor;
-import com.bulletjournal.hierarchy.TaskRelationsProcessor;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.UpdateTaskAssigneeEvent;
+import com.bulletjournal.redis.EtagVersionVector;
+import com.bulletjournal.redis.models.EtagType;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.Task;
 import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
-import com.bulletjournal.util.BuJoRecurrenceRule;
+import com.bulletjournal.util.RecurrenceOccurrenceIndex;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.dmfs.rfc5545.DateTime;
 import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
-import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -40,11 +40,10 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -54,12 +53,13 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskDaoJpa.class);
     private static final Gson GSON = new Gson();
     private static final int REMINDING_TASK_BUFFER_IN_MINS = 10;
+    private static final int RECURRING_REMINDER_LOOKAHEAD_IN_DAYS = 7;
 
     private static final Gson GSON_ALLOW_EXPOSE_ONLY = new GsonBuilder().excludeFieldsWithoutExposeAnnotation()
             .create();
 
-    @PersistenceContext
-    EntityManager entityManager;
+    @Autowired
+    private ProjectItemChangeDaoJpa projectItemChangeDaoJpa;
 
     @Autowired
     private TaskRepository taskRepository;
@@ -68,7 +68,7 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     private ProjectDaoJpa projectDaoJpa;
 
     @Autowired
-    private ProjectTasksRepository projectTasksRepository;
+    private HierarchyDaoJpa hierarchyDaoJpa;
 
     @Autowired
     private AuthorizationService authorizationService;
@@ -86,7 +86,13 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     private LabelDaoJpa labelDaoJpa;
 
     @Autowired
-    private SearchIndexDaoJpa searchIndexDaoJpa;
+    private RecurrenceOccurrenceIndex recurrenceOccurrenceIndex;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private EtagVersionVector etagVersionVector;
 
     @Override
     public JpaRepository getJpaRepository() {
@@ -109,15 +115,24 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
             return this.sharedProjectItemDaoJpa.getSharedProjectItems(requester, ProjectType.TODO);
         }
 
-        Optional<ProjectTasks> projectTasksOptional = this.projectTasksRepository.findById(projectId);
-        if (!projectTasksOptional.isPresent()) {
-            return Collections.emptyList();
-        }
-        ProjectTasks projectTasks = projectTasksOptional.get();
         final Map<Long, Task> tasksMap = this.taskRepository.findTaskByProject(project).stream()
                 .collect(Collectors.toMap(Task::getId, n -> n));
-        return TaskRelationsProcessor.processRelations(tasksMap, projectTasks.getTasks()).stream()
-                .map(task -> addLabels(task, tasksMap)).collect(Collectors.toList());
+        // tasks at all levels, to resolve their labels at once
+        List<com.bulletjournal.controller.models.Task> allTasks = new ArrayList<>();
+        List<com.bulletjournal.controller.models.Task> tasks = this.hierarchyDaoJpa.getItems(ContentType.TASK,
+                projectId, (Long id, List<com.bulletjournal.controller.models.Task> subTasks) -> {
+                    Task task = tasksMap.get(id);
+                    if (task == null) {
+                        return null;
+                    }
+                    com.bulletjournal.controller.models.Task result = new com.bulletjournal.controller.models.Task();
+                    result.clone(task.toPresentationModel());
+                    result.setSubTasks(subTasks);
+                    allTasks.add(result);
+                    return result;
+                });
+        resolveLabels(allTasks);
+        return tasks;
     }
 
     /**
@@ -141,10 +156,7 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
 
         List<Task> tasks = this.taskRepository.findTasksByAssigneeAndProject(assignee, projectId);
         tasks.sort(ProjectItemsGrouper.TASK_COMPARATOR);
-        return tasks.stream().map(t -> {
-            List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(t);
-            return t.toPresentationModel(labels);
-        }).collect(Collectors.toList());
+        return toPresentationModels(tasks);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -167,34 +179,14 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         }
 
         tasks.sort(ProjectItemsGrouper.TASK_COMPARATOR);
-        return tasks.stream().map(t -> {
-            List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(t);
-            return t.toPresentationModel(labels);
-        }).collect(Collectors.toList());
-    }
-
-    /**
-     * Apply labels to tasks
-     *
-     * @param task     the task object
-     * @param tasksMap the Map object mapping relationship between TaskId and Task
-     *                 Instance
-     * @return com.bulletjournal.controller.models.Task - task instance with labels
-     */
-    private com.bulletjournal.controller.models.Task addLabels(com.bulletjournal.controller.models.Task task,
-                                                               Map<Long, Task> tasksMap) {
-        List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(tasksMap.get(task.getId()));
-        task.setLabels(labels);
-        for (com.bulletjournal.controller.models.Task subTask : task.getSubTasks()) {
-            addLabels(subTask, tasksMap);
-        }
-        return task;
+        return toPresentationModels(tasks);
     }
 
     public Pair<Task, List<Event>> setTaskStatus(TaskStatus taskStatus, Long taskId, String requester) {
         Task task = this.getProjectItem(taskId, requester);
         task.setStatus(taskStatus.getValue());
         this.taskRepository.save(task);
+        this.etagVersionVector.bump(EtagType.TASKS, task.getProject().getId());
         return Pair.of(task, generateEvents(task, requester, task.getProject()));
     }
 
@@ -232,35 +224,121 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     }
 
     /**
-     * Get assignee's reminding tasks and recurring reminding tasks from database.
+     * Get reminders of all assignees that fire before the given time.
      * <p>
-     * Reminding tasks qualifications: 1. Reminding Time is before current time. 2.
-     * Starting time plus 10 minutes buffer is after the current time.
+     * Reminder qualifications: 1. Regular task: [Reminding Time] <= Now <= [Starting Time + 10 mins] 2. Occurrence
+     * of recurring task: [Reminding Time] <= Now < [Starting Time] and Now >= [Starting Time - 2 hours]
      * <p>
-     * [Reminding Time] <= Now <= [Starting Time + 10 mins]
+     * Recurring tasks are only loaded once their stored next reminding time is before the given time, or after an
+     * update of their recurrence or reminder setting cleared it.
      *
-     * @param assignee the username of task assignee
-     * @param now      the ZonedDateTime object of the current time
-     * @return List<com.bulletjournal.controller.models.Task> - a list of tasks to
-     * be reminded
+     * @param now   the ZonedDateTime object of the current time
+     * @param until the ZonedDateTime object of the latest reminding time
+     * @return List<ReminderRecord> - a list of reminders
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public List<com.bulletjournal.controller.models.Task> getRemindingTasks(String assignee, ZonedDateTime now) {
-        Timestamp currentTime = Timestamp.from(now.toInstant());
+    public List<ReminderRecord> getReminderRecords(ZonedDateTime now, ZonedDateTime until) {
         // Subtract current time by 10 minutes to compare with task's starting time
         Timestamp startTime = Timestamp.from(now.minusMinutes(REMINDING_TASK_BUFFER_IN_MINS).toInstant());
+        Timestamp untilTime = Timestamp.from(until.toInstant());
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        this.taskRepository.findRemindingTasks(untilTime.toString(), startTime.toString())
+                .forEach(t -> tasks.put(t.getId(), t));
+        List<Task> recurrentTasks = this.taskRepository.findRecurringRemindingTasks(untilTime.toString(),
+                Before.NONE.getValue());
+        recurrentTasks.forEach(t -> tasks.put(t.getId(), t));
+        List<ReminderRecord> records = toReminderRecords(new ArrayList<>(tasks.values()), now, until);
+        updateNextRemindingTimes(recurrentTasks, now);
+        return records;
+    }
 
-        // Fetch regular reminding tasks
-        List<com.bulletjournal.controller.models.Task> regularTasks = this.taskRepository
-                .findRemindingTasks(assignee, currentTime.toString(), startTime.toString()).stream()
-                .map(t -> t.toPresentationModel()).collect(Collectors.toList());
+    /**
+     * Store the earliest time a reminder of each recurring task can fire after now, so that later scans skip the
+     * task until then. It is a lower bound: occurrences beyond the lookahead fire at most
+     * {@link ZonedDateTimeHelper#MAX_HOURS_BEFORE} hours before they start. Tasks updated since they were loaded
+     * are left alone, their next reminding time was reset by the update.
+     */
+    private void updateNextRemindingTimes(List<Task> recurrentTasks, ZonedDateTime now) {
+        Timestamp currentTime = ZonedDateTimeHelper.getTimestamp(now);
+        ZonedDateTime lookahead = now.plusDays(RECURRING_REMINDER_LOOKAHEAD_IN_DAYS);
+        long latest = lookahead.minusHours(ZonedDateTimeHelper.MAX_HOURS_BEFORE).toInstant().toEpochMilli();
+        Map<Long, Long> nextRemindingTimes = new HashMap<>();
+        recurrentTasks.forEach(t -> nextRemindingTimes.put(t.getId(), latest));
+        for (Task t : expandRecurringTasks(recurrentTasks, now, lookahead)) {
+            if (t.getReminderDateTime() != null && t.getStartTime().after(currentTime)) {
+                nextRemindingTimes.merge(t.getId(), getOccurrenceFireTime(t), Math::min);
+            }
+        }
+        for (Task t : recurrentTasks) {
+            this.taskRepository.updateNextRemindingTime(t.getId(), t.getUpdatedAt(),
+                    new Timestamp(nextRemindingTimes.get(t.getId())));
+        }
+    }
 
-        // Fetch recurring reminding tasks
-        List<com.bulletjournal.controller.models.Task> recurringTask = getRecurringTaskNeedReminding(assignee, now);
+    /**
+     * Occurrences are only reminded within {@link ZonedDateTimeHelper#MAX_HOURS_BEFORE} hours before they start
+     */
+    private static long getOccurrenceFireTime(Task occurrence) {
+        return Math.max(occurrence.getReminderDateTime().getTime(), occurrence.getStartTime().getTime()
+                - TimeUnit.HOURS.toMillis(ZonedDateTimeHelper.MAX_HOURS_BEFORE));
+    }
 
-        // Append recurring reminding tasks to regular reminding tasks
-        regularTasks.addAll(recurringTask);
-        return this.labelDaoJpa.getLabelsForProjectItemList(regularTasks);
+    /**
+     * Get reminders of the given tasks that fire before the given time.
+     *
+     * @param taskIds the task ids
+     * @param now     the ZonedDateTime object of the current time
+     * @param until   the ZonedDateTime object of the latest reminding time
+     * @return List<ReminderRecord> - a list of reminders
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<ReminderRecord> getReminderRecords(Collection<Long> taskIds, ZonedDateTime now,
+                                                   ZonedDateTime until) {
+        return toReminderRecords(this.taskRepository.findAllById(taskIds), now, until);
+    }
+
+    private List<ReminderRecord> toReminderRecords(List<Task> tasks, ZonedDateTime now, ZonedDateTime until) {
+        Timestamp currentTime = ZonedDateTimeHelper.getTimestamp(now);
+        Timestamp untilTime = ZonedDateTimeHelper.getTimestamp(until);
+        Timestamp startTime = Timestamp.from(now.minusMinutes(REMINDING_TASK_BUFFER_IN_MINS).toInstant());
+
+        List<Task> remindingTasks = new ArrayList<>();
+        List<Long> fireTimes = new ArrayList<>();
+        List<Long> expireTimes = new ArrayList<>();
+        for (Task t : tasks) {
+            if (t.getStartTime() != null && t.getReminderDateTime() != null
+                    && !t.getStartTime().before(startTime) && !t.getReminderDateTime().after(untilTime)) {
+                remindingTasks.add(t);
+                fireTimes.add(t.getReminderDateTime().getTime());
+                expireTimes.add(t.getStartTime().getTime()
+                        + TimeUnit.MINUTES.toMillis(REMINDING_TASK_BUFFER_IN_MINS));
+            }
+        }
+
+        List<Task> recurrentTasks = tasks.stream().filter(t -> t.getRecurrenceRule() != null)
+                .collect(Collectors.toList());
+        ZonedDateTime maxRemindingTime = until.plusHours(ZonedDateTimeHelper.MAX_HOURS_BEFORE);
+        for (Task t : expandRecurringTasks(recurrentTasks, now, maxRemindingTime)) {
+            if (t.getReminderDateTime() == null || !t.getStartTime().after(currentTime)) {
+                continue;
+            }
+            long fireTime = getOccurrenceFireTime(t);
+            if (fireTime > untilTime.getTime()) {
+                continue;
+            }
+            remindingTasks.add(t);
+            fireTimes.add(fireTime);
+            expireTimes.add(t.getStartTime().getTime());
+        }
+
+        List<com.bulletjournal.controller.models.Task> presentations = toPresentationModels(remindingTasks);
+        List<ReminderRecord> records = new ArrayList<>();
+        for (int i = 0; i < remindingTasks.size(); i++) {
+            Task t = remindingTasks.get(i);
+            records.add(new ReminderRecord(t.getId(), t.getAssignees(), fireTimes.get(i), expireTimes.get(i),
+                    presentations.get(i)));
+        }
+        return records;
     }
 
     /**
@@ -282,33 +360,13 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         return tasks;
     }
 
-    /**
-     * Get recurring reminding tasks from database.
-     * <p>
-     * Reminding tasks qualifications: 1. Reminding Time is before current time. 2.
-     * Starting time is after the current time.
-     *
-     * @param assignee the username of task assignee
-     * @param now      the ZonedDateTime object of the current time
-     * @return List<com.bulletjournal.controller.models.Task> - a list of tasks
-     */
-    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public List<com.bulletjournal.controller.models.Task> getRecurringTaskNeedReminding(final String assignee,
-                                                                                        final ZonedDateTime now) {
-        ZonedDateTime maxRemindingTime = now.plusHours(ZonedDateTimeHelper.MAX_HOURS_BEFORE);
-        return this.getRecurringTasks(assignee, now, maxRemindingTime).stream()
-                .filter(t -> t.getReminderDateTime().before(ZonedDateTimeHelper.getTimestamp(now))
-                        && t.getStartTime().after(ZonedDateTimeHelper.getTimestamp(now)))
-                .map(t -> t.toPresentationModel()).collect(Collectors.toList());
-    }
-
     /**
      * Get all recurrent tasks of an assignee within requested start time and end
      * time
      * <p>
-     * Procedure: 1. Fetch all tasks with recurrence rule 2. Obtain new DateTime
-     * instance by using RecurrenceRule iterator 3. Clone the original recurring
-     * task and set its start/end time and reminding setting
+     * Procedure: 1. Fetch all tasks with recurrence rule 2. Look up occurrences within the time range
+     * from RecurrenceOccurrenceIndex 3. Clone the original recurring task and set its start/end time and
+     * reminding setting
      *
      * @param assignee  the username of task assignee
      * @param startTime the ZonedDateTime object of start time
@@ -317,8 +375,13 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public List<Task> getRecurringTasks(String assignee, ZonedDateTime startTime, ZonedDateTime endTime) {
-        List<Task> recurringTasksBetween = new ArrayList<>();
         List<Task> recurrentTasks = this.taskRepository.findTasksByAssigneeAndRecurrenceRuleNotNull(assignee);
+        return expandRecurringTasks(recurrentTasks, startTime, endTime);
+    }
+
+    private List<Task> expandRecurringTasks(List<Task> recurrentTasks, ZonedDateTime startTime,
+                                            ZonedDateTime endTime) {
+        List<Task> recurringTasksBetween = new ArrayList<>();
         DateTime startDateTime = ZonedDateTimeHelper.getDateTime(startTime);
         DateTime endDateTime = ZonedDateTimeHelper.getDateTime(endTime);
 
@@ -327,14 +390,10 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
                 String recurrenceRule = t.getRecurrenceRule();
                 String timezone = t.getTimezone();
                 Set<String> completedSlots = ZonedDateTimeHelper.parseDateTimeSet(t.getCompletedSlots());
-                BuJoRecurrenceRule rule = new BuJoRecurrenceRule(recurrenceRule, timezone);
-                RecurrenceRuleIterator it = rule.getIterator();
-                while (it.hasNext()) {
-                    DateTime currDateTime = it.nextDateTime();
-                    if (currDateTime.after(endDateTime)) {
-                        break;
-                    }
-                    if (currDateTime.before(startDateTime) || completedSlots.contains(currDateTime.toString())) {
+                List<DateTime> occurrences = this.recurrenceOccurrenceIndex.getOccurrencesBetween(
+                        t.getId(), recurrenceRule, timezone, startDateTime, endDateTime);
+                for (DateTime currDateTime : occurrences) {
+                    if (completedSlots.contains(currDateTime.toString())) {
                         continue;
                     }
                     Task cloned = (Task) t.clone();
@@ -399,13 +458,11 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
                 createTaskParams.getRecurrenceRule(), createTaskParams.getReminderSetting());
         task.setReminderSetting(reminderSetting);
         task = this.taskRepository.save(task);
+        this.recurrenceOccurrenceIndex.refresh(task.getId(), task.getRecurrenceRule(), task.getTimezone());
+        refreshReminders(Collections.singletonList(task.getId()));
 
-        final ProjectTasks projectTasks = this.projectTasksRepository.findById(projectId).orElseGet(ProjectTasks::new);
-
-        String newRelations = HierarchyProcessor.addItem(projectTasks.getTasks(), task.getId());
-        projectTasks.setProjectId(projectId);
-        projectTasks.setTasks(newRelations);
-        this.projectTasksRepository.save(projectTasks);
+        this.hierarchyDaoJpa.addItem(ContentType.TASK, projectId, task.getId());
+        this.etagVersionVector.bump(EtagType.TASKS, projectId);
         return task;
     }
 
@@ -435,6 +492,9 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
             return;
         }
         taskRepository.delete(task.get());
+        this.recurrenceOccurrenceIndex.invalidate(task.get().getId());
+        refreshReminders(Collections.singletonList(task.get().getId()));
+        this.etagVersionVector.bump(EtagType.TASKS, task.get().getProject().getId());
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -507,7 +567,20 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
             task.setLabels(updateTaskParams.getLabels());
         }
 
-        return this.taskRepository.save(task);
+        task = this.taskRepository.save(task);
+        this.recurrenceOccurrenceIndex.refresh(task.getId(), task.getRecurrenceRule(), task.getTimezone());
+        refreshReminders(Collections.singletonList(task.getId()));
+        this.etagVersionVector.bump(EtagType.TASKS, task.getProject().getId());
+        return task;
+    }
+
+    /**
+     * Reschedule reminders of tasks once the current transaction commits
+     *
+     * @param taskIds the ids of created, updated, completed or deleted tasks
+     */
+    private void refreshReminders(Collection<Long> taskIds) {
+        this.applicationEventPublisher.publishEvent(new RemindingTaskRefreshEvent(taskIds));
     }
 
     /**
@@ -599,8 +672,10 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
                 }
             });
             this.taskRepository.deleteAll(targetTasks);
-        }, (target) -> {
-        });
+            List<Long> targetTaskIds = targetTasks.stream().map(Task::getId).collect(Collectors.toList());
+            this.recurrenceOccurrenceIndex.invalidate(targetTaskIds);
+            refreshReminders(targetTaskIds);
+        }, null);
 
         CompletedTask completedTask = new CompletedTask(task, contents);
         this.completedTaskRepository.save(completedTask);
@@ -628,6 +703,8 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         task.setCompletedSlots(task.getCompletedSlots() == null ? dateTime.toString()
                 : task.getCompletedSlots() + "," + dateTime.toString());
         this.taskRepository.save(task);
+        refreshReminders(Collections.singletonList(task.getId()));
+        this.etagVersionVector.bump(EtagType.TASKS, task.getProject().getId());
 
         CompletedTask completedTask = new CompletedTask(task, contents);
         completedTask.setRecurrenceRule(null);
@@ -638,6 +715,68 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         return completedTask;
     }
 
+    /**
+     * Set tasks to complete in one pass
+     * <p>
+     * Tasks and their contents are loaded with one query each, the hierarchy of each project is rewritten once and
+     * completed tasks, including sub tasks of the targets, are inserted in JDBC batches.
+     *
+     * @param requester the username of action requester
+     * @param taskIds   the task ids, tasks that do not exist are skipped
+     * @return Map<Long, CompletedTask> - completed target tasks without their sub tasks, keyed by task id
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Map<Long, CompletedTask> complete(String requester, List<Long> taskIds) {
+        List<Task> tasks = this.taskRepository.findAllById(taskIds);
+        Map<Long, Task> targetTasks = new LinkedHashMap<>();
+        Map<Long, List<Long>> tasksByProject = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            Project project = task.getProject();
+            this.authorizationService.validateRequesterInProjectGroup(requester, task);
+            this.authorizationService.checkAuthorizedToOperateOnContent(task.getOwner(), requester, ContentType.TASK,
+                    Operation.UPDATE, project.getId(), project.getOwner());
+            this.authorizationService.checkAuthorizedToOperateOnContent(task.getOwner(), requester, ContentType.TASK,
+                    Operation.DELETE, project.getId(), project.getOwner());
+            targetTasks.put(task.getId(), task);
+            tasksByProject.computeIfAbsent(project.getId(), k -> new ArrayList<>()).add(task.getId());
+        }
+
+        // sub tasks are completed along with their parents
+        Set<Long> targetTaskIds = new LinkedHashSet<>();
+        tasksByProject.forEach((projectId, ids) -> ids.forEach(id -> {
+            if (!targetTaskIds.contains(id)) {
+                targetTaskIds.addAll(this.hierarchyDaoJpa.getSubItems(ContentType.TASK, projectId, id));
+            }
+        }));
+        List<Long> subTaskIds = targetTaskIds.stream().filter(id -> !targetTasks.containsKey(id))
+                .collect(Collectors.toList());
+        if (!subTaskIds.isEmpty()) {
+            this.taskRepository.findAllById(subTaskIds).forEach(t -> targetTasks.put(t.getId(), t));
+        }
+
+        Map<Long, List<TaskContent>> contents = this.taskContentRepository
+                .findTaskContentByTaskIn(targetTasks.values()).stream()
+                .collect(Collectors.groupingBy(c -> c.getTask().getId()));
+        Map<Long, CompletedTask> completedTasks = new LinkedHashMap<>();
+        targetTasks.values().forEach(t -> completedTasks.put(t.getId(), new CompletedTask(t,
+                GSON_ALLOW_EXPOSE_ONLY.toJson(contents.getOrDefault(t.getId(), Collections.emptyList()).stream()
+                        .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt()))
+                        .collect(Collectors.toList())))));
+        this.completedTaskRepository.saveAll(completedTasks.values());
+        this.taskRepository.deleteAll(targetTasks.values());
+
+        tasksByProject.forEach((projectId, ids) -> {
+            this.hierarchyDaoJpa.removeItems(ContentType.TASK, projectId, ids);
+            this.etagVersionVector.bump(EtagType.TASKS, projectId);
+        });
+        List<Long> completedTaskIds = new ArrayList<>(targetTasks.keySet());
+        this.recurrenceOccurrenceIndex.invalidate(completedTaskIds);
+        refreshReminders(completedTaskIds);
+
+        completedTasks.keySet().retainAll(tasks.stream().map(Task::getId).collect(Collectors.toSet()));
+        return completedTasks;
+    }
+
     /**
      * Update sub tasks relation
      *
@@ -646,13 +785,9 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void updateUserTasks(Long projectId, List<com.bulletjournal.controller.models.Task> tasks) {
-        Optional<ProjectTasks> projectTasksOptional = this.projectTasksRepository.findById(projectId);
-        final ProjectTasks projectTasks = projectTasksOptional.orElseGet(ProjectTasks::new);
-
-        projectTasks.setTasks(TaskRelationsProcessor.processRelations(tasks));
-        projectTasks.setProjectId(projectId);
-
-        this.projectTasksRepository.save(projectTasks);
+        this.hierarchyDaoJpa.updateItems(ContentType.TASK, projectId, tasks,
+                com.bulletjournal.controller.models.Task::getId, com.bulletjournal.controller.models.Task::getSubTasks);
+        this.etagVersionVector.bump(EtagType.TASKS, projectId);
     }
 
     /**
@@ -666,9 +801,12 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     public Pair<List<Event>, Task> deleteTask(String requester, Long taskId) {
         Task task = this.getProjectItem(taskId, requester);
 
-        Project project = deleteTaskAndAdjustRelations(requester, task,
-                (targetTasks) -> this.taskRepository.deleteAll(targetTasks), (target) -> {
-                });
+        Project project = deleteTaskAndAdjustRelations(requester, task, (targetTasks) -> {
+            this.taskRepository.deleteAll(targetTasks);
+            List<Long> targetTaskIds = targetTasks.stream().map(Task::getId).collect(Collectors.toList());
+            this.recurrenceOccurrenceIndex.invalidate(targetTaskIds);
+            refreshReminders(targetTaskIds);
+        }, null);
 
         return Pair.of(generateEvents(task, requester, project), task);
     }
@@ -680,34 +818,29 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      * @param task                the task object gets deleted
      * @param targetTasksOperator Consumer class or Lambda function operates upon
      *                            target tasks list
-     * @param targetOperator      Consumer class or Lambda function operates upon
-     *                            target HierarchyItem
+     * @param targetProject       the project where the task and its sub tasks move to,
+     *                            null if they are deleted
      * @retVal Project
      */
     private Project deleteTaskAndAdjustRelations(String requester, Task task, Consumer<List<Task>> targetTasksOperator,
-                                                 Consumer<HierarchyItem> targetOperator) {
+                                                 Long targetProject) {
         Project project = task.getProject();
         Long projectId = project.getId();
         this.authorizationService.checkAuthorizedToOperateOnContent(task.getOwner(), requester, ContentType.TASK,
                 Operation.DELETE, projectId, project.getOwner());
 
-        ProjectTasks projectTasks = this.projectTasksRepository.findById(projectId)
-                .orElseThrow(() -> new ResourceNotFoundException("ProjectTasks by " + projectId + " not found"));
-
-        String relations = projectTasks.getTasks();
-
         // delete tasks and its subTasks
         List<Task> targetTasks = this.taskRepository
-                .findAllById(HierarchyProcessor.getSubItems(relations, task.getId()));
+                .findAllById(this.hierarchyDaoJpa.getSubItems(ContentType.TASK, projectId, task.getId()));
         targetTasksOperator.accept(targetTasks);
 
         // Update task relations
-        HierarchyItem[] target = new HierarchyItem[1];
-        List<HierarchyItem> hierarchy = HierarchyProcessor.removeTargetItem(relations, task.getId(), target);
-        targetOperator.accept(target[0]);
-
-        projectTasks.setTasks(GSON.toJson(hierarchy));
-        this.projectTasksRepository.save(projectTasks);
+        if (targetProject == null) {
+            this.hierarchyDaoJpa.removeItem(ContentType.TASK, projectId, task.getId());
+        } else {
+            this.hierarchyDaoJpa.moveItem(ContentType.TASK, projectId, task.getId(), targetProject);
+        }
+        this.etagVersionVector.bump(EtagType.TASKS, projectId);
 
         return project;
     }
@@ -857,17 +990,14 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         this.authorizationService.checkAuthorizedToOperateOnContent(task.getOwner(), requester, ContentType.TASK,
                 Operation.UPDATE, project.getId(), project.getOwner());
 
-        deleteTaskAndAdjustRelations(requester, task, (targetTasks) -> targetTasks.forEach((t) -> {
-            t.setProject(project);
-            this.taskRepository.save(t);
-        }), (target) -> {
-            final ProjectTasks projectTasks = this.projectTasksRepository.findById(targetProject)
-                    .orElseGet(ProjectTasks::new);
-            String newRelations = HierarchyProcessor.addItem(projectTasks.getTasks(), target);
-            projectTasks.setTasks(newRelations);
-            projectTasks.setProjectId(targetProject);
-            this.projectTasksRepository.save(projectTasks);
-        });
+        deleteTaskAndAdjustRelations(requester, task, (targetTasks) -> {
+            targetTasks.forEach((t) -> {
+                t.setProject(project);
+                this.taskRepository.save(t);
+            });
+            refreshReminders(targetTasks.stream().map(Task::getId).collect(Collectors.toList()));
+        }, targetProject);
+        this.etagVersionVector.bump(EtagType.TASKS, targetProject);
 
         return Pair.of(task, project);
     }
@@ -919,44 +1049,6 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
 
     @Override
     public List<Object[]> findRecentProjectItemContentsBetween(Timestamp startTime, Timestamp endTime, List projectIds) {
-        StringBuilder queryBuilder = new StringBuilder(
-                "SELECT tasks_join_task_contents.id, tasks_join_task_contents.most_recent_time " +
-                        "FROM tasks_join_task_contents " +
-                        "WHERE tasks_join_task_contents.most_recent_time >= ? " +
-                        "AND tasks_join_task_contents.most_recent_time <= ? " +
-                        "AND tasks_join_task_contents.project_id IN (");
-        projectIds.stream().forEach(pi -> queryBuilder.append(pi).append(","));
-        int tail = queryBuilder.length() - 1;
-        if (queryBuilder.charAt(tail) == ',') {
-            queryBuilder.deleteCharAt(tail);
-        }
-        queryBuilder.append(")");
-
-        return entityManager.createNativeQuery(queryBuilder.toString())
-                .setParameter(1, startTime)
-                .setParameter(2, endTime)
-                .getResultList();
-    }
-
-
-    public List<String> getDeleteESDocumentIdsForProjectItem(String requester, Long taskId) {
-        List<String> deleteESDocumentIds = new ArrayList<>();
-        Task task = this.getProjectItem(taskId, requester);
-
-        deleteESDocumentIds.add(this.searchIndexDaoJpa.getProjectItemSearchIndexId(task));
-        List<TaskContent> taskContents = findContents(task);
-        for (TaskContent content : taskContents) {
-            deleteESDocumentIds.add(this.searchIndexDaoJpa.getContentSearchIndexId(content));
-        }
-
-        return deleteESDocumentIds;
-    }
-
-    public List<String> getDeleteESDocumentIdsForContent(String requester, Long contentId) {
-        List<String> deleteESDocumentIds = new ArrayList<>();
-        TaskContent content = this.getContent(contentId, requester);
-        deleteESDocumentIds.add(this.searchIndexDaoJpa.getContentSearchIndexId(content));
-
-        return deleteESDocumentIds;
+        return this.projectItemChangeDaoJpa.findRecentItemsBetween(ContentType.TASK, startTime, endTime, projectIds);
     }
 }
\ No newline at end of file
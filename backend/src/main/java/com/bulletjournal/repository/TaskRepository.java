@@ -3,6 +3,7 @@ package com.bulletjournal.repository;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.Task;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -27,10 +28,19 @@ public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositor
 
     Optional<Task> findTaskByGoogleCalendarEventId(String googleCalendarEventId);
 
-    @Query(value = "SELECT * FROM tasks WHERE :assignee = ANY(tasks.assignees) AND tasks.start_time IS NOT NULL AND tasks.reminder_date_time IS NOT NULL"
-            + " AND tasks.start_time >= to_timestamp(:start, 'YYYY-MM-DD HH24:MI:SS') AND tasks.reminder_date_time <= to_timestamp(:now, 'YYYY-MM-DD HH24:MI:SS')", nativeQuery = true)
-    List<Task> findRemindingTasks(@Param("assignee") String assignee, @Param("now") String now,
-                                  @Param("start") String start);
+    @Query(value = "SELECT * FROM tasks WHERE tasks.recurrence_rule IS NOT NULL"
+            + " AND (tasks.reminder_before_task IS NULL OR tasks.reminder_before_task <> :none)"
+            + " AND (tasks.next_reminding_time IS NULL OR tasks.next_reminding_time <= to_timestamp(:until, 'YYYY-MM-DD HH24:MI:SS'))", nativeQuery = true)
+    List<Task> findRecurringRemindingTasks(@Param("until") String until, @Param("none") Integer none);
+
+    @Modifying
+    @Query(value = "UPDATE tasks SET next_reminding_time = :nextRemindingTime WHERE tasks.id = :id AND tasks.updated_at = :updatedAt", nativeQuery = true)
+    void updateNextRemindingTime(@Param("id") Long id, @Param("updatedAt") Timestamp updatedAt,
+                                 @Param("nextRemindingTime") Timestamp nextRemindingTime);
+
+    @Query(value = "SELECT * FROM tasks WHERE tasks.start_time IS NOT NULL AND tasks.reminder_date_time IS NOT NULL"
+            + " AND tasks.start_time >= to_timestamp(:start, 'YYYY-MM-DD HH24:MI:SS') AND tasks.reminder_date_time <= to_timestamp(:until, 'YYYY-MM-DD HH24:MI:SS')", nativeQuery = true)
+    List<Task> findRemindingTasks(@Param("until") String until, @Param("start") String start);
 
     @Query(value = "SELECT * FROM tasks WHERE :assignee = ANY(tasks.assignees) AND tasks.start_time IS NOT NULL AND "
             + "tasks.end_time IS NOT NULL AND "
@@ -9,7 +9,6 @@ import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.controller.models.UpdateTransactionParams;
 import com.bulletjournal.controller.utils.ProjectItemsGrouper;
 import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
-import com.bulletjournal.es.repository.SearchIndexDaoJpa;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.ledger.TransactionType;
 import com.bulletjournal.notifications.Event;
@@ -22,8 +21,6 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -35,8 +32,8 @@ import java.util.stream.Collectors;
 @Repository
 public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
 
-    @PersistenceContext
-    EntityManager entityManager;
+    @Autowired
+    private ProjectItemChangeDaoJpa projectItemChangeDaoJpa;
     @Autowired
     private TransactionRepository transactionRepository;
     @Autowired
@@ -45,9 +42,6 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
     private AuthorizationService authorizationService;
     @Autowired
     private TransactionContentRepository transactionContentRepository;
-    @Autowired
-    private SearchIndexDaoJpa searchIndexDaoJpa;
-
     @Override
     public JpaRepository getJpaRepository() {
         return transactionRepository;
@@ -69,11 +63,12 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
             ZonedDateTime startTime, ZonedDateTime endTime, String requester) {
         Project project = this.projectDaoJpa.getProject(projectId, requester);
 
-        return this.transactionRepository
+        List<Transaction> transactions = this.transactionRepository
                 .findTransactionsByProjectBetween(project, Timestamp.from(startTime.toInstant()),
                         Timestamp.from(endTime.toInstant()))
                 .stream().sorted((a, b) -> b.getStartTime().compareTo(a.getStartTime()))
-                .map(transaction -> addLabels(transaction)).collect(Collectors.toList());
+                .collect(Collectors.toList());
+        return toPresentationModels(transactions);
     }
 
     /**
@@ -152,10 +147,7 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
         List<Transaction> transactions = this.transactionRepository.findTransactionsInProjectByPayerBetween(payer,
                 project, Timestamp.from(startTime.toInstant()), Timestamp.from(endTime.toInstant()));
         transactions.sort(ProjectItemsGrouper.TRANSACTION_COMPARATOR);
-        return transactions.stream().map(t -> {
-            List<com.bulletjournal.controller.models.Label> labels = getLabelsToProjectItem(t);
-            return t.toPresentationModel(labels);
-        }).collect(Collectors.toList());
+        return toPresentationModels(transactions);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -293,42 +285,6 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
 
     @Override
     public List<Object[]> findRecentProjectItemContentsBetween(Timestamp startTime, Timestamp endTime, List projectIds) {
-        StringBuilder queryBuilder = new StringBuilder(
-                "SELECT transactions_join_transaction_contents.id, transactions_join_transaction_contents.most_recent_time " +
-                        "FROM transactions_join_transaction_contents " +
-                        "WHERE transactions_join_transaction_contents.most_recent_time >= ? " +
-                        "AND transactions_join_transaction_contents.most_recent_time <= ? " +
-                        "AND transactions_join_transaction_contents.project_id IN (");
-        projectIds.stream().forEach(pi -> queryBuilder.append(pi).append(","));
-        int tail = queryBuilder.length() - 1;
-        if (queryBuilder.charAt(tail) == ',') {
-            queryBuilder.deleteCharAt(tail);
-        }
-        queryBuilder.append(")");
-        return entityManager.createNativeQuery(queryBuilder.toString())
-                .setParameter(1, startTime)
-                .setParameter(2, endTime)
-                .getResultList();
-    }
-
-    public List<String> getDeleteESDocumentIdsForProjectItem(String requester, Long transactionId) {
-        List<String> deleteESDocumentIds = new ArrayList<>();
-        Transaction transaction = this.getProjectItem(transactionId, requester);
-
-        deleteESDocumentIds.add(this.searchIndexDaoJpa.getProjectItemSearchIndexId(transaction));
-        List<TransactionContent> transactionContents = findContents(transaction);
-        for (TransactionContent content : transactionContents) {
-            deleteESDocumentIds.add(this.searchIndexDaoJpa.getContentSearchIndexId(content));
-        }
-
-        return deleteESDocumentIds;
-    }
-
-    public List<String> getDeleteESDocumentIdsForContent(String requester, Long contentId) {
-        List<String> deleteESDocumentIds = new ArrayList<>();
-        TransactionContent content = this.getContent(contentId, requester);
-        deleteESDocumentIds.add(this.searchIndexDaoJpa.getContentSearchIndexId(content));
-
-        return deleteESDocumentIds;
+        return this.projectItemChangeDaoJpa.findRecentItemsBetween(ContentType.TRANSACTION, startTime, endTime, projectIds);
     }
 }
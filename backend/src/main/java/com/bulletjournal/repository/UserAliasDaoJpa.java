@@ -10,19 +10,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Repository
 public class UserAliasDaoJpa {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserAliasDaoJpa.class);
     private static final Gson GSON = new Gson();
+    private static final String USER_ALIASES_KEY_PREFIX = "UserAliases:";
+    private static final String ALIAS_FIELD_PREFIX = "aliases.[";
 
     @Autowired
     private UserAliasRepository userAliasRepository;
@@ -30,6 +33,9 @@ public class UserAliasDaoJpa {
     @Autowired
     private RedisUserAliasesRepository redisUserAliasesRepository;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void changeAlias(String requester, String targetUser, String alias) {
         UserAlias userAlias = userAliasRepository.findById(requester).orElse(new UserAlias(requester));
@@ -61,6 +67,66 @@ public class UserAliasDaoJpa {
         return aliases;
     }
 
+    /**
+     * Get aliases of users with one pipelined Redis request, and one query for the users missing in Redis
+     *
+     * @return username -> aliases of the user
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Map<String, Map<String, String>> getAliases(Collection<String> requesters) {
+        Map<String, Map<String, String>> result = new HashMap<>();
+        List<String> names = new ArrayList<>(new HashSet<>(requesters));
+        if (names.isEmpty()) {
+            return result;
+        }
+        result.putAll(getRedisAliases(names));
+        List<String> misses = names.stream().filter(name -> !result.containsKey(name)).collect(Collectors.toList());
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        misses.forEach(name -> result.put(name, Collections.emptyMap()));
+        this.userAliasRepository.findAllById(misses).forEach(userAlias ->
+                result.put(userAlias.getOwner(), GSON.fromJson(userAlias.getAliases(), Map.class)));
+        LOGGER.info("getAliases for " + misses);
+        this.redisUserAliasesRepository.saveAll(misses.stream()
+                .map(name -> new UserAliases(name, result.get(name))).collect(Collectors.toList()));
+        return result;
+    }
+
+    /**
+     * Read aliases from the Redis hashes of UserAliases, whose map entries are stored as "aliases.[user]" fields
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, String>> getRedisAliases(List<String> names) {
+        Map<String, Map<String, String>> result = new HashMap<>();
+        List<Object> hashes;
+        try {
+            hashes = this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                names.forEach(name -> stringRedisConnection.hGetAll(USER_ALIASES_KEY_PREFIX + name));
+                return null;
+            });
+        } catch (Exception e) {
+            LOGGER.error("Fail to read aliases of {} from redis", names, e);
+            return result;
+        }
+        for (int i = 0; i < names.size(); i++) {
+            Map<String, String> hash = (Map<String, String>) hashes.get(i);
+            if (hash == null || hash.isEmpty()) {
+                continue;
+            }
+            Map<String, String> aliases = new HashMap<>();
+            hash.forEach((field, value) -> {
+                if (field.startsWith(ALIAS_FIELD_PREFIX) && field.endsWith("]")) {
+                    aliases.put(field.substring(ALIAS_FIELD_PREFIX.length(), field.length() - 1), value);
+                }
+            });
+            result.put(names.get(i), aliases);
+        }
+        return result;
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public User updateUserAlias(User user) {
         String requester = MDC.get(UserClient.USER_NAME_KEY);
@@ -71,4 +137,14 @@ public class UserAliasDaoJpa {
         user.setAlias(aliases.getOrDefault(user.getName(), user.getName()));
         return user;
     }
+
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void updateUserAliases(Collection<User> users) {
+        String requester = MDC.get(UserClient.USER_NAME_KEY);
+        Map<String, String> aliases = this.getAliases(requester);
+        if (aliases.isEmpty()) {
+            return;
+        }
+        users.forEach(user -> user.setAlias(aliases.getOrDefault(user.getName(), user.getName())));
+    }
 }
@@ -1,5 +1,6 @@
 package com.bulletjournal.repository;
 
+import com.bulletjournal.authz.ProjectAccessIndex;
 import com.bulletjournal.authz.Role;
 import com.bulletjournal.controller.models.Theme;
 import com.bulletjournal.controller.models.UpdateMyselfParams;
@@ -32,6 +33,9 @@ public class UserDaoJpa {
     @Autowired
     private LabelDaoJpa labelDaoJpa;
 
+    @Autowired
+    private ProjectAccessIndex projectAccessIndex;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public User create(String name, String timezone) {
         List<User> userList = this.userRepository.findByName(name);
@@ -57,6 +61,7 @@ public class UserDaoJpa {
 
         user.addGroup(group);
         this.userGroupRepository.save(new UserGroup(user, group, true));
+        this.projectAccessIndex.invalidateGroups(name);
         this.labelDaoJpa.createDefaultLabels(name);
         return this.userRepository.save(user);
     }
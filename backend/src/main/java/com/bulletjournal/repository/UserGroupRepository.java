@@ -3,6 +3,8 @@ package com.bulletjournal.repository;
 import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.repository.models.UserGroupKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,8 @@ public interface UserGroupRepository extends JpaRepository<UserGroup, UserGroupK
     List<UserGroup> findAllByGroupIdAndAccepted(Long groupId, Boolean accepted);
 
     List<UserGroup> findAllByUserId(Long userId);
+
+    @Query("SELECT userGroup.group.id FROM UserGroup userGroup WHERE userGroup.user.name = :username AND "
+            + "userGroup.accepted = true")
+    List<Long> findAcceptedGroupIds(@Param("username") String username);
 }
@@ -22,12 +22,6 @@ public abstract class ContentModel<T extends ProjectItemModel> extends AuditMode
     @Column(columnDefinition = "TEXT")
     private String text;
 
-    @Column(columnDefinition = "TEXT")
-    private String baseText;
-
-    @Column(columnDefinition = "TEXT")
-    private String revisions;
-
     public abstract Long getId();
 
     public abstract T getProjectItem();
@@ -50,27 +44,10 @@ public abstract class ContentModel<T extends ProjectItemModel> extends AuditMode
         this.owner = owner;
     }
 
-    public String getBaseText() {
-        return baseText;
-    }
-
-    public void setBaseText(String baseText) {
-        this.baseText = baseText;
-    }
-
-    public String getRevisions() {
-        return revisions;
-    }
-
-    public void setRevisions(String revisions) {
-        this.revisions = revisions;
-    }
-
     public Content toPresentationModel() {
         return new Content(
                 this.getId(), new User(this.getOwner()), this.getText(),
-                this.getBaseText(), this.getCreatedAt() == null ? null : this.getCreatedAt().getTime(),
-                this.getUpdatedAt() == null ? null : this.getUpdatedAt().getTime(),
-                this.getRevisions());
+                this.getCreatedAt() == null ? null : this.getCreatedAt().getTime(),
+                this.getUpdatedAt() == null ? null : this.getUpdatedAt().getTime());
     }
 }
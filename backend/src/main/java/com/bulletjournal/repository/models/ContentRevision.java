@@ -0,0 +1,114 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.contents.ContentType;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * One revision of a task, note or transaction content.
+ * <p>
+ * Checkpoint revisions hold the full text, the others hold the diff from the previous revision. Data is gzip
+ * compressed, except for revisions copied out of the former revisions json of contents.
+ * <p>
+ * Revisions are written after the edit commits, so created time is the time of the edit and the md5 of the full text
+ * tells whether the next edit can be stored as a diff from this revision.
+ */
+@Entity
+@Table(name = "content_revisions")
+public class ContentRevision extends AuditModel {
+
+    @EmbeddedId
+    private ContentRevisionKey id;
+
+    @Column(nullable = false)
+    private boolean checkpoint;
+
+    @Column(nullable = false)
+    private boolean compressed;
+
+    @Column(nullable = false)
+    private byte[] data;
+
+    @Column(length = 100, nullable = false)
+    private String owner;
+
+    @Column(name = "text_md5", length = 32)
+    private String textMd5;
+
+    public ContentRevision() {
+    }
+
+    public ContentRevision(ContentType type, Long contentId, Long revisionId, boolean checkpoint, byte[] data,
+                           String owner, String textMd5, Timestamp createdAt) {
+        this.id = new ContentRevisionKey(type, contentId, revisionId);
+        this.checkpoint = checkpoint;
+        this.compressed = true;
+        this.data = data;
+        this.owner = owner;
+        this.textMd5 = textMd5;
+        this.setCreatedAt(createdAt);
+    }
+
+    @Override
+    @PrePersist
+    protected void onCreate() {
+        Timestamp createdAt = getCreatedAt();
+        super.onCreate();
+        if (createdAt != null) {
+            setCreatedAt(createdAt);
+        }
+    }
+
+    public ContentRevisionKey getId() {
+        return id;
+    }
+
+    public void setId(ContentRevisionKey id) {
+        this.id = id;
+    }
+
+    public Long getRevisionId() {
+        return id.getRevisionId();
+    }
+
+    public boolean isCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(boolean checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getTextMd5() {
+        return textMd5;
+    }
+
+    public void setTextMd5(String textMd5) {
+        this.textMd5 = textMd5;
+    }
+}
@@ -0,0 +1,76 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.contents.ContentType;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class ContentRevisionKey implements Serializable {
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type")
+    private ContentType type;
+
+    @NotNull
+    @Column(name = "content_id")
+    private Long contentId;
+
+    @NotNull
+    @Column(name = "revision_id")
+    private Long revisionId;
+
+    public ContentRevisionKey() {
+    }
+
+    public ContentRevisionKey(ContentType type, Long contentId, Long revisionId) {
+        this.type = type;
+        this.contentId = contentId;
+        this.revisionId = revisionId;
+    }
+
+    public ContentType getType() {
+        return type;
+    }
+
+    public void setType(ContentType type) {
+        this.type = type;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+
+    public Long getRevisionId() {
+        return revisionId;
+    }
+
+    public void setRevisionId(Long revisionId) {
+        this.revisionId = revisionId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ContentRevisionKey)) return false;
+        ContentRevisionKey that = (ContentRevisionKey) o;
+        return getType() == that.getType() &&
+                Objects.equals(getContentId(), that.getContentId()) &&
+                Objects.equals(getRevisionId(), that.getRevisionId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getType(), getContentId(), getRevisionId());
+    }
+}
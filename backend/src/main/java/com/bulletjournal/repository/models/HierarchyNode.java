@@ -0,0 +1,73 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.contents.ContentType;
+
+import javax.persistence.*;
+
+/**
+ * One item of a project item or project hierarchy: its parent and its position among its siblings.
+ * <p>
+ * Scope is the project id for tasks and notes, and the owner for projects.
+ */
+@Entity
+@Table(name = "hierarchy_nodes")
+public class HierarchyNode extends AuditModel {
+
+    @EmbeddedId
+    private HierarchyNodeKey id;
+
+    @Column(nullable = false)
+    private String scope;
+
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(nullable = false)
+    private Integer position;
+
+    public HierarchyNode() {
+    }
+
+    public HierarchyNode(ContentType type, Long itemId, String scope, Long parentId, int position) {
+        this.id = new HierarchyNodeKey(type, itemId);
+        this.scope = scope;
+        this.parentId = parentId;
+        this.position = position;
+    }
+
+    public HierarchyNodeKey getId() {
+        return id;
+    }
+
+    public void setId(HierarchyNodeKey id) {
+        this.id = id;
+    }
+
+    public Long getItemId() {
+        return id.getItemId();
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+}
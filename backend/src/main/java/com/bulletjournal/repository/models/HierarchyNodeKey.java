@@ -0,0 +1,62 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.contents.ContentType;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class HierarchyNodeKey implements Serializable {
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type")
+    private ContentType type;
+
+    @NotNull
+    @Column(name = "item_id")
+    private Long itemId;
+
+    public HierarchyNodeKey() {
+    }
+
+    public HierarchyNodeKey(ContentType type, Long itemId) {
+        this.type = type;
+        this.itemId = itemId;
+    }
+
+    public ContentType getType() {
+        return type;
+    }
+
+    public void setType(ContentType type) {
+        this.type = type;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HierarchyNodeKey)) return false;
+        HierarchyNodeKey that = (HierarchyNodeKey) o;
+        return getType() == that.getType() &&
+                Objects.equals(getItemId(), that.getItemId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getType(), getItemId());
+    }
+}
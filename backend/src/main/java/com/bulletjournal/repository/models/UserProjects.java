@@ -12,12 +12,6 @@ public class UserProjects extends AuditModel {
     @Id
     private String owner;
 
-    /**
-     * Store self-owned projects' hierarchy
-     */
-    @Column(length = 10485760)
-    private String ownedProjects;
-
     /**
      * Stores projects shared with me - order of project owners
      */
@@ -39,14 +33,6 @@ public class UserProjects extends AuditModel {
         this.owner = owner;
     }
 
-    public String getOwnedProjects() {
-        return ownedProjects;
-    }
-
-    public void setOwnedProjects(String projects) {
-        this.ownedProjects = projects;
-    }
-
     public String getSharedProjects() {
         return sharedProjects;
     }
@@ -0,0 +1,178 @@
+package com.bulletjournal.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One stage of a background pipeline such as NotificationService: events of one type are sharded by key onto bounded
+ * queues, each drained in batches by its own worker, so events with the same key are handled in order.
+ * <p>
+ * When the queue of a shard is full, submit waits up to offerTimeoutInMillis and then drops the event.
+ */
+public class EventStage<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventStage.class);
+
+    private static final long POLL_INTERVAL_IN_MILLIS = 500;
+
+    private final String name;
+    private final Function<T, Object> getShardKey;
+    private final Consumer<List<T>> handler;
+    private final long offerTimeoutInMillis;
+    private final List<BlockingQueue<Entry<T>>> queues = new ArrayList<>();
+    private final ExecutorService executorService;
+    private volatile boolean stop = false;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLatencyInNanos = new AtomicLong();
+    private final AtomicLong maxLatencyInNanos = new AtomicLong();
+
+    public EventStage(String name, String threadName, int workers, int queueCapacity, long offerTimeoutInMillis,
+                      Function<T, Object> getShardKey, Consumer<List<T>> handler) {
+        this.name = name;
+        this.getShardKey = getShardKey;
+        this.handler = handler;
+        this.offerTimeoutInMillis = offerTimeoutInMillis;
+        for (int i = 0; i < workers; i++) {
+            this.queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        this.executorService = Executors.newFixedThreadPool(workers, new CustomThreadFactory(threadName));
+    }
+
+    public void start() {
+        this.queues.forEach(queue -> this.executorService.submit(() -> this.handleEvents(queue)));
+    }
+
+    /**
+     * @return false if the event is dropped
+     */
+    public boolean submit(T event) {
+        if (!this.stop) {
+            int shard = Math.floorMod(Objects.hashCode(this.getShardKey.apply(event)), this.queues.size());
+            try {
+                if (this.queues.get(shard).offer(new Entry<>(event), this.offerTimeoutInMillis,
+                        TimeUnit.MILLISECONDS)) {
+                    this.submitted.incrementAndGet();
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.dropped.incrementAndGet();
+        LOGGER.error("Dropped " + this.name + " event: " + event);
+        return false;
+    }
+
+    private void handleEvents(BlockingQueue<Entry<T>> queue) {
+        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+        List<Entry<T>> entries = new ArrayList<>();
+        // keep draining after stop until the queue is empty
+        while (!this.stop || !queue.isEmpty()) {
+            try {
+                // waiting until an element becomes available
+                Entry<T> entry = queue.poll(POLL_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    continue;
+                }
+                entries.add(entry);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(entries);
+            handle(entries);
+            entries = new ArrayList<>();
+        }
+        queue.drainTo(entries);
+        handle(entries);
+    }
+
+    private void handle(List<Entry<T>> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<T> events = new ArrayList<>(entries.size());
+        entries.forEach(entry -> events.add(entry.event));
+        try {
+            this.handler.accept(events);
+        } catch (Exception ex) {
+            this.failed.addAndGet(events.size());
+            LOGGER.error("Error on handling " + this.name + " events", ex);
+        }
+        long now = System.nanoTime();
+        for (Entry<T> entry : entries) {
+            long latency = now - entry.enqueuedAt;
+            this.totalLatencyInNanos.addAndGet(latency);
+            this.maxLatencyInNanos.accumulateAndGet(latency, Math::max);
+        }
+        this.processed.addAndGet(entries.size());
+    }
+
+    /**
+     * Stop accepting events, workers exit once their queues are drained
+     */
+    public void stop() {
+        this.stop = true;
+        this.executorService.shutdown();
+    }
+
+    /**
+     * Wait for queued events to be handled, workers are interrupted on timeout
+     */
+    public void awaitTermination(long timeoutInMillis) {
+        try {
+            if (!this.executorService.awaitTermination(timeoutInMillis, TimeUnit.MILLISECONDS)) {
+                LOGGER.error("Timed out on draining " + getQueueDepth() + " " + this.name + " events");
+                this.executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            this.executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return this.queues.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        long processedCount = this.processed.get();
+        metrics.put("queueDepth", getQueueDepth());
+        metrics.put("submitted", this.submitted.get());
+        metrics.put("processed", processedCount);
+        metrics.put("dropped", this.dropped.get());
+        metrics.put("failed", this.failed.get());
+        metrics.put("averageLatencyInMillis", processedCount == 0 ? 0.0 :
+                this.totalLatencyInNanos.get() / (double) processedCount / 1_000_000);
+        metrics.put("maxLatencyInMillis", this.maxLatencyInNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    private static class Entry<T> {
+        private final T event;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Entry(T event) {
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.bulletjournal.util;
+
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of recurring task occurrences.
+ * <p>
+ * For every recurring task it keeps the occurrences that fall into a rolling window around now
+ * ([now - PAST_WINDOW_IN_DAYS, now + FUTURE_WINDOW_IN_DAYS]), so range queries become a sorted map lookup
+ * instead of walking the RecurrenceRuleIterator from the series start. An entry is bound to the
+ * recurrence rule and timezone it was built from, and is rebuilt when either of them changes or when
+ * the window has rolled past the requested range. Requests outside of the window are expanded directly.
+ */
+@Component
+public class RecurrenceOccurrenceIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecurrenceOccurrenceIndex.class);
+
+    static final int PAST_WINDOW_IN_DAYS = 31;
+    static final int FUTURE_WINDOW_IN_DAYS = 92;
+    // rules such as FREQ=MINUTELY are expanded on demand instead of being cached
+    static final int MAX_OCCURRENCES_PER_ITEM = 10000;
+
+    private final Map<Long, Occurrences> index = new ConcurrentHashMap<>();
+
+    /**
+     * Get occurrences of a recurring item between startDateTime and endDateTime (both inclusive)
+     *
+     * @param itemId         the recurring item id
+     * @param recurrenceRule the recurrence rule of the item
+     * @param timezone       the timezone of the item
+     * @param startDateTime  the start of the range
+     * @param endDateTime    the end of the range
+     * @return List<DateTime> - occurrences sorted by time
+     */
+    public List<DateTime> getOccurrencesBetween(Long itemId, String recurrenceRule, String timezone,
+                                                DateTime startDateTime, DateTime endDateTime)
+            throws InvalidRecurrenceRuleException {
+        long start = startDateTime.getTimestamp();
+        long end = endDateTime.getTimestamp();
+        if (start > end) {
+            return Collections.emptyList();
+        }
+
+        Occurrences occurrences = this.index.get(itemId);
+        if (occurrences != null && occurrences.matches(recurrenceRule, timezone) && occurrences.covers(start, end)) {
+            return occurrences.between(start, end);
+        }
+
+        long now = System.currentTimeMillis();
+        long windowStart = now - TimeUnit.DAYS.toMillis(PAST_WINDOW_IN_DAYS);
+        long windowEnd = now + TimeUnit.DAYS.toMillis(FUTURE_WINDOW_IN_DAYS);
+        if (start < windowStart || end > windowEnd) {
+            // outside of rolling window, do not pollute the index
+            return expand(recurrenceRule, timezone, start, end, Integer.MAX_VALUE);
+        }
+
+        occurrences = build(recurrenceRule, timezone, windowStart, windowEnd);
+        if (occurrences == null) {
+            this.index.remove(itemId);
+            return expand(recurrenceRule, timezone, start, end, Integer.MAX_VALUE);
+        }
+        this.index.put(itemId, occurrences);
+        return occurrences.between(start, end);
+    }
+
+    /**
+     * Rebuild the entry of a recurring item, e.g. after it is created or updated
+     *
+     * @param itemId         the recurring item id
+     * @param recurrenceRule the recurrence rule of the item, null if item is no longer recurring
+     * @param timezone       the timezone of the item
+     */
+    public void refresh(Long itemId, String recurrenceRule, String timezone) {
+        if (recurrenceRule == null) {
+            invalidate(itemId);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            Occurrences occurrences = build(recurrenceRule, timezone,
+                    now - TimeUnit.DAYS.toMillis(PAST_WINDOW_IN_DAYS), now + TimeUnit.DAYS.toMillis(FUTURE_WINDOW_IN_DAYS));
+            if (occurrences == null) {
+                this.index.remove(itemId);
+            } else {
+                this.index.put(itemId, occurrences);
+            }
+        } catch (InvalidRecurrenceRuleException | RuntimeException e) {
+            LOGGER.error("Unable to index recurrence rule {} of item {}", recurrenceRule, itemId);
+            this.index.remove(itemId);
+        }
+    }
+
+    public void invalidate(Long itemId) {
+        this.index.remove(itemId);
+    }
+
+    public void invalidate(Collection<Long> itemIds) {
+        itemIds.forEach(this.index::remove);
+    }
+
+    /**
+     * Drop entries whose window has rolled past now, e.g. entries of items removed together with its project
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = this.index.size();
+        this.index.values().removeIf(occurrences -> occurrences.windowEnd < now);
+        LOGGER.info("Evicted {} expired entries from RecurrenceOccurrenceIndex", before - this.index.size());
+    }
+
+    public int size() {
+        return this.index.size();
+    }
+
+    private static Occurrences build(String recurrenceRule, String timezone, long windowStart, long windowEnd)
+            throws InvalidRecurrenceRuleException {
+        List<DateTime> dateTimes = expand(recurrenceRule, timezone, windowStart, windowEnd, MAX_OCCURRENCES_PER_ITEM);
+        if (dateTimes == null) {
+            return null;
+        }
+        NavigableMap<Long, DateTime> occurrences = new TreeMap<>();
+        dateTimes.forEach(dateTime -> occurrences.put(dateTime.getTimestamp(), dateTime));
+        return new Occurrences(recurrenceRule, timezone, windowStart, windowEnd, occurrences);
+    }
+
+    /**
+     * @return occurrences between start and end, or null if there are more than limit of them
+     */
+    private static List<DateTime> expand(String recurrenceRule, String timezone, long start, long end, int limit)
+            throws InvalidRecurrenceRuleException {
+        BuJoRecurrenceRule rule = new BuJoRecurrenceRule(recurrenceRule, timezone);
+        RecurrenceRuleIterator it = rule.getIterator();
+        it.fastForward(start);
+        List<DateTime> dateTimes = new ArrayList<>();
+        while (it.hasNext()) {
+            DateTime currDateTime = it.nextDateTime();
+            if (currDateTime.getTimestamp() > end) {
+                break;
+            }
+            if (currDateTime.getTimestamp() < start) {
+                continue;
+            }
+            if (dateTimes.size() == limit) {
+                return null;
+            }
+            dateTimes.add(currDateTime);
+        }
+        return dateTimes;
+    }
+
+    private static class Occurrences {
+        private final String recurrenceRule;
+        private final String timezone;
+        private final long windowStart;
+        private final long windowEnd;
+        private final NavigableMap<Long, DateTime> occurrences;
+
+        Occurrences(String recurrenceRule, String timezone, long windowStart, long windowEnd,
+                    NavigableMap<Long, DateTime> occurrences) {
+            this.recurrenceRule = recurrenceRule;
+            this.timezone = timezone;
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+            this.occurrences = occurrences;
+        }
+
+        boolean matches(String recurrenceRule, String timezone) {
+            return Objects.equals(this.recurrenceRule, recurrenceRule) && Objects.equals(this.timezone, timezone);
+        }
+
+        boolean covers(long start, long end) {
+            return this.windowStart <= start && end <= this.windowEnd;
+        }
+
+        List<DateTime> between(long start, long end) {
+            return new ArrayList<>(this.occurrences.subMap(start, true, end, true).values());
+        }
+    }
+}
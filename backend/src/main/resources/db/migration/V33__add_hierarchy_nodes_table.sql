@@ -0,0 +1,58 @@
+-- one row per task, note or project in its hierarchy
+-- scope is project id for tasks and notes, owner for projects
+CREATE TABLE public.hierarchy_nodes
+(
+    type       character varying(255) NOT NULL,
+    item_id    bigint                 NOT NULL,
+    scope      character varying(255) NOT NULL,
+    parent_id  bigint,
+    position   integer                NOT NULL,
+    created_at timestamp without time zone NOT NULL,
+    updated_at timestamp without time zone NOT NULL,
+    CONSTRAINT hierarchy_nodes_pkey PRIMARY KEY (type, item_id)
+);
+
+CREATE INDEX hierarchy_nodes_type_scope_index ON public.hierarchy_nodes (type, scope);
+
+-- copy hierarchies out of the json relations, e.g. [{"id":1,"s":[{"id":2,"s":[]}]}]
+INSERT INTO public.hierarchy_nodes (type, item_id, scope, parent_id, position, created_at, updated_at)
+WITH RECURSIVE nodes(type, scope, item_id, parent_id, position, children) AS (
+    SELECT *
+    FROM (
+             SELECT 'TASK'::text, project_id::text, (e.value ->> 'id')::bigint, NULL::bigint,
+                    e.ordinality::integer - 1, e.value -> 's'
+             FROM public.user_project_tasks,
+                  jsonb_array_elements(tasks::jsonb) WITH ORDINALITY e
+             WHERE tasks IS NOT NULL
+               AND tasks <> ''
+             UNION ALL
+             SELECT 'NOTE'::text, project_id::text, (e.value ->> 'id')::bigint, NULL::bigint,
+                    e.ordinality::integer - 1, e.value -> 's'
+             FROM public.user_project_notes,
+                  jsonb_array_elements(notes::jsonb) WITH ORDINALITY e
+             WHERE notes IS NOT NULL
+               AND notes <> ''
+             UNION ALL
+             SELECT 'PROJECT'::text, owner::text, (e.value ->> 'id')::bigint, NULL::bigint,
+                    e.ordinality::integer - 1, e.value -> 's'
+             FROM public.user_projects,
+                  jsonb_array_elements(owned_projects::jsonb) WITH ORDINALITY e
+             WHERE owned_projects IS NOT NULL
+               AND owned_projects <> ''
+         ) roots
+    UNION ALL
+    SELECT n.type, n.scope, (c.value ->> 'id')::bigint, n.item_id, c.ordinality::integer - 1, c.value -> 's'
+    FROM nodes n,
+         jsonb_array_elements(n.children) WITH ORDINALITY c
+)
+SELECT type, item_id, scope, parent_id, position, now(), now()
+FROM nodes
+WHERE item_id IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+DROP TABLE public.user_project_tasks;
+
+DROP TABLE public.user_project_notes;
+
+ALTER TABLE public.user_projects
+    DROP COLUMN owned_projects;
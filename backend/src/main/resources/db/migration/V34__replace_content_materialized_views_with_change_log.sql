@@ -0,0 +1,180 @@
+-- stop refreshing whole materialized views on every write
+DROP TRIGGER IF EXISTS refresh_task_contents_matview ON public.task_contents;
+DROP TRIGGER IF EXISTS refresh_note_contents_matview ON public.note_contents;
+DROP TRIGGER IF EXISTS refresh_transaction_contents_matview ON public.transaction_contents;
+DROP TRIGGER IF EXISTS refresh_tasks_join_task_contents ON public.tasks;
+DROP TRIGGER IF EXISTS refresh_notes_join_note_contents ON public.notes;
+DROP TRIGGER IF EXISTS refresh_transactions_join_transaction_contents ON public.transactions;
+DROP TRIGGER IF EXISTS refresh_tasks_join_task_contents ON public.task_contents;
+DROP TRIGGER IF EXISTS refresh_notes_join_note_contents ON public.note_contents;
+DROP TRIGGER IF EXISTS refresh_transactions_join_transaction_contents ON public.transaction_contents;
+
+DROP FUNCTION IF EXISTS refresh_task_contents_matview();
+DROP FUNCTION IF EXISTS refresh_note_contents_matview();
+DROP FUNCTION IF EXISTS refresh_transaction_contents_matview();
+DROP FUNCTION IF EXISTS refresh_tasks_join_task_contents();
+DROP FUNCTION IF EXISTS refresh_notes_join_note_contents();
+DROP FUNCTION IF EXISTS refresh_transactions_join_transaction_contents();
+
+DROP MATERIALIZED VIEW IF EXISTS task_contents_matview;
+DROP MATERIALIZED VIEW IF EXISTS note_contents_matview;
+DROP MATERIALIZED VIEW IF EXISTS transaction_contents_matview;
+DROP MATERIALIZED VIEW IF EXISTS tasks_join_task_contents;
+DROP MATERIALIZED VIEW IF EXISTS notes_join_note_contents;
+DROP MATERIALIZED VIEW IF EXISTS transactions_join_transaction_contents;
+
+-- one row per task, note or transaction having contents, with the time its contents were last updated
+CREATE TABLE public.project_item_content_times
+(
+    type             character varying(255) NOT NULL,
+    item_id          bigint                 NOT NULL,
+    project_id       bigint                 NOT NULL,
+    most_recent_time timestamp without time zone NOT NULL,
+    CONSTRAINT project_item_content_times_pkey PRIMARY KEY (type, item_id)
+);
+
+CREATE INDEX project_item_content_times_type_project_id_index
+    ON public.project_item_content_times (type, project_id, most_recent_time);
+
+INSERT INTO public.project_item_content_times (type, item_id, project_id, most_recent_time)
+SELECT 'TASK', i.id, i.project_id, max(c.updated_at)
+FROM public.tasks i
+         JOIN public.task_contents c ON c.task_id = i.id
+GROUP BY i.id, i.project_id
+UNION ALL
+SELECT 'NOTE', i.id, i.project_id, max(c.updated_at)
+FROM public.notes i
+         JOIN public.note_contents c ON c.note_id = i.id
+GROUP BY i.id, i.project_id
+UNION ALL
+SELECT 'TRANSACTION', i.id, i.project_id, max(c.updated_at)
+FROM public.transactions i
+         JOIN public.transaction_contents c ON c.transaction_id = i.id
+GROUP BY i.id, i.project_id;
+
+-- items and contents changed since project_item_content_times was last updated, drained by ProjectItemChangeApplier
+CREATE TABLE public.project_item_changes
+(
+    id         bigserial              NOT NULL,
+    type       character varying(255) NOT NULL,
+    item_id    bigint                 NOT NULL,
+    content_id bigint,
+    CONSTRAINT project_item_changes_pkey PRIMARY KEY (id)
+);
+
+-- argument is the item type
+create or replace function log_project_item_change()
+    returns trigger
+    language plpgsql
+as
+$$
+begin
+    insert into public.project_item_changes (type, item_id) values (TG_ARGV[0], OLD.id);
+    return null;
+end
+$$;
+
+create or replace function log_task_content_change()
+    returns trigger
+    language plpgsql
+as
+$$
+begin
+    if TG_OP = 'DELETE' then
+        insert into public.project_item_changes (type, item_id, content_id) values ('TASK', OLD.task_id, OLD.id);
+    else
+        insert into public.project_item_changes (type, item_id, content_id) values ('TASK', NEW.task_id, NEW.id);
+    end if;
+    return null;
+end
+$$;
+
+create or replace function log_note_content_change()
+    returns trigger
+    language plpgsql
+as
+$$
+begin
+    if TG_OP = 'DELETE' then
+        insert into public.project_item_changes (type, item_id, content_id) values ('NOTE', OLD.note_id, OLD.id);
+    else
+        insert into public.project_item_changes (type, item_id, content_id) values ('NOTE', NEW.note_id, NEW.id);
+    end if;
+    return null;
+end
+$$;
+
+create or replace function log_transaction_content_change()
+    returns trigger
+    language plpgsql
+as
+$$
+begin
+    if TG_OP = 'DELETE' then
+        insert into public.project_item_changes (type, item_id, content_id)
+        values ('TRANSACTION', OLD.transaction_id, OLD.id);
+    else
+        insert into public.project_item_changes (type, item_id, content_id)
+        values ('TRANSACTION', NEW.transaction_id, NEW.id);
+    end if;
+    return null;
+end
+$$;
+
+-- items only matter to project_item_content_times when they move to another project or are deleted
+CREATE TRIGGER log_task_move
+    AFTER UPDATE
+    ON public.tasks
+    FOR EACH ROW
+    WHEN (OLD.project_id IS DISTINCT FROM NEW.project_id)
+EXECUTE PROCEDURE log_project_item_change('TASK');
+
+CREATE TRIGGER log_task_delete
+    AFTER DELETE
+    ON public.tasks
+    FOR EACH ROW
+EXECUTE PROCEDURE log_project_item_change('TASK');
+
+CREATE TRIGGER log_note_move
+    AFTER UPDATE
+    ON public.notes
+    FOR EACH ROW
+    WHEN (OLD.project_id IS DISTINCT FROM NEW.project_id)
+EXECUTE PROCEDURE log_project_item_change('NOTE');
+
+CREATE TRIGGER log_note_delete
+    AFTER DELETE
+    ON public.notes
+    FOR EACH ROW
+EXECUTE PROCEDURE log_project_item_change('NOTE');
+
+CREATE TRIGGER log_transaction_move
+    AFTER UPDATE
+    ON public.transactions
+    FOR EACH ROW
+    WHEN (OLD.project_id IS DISTINCT FROM NEW.project_id)
+EXECUTE PROCEDURE log_project_item_change('TRANSACTION');
+
+CREATE TRIGGER log_transaction_delete
+    AFTER DELETE
+    ON public.transactions
+    FOR EACH ROW
+EXECUTE PROCEDURE log_project_item_change('TRANSACTION');
+
+CREATE TRIGGER log_task_content_change
+    AFTER INSERT OR UPDATE OR DELETE
+    ON public.task_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE log_task_content_change();
+
+CREATE TRIGGER log_note_content_change
+    AFTER INSERT OR UPDATE OR DELETE
+    ON public.note_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE log_note_content_change();
+
+CREATE TRIGGER log_transaction_content_change
+    AFTER INSERT OR UPDATE OR DELETE
+    ON public.transaction_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE log_transaction_content_change();
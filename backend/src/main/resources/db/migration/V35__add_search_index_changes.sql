@@ -0,0 +1,101 @@
+-- items and contents changed since they were last sent to elasticsearch, drained by SearchIndexer
+CREATE TABLE public.search_index_changes
+(
+    id         bigserial              NOT NULL,
+    type       character varying(255) NOT NULL,
+    item_id    bigint                 NOT NULL,
+    content_id bigint,
+    CONSTRAINT search_index_changes_pkey PRIMARY KEY (id)
+);
+
+-- arguments are the item type and, for contents, the column referring to the item
+create or replace function log_search_index_change()
+    returns trigger
+    language plpgsql
+as
+$$
+declare
+    changed jsonb;
+begin
+    if TG_OP = 'DELETE' then
+        changed := to_jsonb(OLD);
+    else
+        changed := to_jsonb(NEW);
+    end if;
+    if TG_NARGS > 1 then
+        insert into public.search_index_changes (type, item_id, content_id)
+        values (TG_ARGV[0], (changed ->> TG_ARGV[1])::bigint, (changed ->> 'id')::bigint);
+    else
+        insert into public.search_index_changes (type, item_id) values (TG_ARGV[0], (changed ->> 'id')::bigint);
+    end if;
+    return null;
+end
+$$;
+
+CREATE TRIGGER log_task_search_index_insert_or_delete
+    AFTER INSERT OR DELETE
+    ON public.tasks
+    FOR EACH ROW
+EXECUTE PROCEDURE log_search_index_change('TASK');
+
+CREATE TRIGGER log_task_search_index_update
+    AFTER UPDATE
+    ON public.tasks
+    FOR EACH ROW
+    WHEN (OLD.name IS DISTINCT FROM NEW.name OR OLD.project_id IS DISTINCT FROM NEW.project_id)
+EXECUTE PROCEDURE log_search_index_change('TASK');
+
+CREATE TRIGGER log_note_search_index_insert_or_delete
+    AFTER INSERT OR DELETE
+    ON public.notes
+    FOR EACH ROW
+EXECUTE PROCEDURE log_search_index_change('NOTE');
+
+CREATE TRIGGER log_note_search_index_update
+    AFTER UPDATE
+    ON public.notes
+    FOR EACH ROW
+    WHEN (OLD.name IS DISTINCT FROM NEW.name OR OLD.project_id IS DISTINCT FROM NEW.project_id)
+EXECUTE PROCEDURE log_search_index_change('NOTE');
+
+CREATE TRIGGER log_transaction_search_index_insert_or_delete
+    AFTER INSERT OR DELETE
+    ON public.transactions
+    FOR EACH ROW
+EXECUTE PROCEDURE log_search_index_change('TRANSACTION');
+
+CREATE TRIGGER log_transaction_search_index_update
+    AFTER UPDATE
+    ON public.transactions
+    FOR EACH ROW
+    WHEN (OLD.name IS DISTINCT FROM NEW.name OR OLD.project_id IS DISTINCT FROM NEW.project_id)
+EXECUTE PROCEDURE log_search_index_change('TRANSACTION');
+
+CREATE TRIGGER log_task_content_search_index_change
+    AFTER INSERT OR DELETE OR UPDATE OF text
+    ON public.task_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE log_search_index_change('TASK', 'task_id');
+
+CREATE TRIGGER log_note_content_search_index_change
+    AFTER INSERT OR DELETE OR UPDATE OF text
+    ON public.note_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE log_search_index_change('NOTE', 'note_id');
+
+CREATE TRIGGER log_transaction_content_search_index_change
+    AFTER INSERT OR DELETE OR UPDATE OF text
+    ON public.transaction_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE log_search_index_change('TRANSACTION', 'transaction_id');
+
+-- reindex everything once, an item change also reindexes its contents
+INSERT INTO public.search_index_changes (type, item_id)
+SELECT 'TASK', id
+FROM public.tasks
+UNION ALL
+SELECT 'NOTE', id
+FROM public.notes
+UNION ALL
+SELECT 'TRANSACTION', id
+FROM public.transactions;
@@ -0,0 +1,93 @@
+-- one row per revision of a task, note or transaction content, replacing revisions json and base text of contents
+-- data is the full text of checkpoint revisions and the diff from the previous revision otherwise,
+-- gzip compressed unless compressed is false
+CREATE TABLE public.content_revisions
+(
+    type        character varying(255) NOT NULL,
+    content_id  bigint                 NOT NULL,
+    revision_id bigint                 NOT NULL,
+    checkpoint  boolean                NOT NULL,
+    compressed  boolean                NOT NULL,
+    data        bytea                  NOT NULL,
+    owner       character varying(100) NOT NULL,
+    created_at  timestamp without time zone NOT NULL,
+    updated_at  timestamp without time zone NOT NULL,
+    CONSTRAINT content_revisions_pkey PRIMARY KEY (type, content_id, revision_id)
+);
+
+-- copy revisions out of the json, e.g. [{"id":3,"diff":"...","createdAt":1588559206813,"user":{"name":"Xavier"}}]
+-- base text is the text before the first kept revision, so it becomes the checkpoint preceding it
+INSERT INTO public.content_revisions (type, content_id, revision_id, checkpoint, compressed, data, owner, created_at,
+                                      updated_at)
+WITH contents(type, id, owner, created_at, base_text, revisions) AS (
+    SELECT 'TASK'::text, id, owner, created_at, base_text, revisions::jsonb
+    FROM public.task_contents
+    WHERE revisions IS NOT NULL
+      AND revisions <> ''
+    UNION ALL
+    SELECT 'NOTE'::text, id, owner, created_at, base_text, revisions::jsonb
+    FROM public.note_contents
+    WHERE revisions IS NOT NULL
+      AND revisions <> ''
+    UNION ALL
+    SELECT 'TRANSACTION'::text, id, owner, created_at, base_text, revisions::jsonb
+    FROM public.transaction_contents
+    WHERE revisions IS NOT NULL
+      AND revisions <> ''
+)
+SELECT type, id, (revisions -> 0 ->> 'id')::bigint - 1, true, false, convert_to(coalesce(base_text, ''), 'UTF8'),
+       owner, created_at, created_at
+FROM contents
+WHERE jsonb_array_length(revisions) > 0
+UNION ALL
+SELECT c.type, c.id, (e.value ->> 'id')::bigint, false, false, convert_to(coalesce(e.value ->> 'diff', ''), 'UTF8'),
+       coalesce(CASE jsonb_typeof(e.value -> 'user')
+                    WHEN 'string' THEN e.value ->> 'user'
+                    ELSE e.value -> 'user' ->> 'name' END, c.owner),
+       to_timestamp((e.value ->> 'createdAt')::bigint / 1000.0)::timestamp,
+       to_timestamp((e.value ->> 'createdAt')::bigint / 1000.0)::timestamp
+FROM contents c,
+     jsonb_array_elements(c.revisions) e
+ON CONFLICT DO NOTHING;
+
+ALTER TABLE public.task_contents
+    DROP COLUMN base_text,
+    DROP COLUMN revisions;
+
+ALTER TABLE public.note_contents
+    DROP COLUMN base_text,
+    DROP COLUMN revisions;
+
+ALTER TABLE public.transaction_contents
+    DROP COLUMN base_text,
+    DROP COLUMN revisions;
+
+-- revisions go away with their contents, including contents deleted along with their items
+create or replace function delete_content_revisions()
+    returns trigger
+    language plpgsql
+as
+$$
+begin
+    delete from public.content_revisions where type = TG_ARGV[0] and content_id = OLD.id;
+    return null;
+end
+$$;
+
+CREATE TRIGGER delete_task_content_revisions
+    AFTER DELETE
+    ON public.task_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE delete_content_revisions('TASK');
+
+CREATE TRIGGER delete_note_content_revisions
+    AFTER DELETE
+    ON public.note_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE delete_content_revisions('NOTE');
+
+CREATE TRIGGER delete_transaction_content_revisions
+    AFTER DELETE
+    ON public.transaction_contents
+    FOR EACH ROW
+EXECUTE PROCEDURE delete_content_revisions('TRANSACTION');
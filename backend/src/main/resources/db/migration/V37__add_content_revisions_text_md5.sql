@@ -0,0 +1,24 @@
+-- md5 of the full text of a revision, revisions are written after their edits and an edit is stored as a diff only
+-- if the text it changes is the text of the latest revision
+ALTER TABLE public.content_revisions
+    ADD COLUMN text_md5 character varying(32);
+
+-- the latest revision of a content has the current text of the content
+UPDATE public.content_revisions r
+SET text_md5 = md5(coalesce(c.text, ''))
+FROM (
+         SELECT 'TASK' AS type, id, text
+         FROM public.task_contents
+         UNION ALL
+         SELECT 'NOTE', id, text
+         FROM public.note_contents
+         UNION ALL
+         SELECT 'TRANSACTION', id, text
+         FROM public.transaction_contents
+     ) c
+WHERE r.type = c.type
+  AND r.content_id = c.id
+  AND r.revision_id = (SELECT max(l.revision_id)
+                       FROM public.content_revisions l
+                       WHERE l.type = r.type
+                         AND l.content_id = r.content_id);
@@ -0,0 +1,16 @@
+-- failed attempts to index the documents of a change
+ALTER TABLE public.search_index_changes
+    ADD COLUMN attempts integer NOT NULL DEFAULT 0;
+
+-- changes given up after search.indexer.maxAttempts failures, requeue by inserting into search_index_changes
+CREATE TABLE public.search_index_failed_changes
+(
+    id         bigint                      NOT NULL,
+    type       character varying(255)      NOT NULL,
+    item_id    bigint                      NOT NULL,
+    content_id bigint,
+    attempts   integer                     NOT NULL,
+    reason     text,
+    failed_at  timestamp without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT search_index_failed_changes_pkey PRIMARY KEY (id)
+);
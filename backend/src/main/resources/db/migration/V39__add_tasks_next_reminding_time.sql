@@ -0,0 +1,30 @@
+-- earliest time a reminder of a recurring task can fire, as of the last reminder scan, NULL if not computed yet
+ALTER TABLE public.tasks
+    ADD COLUMN next_reminding_time timestamp without time zone;
+
+CREATE INDEX tasks_next_reminding_time_idx ON public.tasks (next_reminding_time)
+    WHERE recurrence_rule IS NOT NULL;
+
+-- occurrences or their reminders may have changed, the next reminder scan computes it again
+create or replace function reset_next_reminding_time()
+    returns trigger
+    language plpgsql
+as
+$$
+begin
+    NEW.next_reminding_time := NULL;
+    return NEW;
+end
+$$;
+
+CREATE TRIGGER reset_task_next_reminding_time
+    BEFORE UPDATE
+    ON public.tasks
+    FOR EACH ROW
+    WHEN (OLD.recurrence_rule IS DISTINCT FROM NEW.recurrence_rule
+        OR OLD.timezone IS DISTINCT FROM NEW.timezone
+        OR OLD.completed_slots IS DISTINCT FROM NEW.completed_slots
+        OR OLD.reminder_date IS DISTINCT FROM NEW.reminder_date
+        OR OLD.reminder_time IS DISTINCT FROM NEW.reminder_time
+        OR OLD.reminder_before_task IS DISTINCT FROM NEW.reminder_before_task)
+EXECUTE PROCEDURE reset_next_reminding_time();
@@ -0,0 +1,93 @@
+package com.bulletjournal.clients;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.bulletjournal.config.AWSConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link AWSS3Client}
+ */
+public class AWSS3ClientTests {
+
+    private AmazonS3 amazonS3;
+    private AWSS3Client awsS3Client;
+
+    @Before
+    public void setup() {
+        this.amazonS3 = mock(AmazonS3.class);
+        InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        when(this.amazonS3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class)))
+                .thenReturn(initiateResult);
+        UploadPartResult partResult = new UploadPartResult();
+        partResult.setETag("etag");
+        partResult.setPartNumber(1);
+        when(this.amazonS3.uploadPart(any(UploadPartRequest.class))).thenReturn(partResult);
+        this.awsS3Client = new AWSS3Client(new AWSConfig("https://s3", "bucket"), this.amazonS3);
+    }
+
+    @Test
+    public void testUploadSmallFile() throws Exception {
+        this.awsS3Client.upload("small", new ByteArrayInputStream(new byte[1000]));
+        verify(this.amazonS3).putObject(any(PutObjectRequest.class));
+        verify(this.amazonS3, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testUploadInParts() throws Exception {
+        this.awsS3Client.upload("large", new GeneratedInputStream(2L * AWSS3Client.PART_SIZE + 1));
+        verify(this.amazonS3, times(3)).uploadPart(any(UploadPartRequest.class));
+        verify(this.amazonS3).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(this.amazonS3, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testAbortOversizedUpload() throws Exception {
+        try {
+            this.awsS3Client.upload("oversized", new GeneratedInputStream(AWSS3Client.MAX_FILE_SIZE + 1));
+            Assert.fail("Expected size limit to be enforced");
+        } catch (IllegalArgumentException ex) {
+            verify(this.amazonS3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+            verify(this.amazonS3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        }
+    }
+
+    /**
+     * Stream of zeros that is never held in memory
+     */
+    private static class GeneratedInputStream extends InputStream {
+        private long remaining;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (this.remaining == 0) {
+                return -1;
+            }
+            this.remaining--;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (this.remaining == 0) {
+                return -1;
+            }
+            int read = (int) Math.min(len, this.remaining);
+            this.remaining -= read;
+            return read;
+        }
+    }
+}
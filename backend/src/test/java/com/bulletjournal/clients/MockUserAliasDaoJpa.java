@@ -3,10 +3,16 @@ package com.bulletjournal.clients;
 import com.bulletjournal.controller.models.User;
 import com.bulletjournal.repository.UserAliasDaoJpa;
 
+import java.util.Collection;
+
 public class MockUserAliasDaoJpa extends UserAliasDaoJpa {
 
     @Override
     public User updateUserAlias(User user) {
         return user;
     }
+
+    @Override
+    public void updateUserAliases(Collection<User> users) {
+    }
 }
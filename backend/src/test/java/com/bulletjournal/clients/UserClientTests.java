@@ -4,11 +4,18 @@ import com.bulletjournal.config.SSOConfig;
 import com.bulletjournal.controller.models.User;
 import com.bulletjournal.redis.RedisUserRepository;
 import com.bulletjournal.repository.UserDaoJpa;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
+import java.net.InetSocketAddress;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -30,7 +37,8 @@ public class UserClientTests {
         MockUserAliasDaoJpa userAliasDaoJpa = new MockUserAliasDaoJpa();
 
         UserClient userClient = new UserClient(new SSOConfig(
-                "https://1o24bbs.com"), redisUserRepository, userDaoJpa, userAliasDaoJpa);
+                "https://1o24bbs.com"), redisUserRepository, userDaoJpa, userAliasDaoJpa,
+                mock(StringRedisTemplate.class));
 
         User user = userClient.getUser(username);
         Assert.assertEquals(username, user.getName());
@@ -40,4 +48,43 @@ public class UserClientTests {
                 user.getThumbnail());
         Assert.assertEquals(6475, user.getId().intValue());
     }
+
+    @Test
+    public void testCircuitOpensOnServerErrors() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            SSOConfig ssoConfig = new SSOConfig("http://localhost:" + server.getAddress().getPort());
+            ssoConfig.setFailureThreshold(3);
+            ssoConfig.setOpenIntervalInMillis(60000);
+            RedisUserRepository redisUserRepository = mock(RedisUserRepository.class);
+            when(redisUserRepository.findById(anyString())).thenReturn(Optional.empty());
+            UserClient userClient = new UserClient(ssoConfig, redisUserRepository, mock(UserDaoJpa.class),
+                    new MockUserAliasDaoJpa(), mock(StringRedisTemplate.class));
+
+            for (int i = 0; i < 3; i++) {
+                try {
+                    userClient.getUser("user" + i);
+                    Assert.fail("Expected server error");
+                } catch (HttpServerErrorException ex) {
+                    Assert.assertEquals(500, ex.getRawStatusCode());
+                }
+            }
+            try {
+                userClient.getUser("user3");
+                Assert.fail("Expected open circuit");
+            } catch (ResourceAccessException ex) {
+                Assert.assertEquals(3, requests.get());
+            }
+            userClient.preDestroy();
+        } finally {
+            server.stop(0);
+        }
+    }
 }
@@ -4,7 +4,6 @@ import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.TestHelpers;
 import com.bulletjournal.filters.rate.limiting.TokenBucket;
-import com.bulletjournal.hierarchy.HierarchyProcessorProcessorTest;
 import com.bulletjournal.ledger.FrequencyType;
 import com.bulletjournal.ledger.LedgerSummary;
 import com.bulletjournal.ledger.LedgerSummaryType;
@@ -1122,8 +1121,13 @@ public class ProjectControllerTest {
          *   |
          *    -- p6
          */
-        List<Project> projectRelations = HierarchyProcessorProcessorTest.createSampleProjectRelations(
-                p1, p2, p3, p4, p5, p6);
+        List<Project> projectRelations = new ArrayList<>();
+        projectRelations.add(p1);
+        p1.addSubProject(p2);
+        p1.addSubProject(p4);
+        p2.addSubProject(p3);
+        projectRelations.add(p5);
+        p5.addSubProject(p6);
         // Set user's project relations
         ResponseEntity<Projects> updateProjectRelationsResponse = this.restTemplate.exchange(
                 ROOT_URL + randomServerPort + ProjectController.PROJECTS_ROUTE,
@@ -123,6 +123,37 @@ public class SystemControllerTest {
         deleteTask(t5);
     }
 
+    @Test
+    public void testProjectEtags() {
+        Group group = createGroup();
+        Project p1 = createProject("p_SystemControl_Etag", group, ProjectType.TODO);
+
+        String url = ROOT_URL + randomServerPort + SystemController.UPDATES_ROUTE;
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(url)
+                .queryParam("targets", "projectsEtag")
+                .queryParam("projectId", p1.getId());
+        ResponseEntity<SystemUpdates> response = this.restTemplate.exchange(
+                uriBuilder.toUriString(),
+                HttpMethod.GET,
+                TestHelpers.actAsOtherUser(null, sampleUsers[0]),
+                SystemUpdates.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SystemUpdates systemUpdates = response.getBody();
+        assertNotNull(systemUpdates.getOwnedProjectsEtag());
+        assertNotNull(systemUpdates.getSharedProjectsEtag());
+        assertNotEquals(systemUpdates.getOwnedProjectsEtag(), systemUpdates.getSharedProjectsEtag());
+        assertNotNull(systemUpdates.getTasksEtag());
+        assertNull(systemUpdates.getNotesEtag());
+
+        // etags of a project are only given to its members
+        response = this.restTemplate.exchange(
+                uriBuilder.toUriString(),
+                HttpMethod.GET,
+                TestHelpers.actAsOtherUser(null, "Xavier"),
+                SystemUpdates.class);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
     private Task addRecurringRemindingTasks(Project project, Integer before, String date, String time) {
         DateTime now = DateTime.now(TimeZone.getTimeZone(TIMEZONE));
         String recurrenceRule = "DTSTART:" + now.toString() + " RRULE:FREQ=HOURLY;INTERVAL=1";
@@ -4,7 +4,9 @@ package com.bulletjournal.controller;
 import com.bulletjournal.config.ContentRevisionConfig;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.TestHelpers;
+import com.bulletjournal.daemon.ContentRevisionWriter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -22,10 +24,12 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests {@link TaskController}
@@ -46,6 +50,9 @@ public class TaskControllerTest {
     @Autowired
     private ContentRevisionConfig revisionConfig;
 
+    @Autowired
+    private ContentRevisionWriter contentRevisionWriter;
+
     @LocalServerPort
     int randomServerPort;
     private TestRestTemplate restTemplate = new TestRestTemplate();
@@ -88,18 +95,27 @@ public class TaskControllerTest {
         List<Content> contents1 = updateContent(task1.getId(), content1.getId(), testContent2);
         List<Content> contents2 = updateContent(task1.getId(), content1.getId(), testContent3);
         List<Content> contents3 = updateContent(task1.getId(), content1.getId(), testContent4);
+        awaitRevisions();
         assertEquals(testContent1, getContentRevision(task1.getId(), content1.getId(), 1L));
         assertEquals(testContent2, getContentRevision(task1.getId(), content1.getId(), 2L));
         assertEquals(testContent3, getContentRevision(task1.getId(), content1.getId(), 3L));
         assertEquals(testContent4, getContentRevision(task1.getId(), content1.getId(), 4L));
         testOtherAssignees(p1, task1, users);
         testUpdateAssignees(p1, task1, users);
+        testUpdateTaskDelta(task1, users);
         int maxRevisionNumber = revisionConfig.getMaxRevisionNumber();
         for (int i = 0; i < 2 * maxRevisionNumber; ++i) {
-            contents1 = updateContent(task1.getId(), content1.getId(), testContent1 + String.valueOf(i));
+            updateContent(task1.getId(), content1.getId(), testContent1 + String.valueOf(i));
         }
+        awaitRevisions();
+        contents1 = getContents(task1.getId());
         assertEquals(1, contents1.size());
         assertEquals(maxRevisionNumber, contents1.get(0).getRevisions().length);
+        // revisions are rebuilt from the checkpoints that survive trimming
+        for (Revision revision : contents1.get(0).getRevisions()) {
+            assertEquals(testContent1 + (revision.getId() - 5),
+                    getContentRevision(task1.getId(), content1.getId(), revision.getId()));
+        }
 
 
         // borrowing test for testing task pagination
@@ -171,6 +187,39 @@ public class TaskControllerTest {
         completedTasks = Arrays.asList(completedTasksResponse.getBody());
         assertEquals(4, completedTasks.size());
 
+        testCompleteTasksDelta(p1);
+    }
+
+    private void testCompleteTasksDelta(Project project) {
+        Task task6 = createTask(project, new CreateTaskParams("task6", "2020-02-27",
+                null, null, new ReminderSetting(), ImmutableList.of(USER), TIMEZONE, null));
+        Task task7 = createTask(project, new CreateTaskParams("task7", "2020-02-27",
+                null, null, new ReminderSetting(), ImmutableList.of(USER), TIMEZONE, null));
+        // tasks that do not exist are skipped
+        String url = UriComponentsBuilder.fromHttpUrl(ROOT_URL + randomServerPort + TaskController.COMPLETE_TASKS_ROUTE)
+                .queryParam("tasks", task6.getId(), task7.getId(), Long.MAX_VALUE)
+                .queryParam("delta", true)
+                .buildAndExpand(project.getId()).toUriString();
+        ResponseEntity<TasksDelta> response = this.restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                TestHelpers.actAsOtherUser(null, USER),
+                TasksDelta.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        TasksDelta delta = response.getBody();
+        assertNotNull(delta);
+        assertEquals(0, delta.getUpdated().size());
+        assertEquals(ImmutableSet.of(task6.getId(), task7.getId()), new HashSet<>(delta.getRemoved()));
+        assertEquals(response.getHeaders().getETag(), delta.getEtag());
+
+        ResponseEntity<Task[]> completedTasksResponse = this.restTemplate.exchange(
+                ROOT_URL + randomServerPort + TaskController.COMPLETED_TASKS_ROUTE,
+                HttpMethod.GET,
+                TestHelpers.actAsOtherUser(null, USER),
+                Task[].class,
+                project.getId());
+        assertEquals(HttpStatus.OK, completedTasksResponse.getStatusCode());
+        assertEquals(6, completedTasksResponse.getBody().length);
     }
 
     private void testUpdateAssignees(Project p1, Task task, List<String> users) {
@@ -222,6 +271,27 @@ public class TaskControllerTest {
         assertEquals(USER, notification.getOriginator().getName());
     }
 
+    private void testUpdateTaskDelta(Task task, List<String> users) {
+        UpdateTaskParams updateTaskParams = new UpdateTaskParams(
+                task.getDueDate(), task.getDueTime(), task.getName(), null,
+                task.getReminderSetting(), users, TIMEZONE, null, null);
+        String url = UriComponentsBuilder.fromHttpUrl(ROOT_URL + randomServerPort + TaskController.TASK_ROUTE)
+                .queryParam("delta", true)
+                .buildAndExpand(task.getId()).toUriString();
+        ResponseEntity<TasksDelta> response = this.restTemplate.exchange(
+                url,
+                HttpMethod.PATCH,
+                TestHelpers.actAsOtherUser(updateTaskParams, USER),
+                TasksDelta.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        TasksDelta delta = response.getBody();
+        assertNotNull(delta);
+        assertEquals(1, delta.getUpdated().size());
+        assertEquals(task.getId(), delta.getUpdated().get(0).getId());
+        assertEquals(0, delta.getRemoved().size());
+        assertEquals(response.getHeaders().getETag(), delta.getEtag());
+    }
+
     private void testOtherAssignees(Project p1, Task task1, List<String> users) {
         for (String user : users) {
             ResponseEntity<Task[]> tasksResponse = this.restTemplate.exchange(
@@ -248,6 +318,32 @@ public class TaskControllerTest {
         return completeTaskResponse.getBody();
     }
 
+    private void awaitRevisions() {
+        // revisions are written off the request threads
+        long deadline = System.currentTimeMillis() + 5000;
+        while (contentRevisionWriter.getMetrics().get("pending").longValue() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private List<Content> getContents(Long taskId) {
+        ResponseEntity<Content[]> response = this.restTemplate.exchange(
+                ROOT_URL + randomServerPort + TaskController.CONTENTS_ROUTE,
+                HttpMethod.GET,
+                TestHelpers.actAsOtherUser(null, USER),
+                Content[].class,
+                taskId
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return Arrays.asList(response.getBody());
+    }
+
     private String getContentRevision(Long taskId, Long contentId, Long revisionId) {
         ResponseEntity<Revision> response = this.restTemplate.exchange(
                 ROOT_URL + randomServerPort + TaskController.CONTENT_REVISIONS_ROUTE,
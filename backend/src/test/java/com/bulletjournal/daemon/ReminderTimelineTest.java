@@ -0,0 +1,57 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.controller.models.Task;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests {@link ReminderTimeline}
+ */
+public class ReminderTimelineTest {
+
+    @Test
+    public void testAdvance() {
+        ReminderTimeline timeline = new ReminderTimeline();
+        Task task = new Task();
+        task.setId(1L);
+        timeline.schedule(Collections.singletonList(1L), Collections.singletonList(
+                new ReminderRecord(1L, Arrays.asList("Alice", "Bob"), 100, 200, task)), 0);
+        Assert.assertEquals(1, timeline.getPendingSize());
+        Assert.assertTrue(timeline.getReminders("Alice").getTasks().isEmpty());
+
+        timeline.advance(100);
+        Assert.assertEquals(Collections.singletonList(task), timeline.getReminders("Alice").getTasks());
+        Assert.assertEquals(Collections.singletonList(task), timeline.getReminders("Bob").getTasks());
+        Assert.assertEquals(Reminders.EMPTY.getEtag(), timeline.getReminders("Carol").getEtag());
+
+        timeline.advance(200);
+        Assert.assertTrue(timeline.getReminders("Alice").getTasks().isEmpty());
+        Assert.assertTrue(timeline.getReminders("Bob").getTasks().isEmpty());
+    }
+
+    @Test
+    public void testScheduleAndReset() {
+        ReminderTimeline timeline = new ReminderTimeline();
+        Task task = new Task();
+        task.setId(1L);
+        timeline.schedule(Collections.singletonList(1L), Collections.singletonList(
+                new ReminderRecord(1L, Collections.singletonList("Alice"), 0, 200, task)), 10);
+        Assert.assertEquals(1, timeline.getReminders("Alice").getTasks().size());
+
+        // rescheduling a task cancels its previous reminders
+        timeline.schedule(Collections.singletonList(1L), Collections.singletonList(
+                new ReminderRecord(1L, Collections.singletonList("Alice"), 100, 200, task)), 10);
+        Assert.assertTrue(timeline.getReminders("Alice").getTasks().isEmpty());
+
+        // reset does not override tasks scheduled while it was loading
+        timeline.beginReset();
+        timeline.schedule(Collections.singletonList(1L), Collections.emptyList(), 10);
+        timeline.reset(Collections.singletonList(
+                new ReminderRecord(1L, Collections.singletonList("Alice"), 0, 200, task)), 10);
+        Assert.assertTrue(timeline.getReminders("Alice").getTasks().isEmpty());
+        Assert.assertEquals(0, timeline.getPendingSize());
+    }
+}
@@ -0,0 +1,52 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.es.repository.models.SearchIndex;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+
+import java.util.*;
+
+/**
+ * {@link SearchIndexClient} keeping documents in a map
+ */
+public class InMemorySearchIndexClient implements SearchIndexClient {
+
+    private final Map<String, SearchIndex> documents = new HashMap<>();
+    private final List<List<SearchIndexOperation>> bulkRequests = new ArrayList<>();
+    private final Set<String> failingIds = new HashSet<>();
+    private boolean failing = false;
+
+    @Override
+    public Map<String, String> bulk(List<SearchIndexOperation> operations) {
+        if (this.failing) {
+            throw new IllegalStateException("Bulk request failed");
+        }
+        this.bulkRequests.add(new ArrayList<>(operations));
+        Map<String, String> failures = new HashMap<>();
+        for (SearchIndexOperation operation : operations) {
+            if (this.failingIds.contains(operation.getId())) {
+                failures.put(operation.getId(), "mapper_parsing_exception");
+            } else if (operation.isDelete()) {
+                this.documents.remove(operation.getId());
+            } else {
+                this.documents.put(operation.getId(), operation.getSearchIndex());
+            }
+        }
+        return failures;
+    }
+
+    public Map<String, SearchIndex> getDocuments() {
+        return documents;
+    }
+
+    public List<List<SearchIndexOperation>> getBulkRequests() {
+        return bulkRequests;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    public Set<String> getFailingIds() {
+        return failingIds;
+    }
+}
@@ -0,0 +1,99 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.config.SearchIndexConfig;
+import com.bulletjournal.config.SpringESConfig;
+import com.bulletjournal.es.repository.models.SearchIndex;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests {@link SearchIndexer}
+ */
+public class SearchIndexerTest {
+
+    private InMemorySearchIndexClient client;
+    private SearchIndexer searchIndexer;
+
+    @Before
+    public void setup() {
+        SearchIndexConfig searchIndexConfig = new SearchIndexConfig();
+        searchIndexConfig.setIntervalInMillis(1000);
+        searchIndexConfig.setBatchSize(100);
+        searchIndexConfig.setBulkSize(2);
+        SpringESConfig springESConfig = new SpringESConfig();
+        springESConfig.setEnable(true);
+        this.client = new InMemorySearchIndexClient();
+        this.searchIndexer = new SearchIndexer(null, this.client, searchIndexConfig, springESConfig);
+    }
+
+    @Test
+    public void testIndex() {
+        this.searchIndexer.index(ImmutableList.of(upsert("task@1", "a"), upsert("task_content@1", "b"),
+                upsert("note@2", "c")));
+        Assert.assertEquals(3, this.client.getDocuments().size());
+        Assert.assertEquals("b", this.client.getDocuments().get("task_content@1").getValue());
+        // bulk size is 2
+        Assert.assertEquals(2, this.client.getBulkRequests().size());
+
+        this.searchIndexer.index(ImmutableList.of(SearchIndexOperation.delete("task_content@1"),
+                upsert("task@1", "d")));
+        Assert.assertEquals(2, this.client.getDocuments().size());
+        Assert.assertFalse(this.client.getDocuments().containsKey("task_content@1"));
+        Assert.assertEquals("d", this.client.getDocuments().get("task@1").getValue());
+        Assert.assertEquals(1L, this.searchIndexer.getMetrics().get("deletes"));
+        Assert.assertEquals(4L, this.searchIndexer.getMetrics().get("upserts"));
+    }
+
+    @Test
+    public void testLastOperationWins() {
+        List<SearchIndexOperation> operations = new ArrayList<>();
+        operations.add(upsert("task@1", "a"));
+        operations.add(SearchIndexOperation.delete("task@1"));
+        operations.add(upsert("task@2", "b"));
+        operations.add(upsert("task@1", "c"));
+        operations.add(SearchIndexOperation.delete("task@2"));
+        this.searchIndexer.index(operations);
+
+        Assert.assertEquals(1, this.client.getDocuments().size());
+        Assert.assertEquals("c", this.client.getDocuments().get("task@1").getValue());
+        Assert.assertEquals(1, this.client.getBulkRequests().size());
+        Assert.assertEquals(2, this.client.getBulkRequests().get(0).size());
+    }
+
+    @Test
+    public void testDocumentFailure() {
+        this.client.getFailingIds().add("task@2");
+        Map<String, String> failed = this.searchIndexer.index(ImmutableList.of(upsert("task@1", "a"),
+                upsert("task@2", "b"), SearchIndexOperation.delete("task@3")));
+        // only the failed document is reported, the others in its bulk request are indexed
+        Assert.assertEquals(ImmutableSet.of("task@2"), failed.keySet());
+        Assert.assertEquals(ImmutableSet.of("task@1"), this.client.getDocuments().keySet());
+        Assert.assertEquals(1L, this.searchIndexer.getMetrics().get("upserts"));
+        Assert.assertEquals(1L, this.searchIndexer.getMetrics().get("deletes"));
+        Assert.assertEquals(1L, this.searchIndexer.getMetrics().get("failedDocuments"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailure() {
+        this.client.setFailing(true);
+        // changes stay in the outbox when the indexer throws
+        this.searchIndexer.index(ImmutableList.of(upsert("task@1", "a")));
+    }
+
+    private static SearchIndexOperation upsert(String id, String value) {
+        SearchIndex searchIndex = new SearchIndex();
+        searchIndex.setId(id);
+        searchIndex.setType(id.substring(0, id.indexOf('@')));
+        searchIndex.setProjectId(1L);
+        searchIndex.setValue(value);
+        return SearchIndexOperation.upsert(searchIndex);
+    }
+}
@@ -0,0 +1,147 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.Project;
+import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.repository.models.HierarchyNode;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link HierarchyTree}
+ */
+public class HierarchyTreeTest {
+
+    /**
+     * p1
+     * |
+     * -- p2
+     * |   |
+     * |    -- p3
+     * |
+     * -- p4
+     * <p>
+     * p5
+     * |
+     * -- p6
+     */
+    private static HierarchyTree createSampleTree() {
+        // records are not necessarily loaded in order
+        return HierarchyTree.of(Arrays.asList(
+                new HierarchyNode(ContentType.PROJECT, 6L, "owner", 5L, 0),
+                new HierarchyNode(ContentType.PROJECT, 4L, "owner", 1L, 1),
+                new HierarchyNode(ContentType.PROJECT, 5L, "owner", null, 1),
+                new HierarchyNode(ContentType.PROJECT, 3L, "owner", 2L, 0),
+                new HierarchyNode(ContentType.PROJECT, 1L, "owner", null, 0),
+                new HierarchyNode(ContentType.PROJECT, 2L, "owner", 1L, 0)));
+    }
+
+    private static List<Project> toProjects(HierarchyTree tree) {
+        return tree.map((Long id, List<Project> subProjects) -> {
+            Project project = new Project(id);
+            project.setSubProjects(subProjects);
+            return project;
+        });
+    }
+
+    @Test
+    public void testOf() {
+        HierarchyTree tree = createSampleTree();
+        assertEquals(6, tree.size());
+
+        List<Project> projects = toProjects(tree);
+        assertEquals(2, projects.size());
+        assertEquals(1L, projects.get(0).getId().longValue());
+        assertEquals(2L, projects.get(0).getSubProjects().get(0).getId().longValue());
+        assertEquals(3L, projects.get(0).getSubProjects().get(0).getSubProjects().get(0).getId().longValue());
+        assertEquals(4L, projects.get(0).getSubProjects().get(1).getId().longValue());
+        assertEquals(5L, projects.get(1).getId().longValue());
+        assertEquals(6L, projects.get(1).getSubProjects().get(0).getId().longValue());
+
+        // build from presentation models gives the same hierarchy
+        HierarchyTree copy = HierarchyTree.of(projects, Project::getId, Project::getSubProjects, id -> true);
+        assertEquals(projects, toProjects(copy));
+    }
+
+    @Test
+    public void testOfWithFilter() {
+        List<Project> projects = toProjects(createSampleTree());
+        HierarchyTree tree = HierarchyTree.of(projects, Project::getId, Project::getSubProjects, id -> id != 2L);
+        assertFalse(tree.contains(2L));
+        // p3 takes the place of p2
+        assertEquals(ImmutableList.of(1L, 3L, 4L), tree.getSubItems(1L));
+        HierarchyTree.Node p3 = tree.getNodes().get(1);
+        assertEquals(1L, p3.getParentId().longValue());
+        assertEquals(0, p3.getPosition());
+    }
+
+    @Test
+    public void testGetSubItems() {
+        HierarchyTree tree = createSampleTree();
+        assertEquals(ImmutableList.of(1L, 2L, 3L, 4L), tree.getSubItems(1L));
+        assertEquals(ImmutableList.of(2L, 3L), tree.getSubItems(2L));
+        assertEquals(ImmutableList.of(6L), tree.getSubItems(6L));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetSubItemsNotFound() {
+        createSampleTree().getSubItems(7L);
+    }
+
+    @Test
+    public void testAppend() {
+        HierarchyTree tree = createSampleTree();
+        HierarchyTree.Node node = tree.append(7L);
+        assertNull(node.getParentId());
+        assertEquals(2, node.getPosition());
+        assertEquals(3, toProjects(tree).size());
+        assertEquals(7L, toProjects(tree).get(2).getId().longValue());
+
+        HierarchyTree empty = HierarchyTree.of(new ArrayList<>());
+        assertEquals(0, empty.append(1L).getPosition());
+    }
+
+    @Test
+    public void testDetachAndAttach() {
+        HierarchyTree tree = createSampleTree();
+        HierarchyTree.Node p2 = tree.detach(2L);
+        assertEquals(ImmutableList.of(2L, 3L), p2.getSubItems());
+        assertFalse(tree.contains(2L));
+        assertFalse(tree.contains(3L));
+        assertEquals(ImmutableList.of(1L, 4L), tree.getSubItems(1L));
+
+        HierarchyTree target = HierarchyTree.of(new ArrayList<>());
+        target.attach(p2);
+        assertNull(p2.getParentId());
+        assertEquals(0, p2.getPosition());
+        assertEquals(ImmutableList.of(2L, 3L), target.getSubItems(2L));
+        assertEquals(2, target.size());
+    }
+
+    @Test
+    public void testCopy() {
+        HierarchyTree tree = createSampleTree();
+        tree.detach(4L);
+        HierarchyTree copy = tree.copy();
+        assertEquals(toProjects(tree), toProjects(copy));
+        assertEquals(ImmutableList.of(1L, 2L, 3L), copy.getSubItems(1L));
+
+        // changes of the copy never reach the original
+        copy.detach(2L);
+        HierarchyTree.Node p7 = copy.append(7L);
+        assertEquals(2, p7.getPosition());
+        assertTrue(tree.contains(2L));
+        assertFalse(tree.contains(7L));
+        assertEquals(ImmutableList.of(1L, 2L, 3L), tree.getSubItems(1L));
+
+        // next position follows the original, not the remaining children
+        HierarchyTree.Node p8 = tree.copy().append(8L);
+        assertEquals(2, p8.getPosition());
+    }
+}
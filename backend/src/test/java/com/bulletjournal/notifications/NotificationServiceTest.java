@@ -39,4 +39,21 @@ public class NotificationServiceTest {
         Assert.assertEquals(200, notifications.size());
         notificationService.preDestroy();
     }
+
+    @Test
+    public void testSplitByTargetUser() {
+        Event e1 = new Event("u1", 1L, "G1");
+        Event e2 = new Event("u2", 1L, "G1");
+        Event e3 = new Event("u1", 2L, "G2");
+        List<Informed> informedList = new JoinGroupEvent(Arrays.asList(e1, e2, e3), "BulletJournal")
+                .splitByTargetUser();
+
+        Assert.assertEquals(2, informedList.size());
+        Assert.assertEquals(Arrays.asList(e1, e3), informedList.get(0).getEvents());
+        Assert.assertEquals(Arrays.asList(e2), informedList.get(1).getEvents());
+        informedList.forEach(informed -> {
+            Assert.assertTrue(informed instanceof JoinGroupEvent);
+            Assert.assertEquals("BulletJournal", informed.getOriginator());
+        });
+    }
 }
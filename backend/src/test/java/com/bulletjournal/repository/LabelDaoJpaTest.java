@@ -0,0 +1,86 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.controller.models.UpdateLabelParams;
+import com.bulletjournal.exceptions.ResourceAlreadyExistException;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link LabelDaoJpa} keeps {@link LabelCache} up to date
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class LabelDaoJpaTest {
+
+    private static final String OWNER = "label_tester";
+    private static final String TIMEZONE = "America/Los_Angeles";
+
+    @Autowired
+    private UserDaoJpa userDaoJpa;
+
+    @Autowired
+    private LabelDaoJpa labelDaoJpa;
+
+    @Autowired
+    private LabelCache labelCache;
+
+    @Before
+    public void setup() {
+        try {
+            this.userDaoJpa.create(OWNER, TIMEZONE);
+        } catch (ResourceAlreadyExistException ignored) {
+        }
+    }
+
+    @Test
+    public void testInvalidation() {
+        String name = "l_" + System.nanoTime();
+        int size = this.labelCache.getLabels(OWNER).size();
+
+        Long id = this.labelDaoJpa.create(name, OWNER, "TagOutlined").getId();
+        List<Label> labels = this.labelCache.getLabels(OWNER);
+        assertEquals(size + 1, labels.size());
+        assertEquals(new Label(id, name, "TagOutlined"), labels.get(0));
+        assertEquals(new Label(id, name, "TagOutlined"), getLabel(id));
+
+        this.labelDaoJpa.partialUpdate(OWNER, id, new UpdateLabelParams(name + "_2", "CarOutlined"));
+        assertEquals(new Label(id, name + "_2", "CarOutlined"), this.labelCache.getLabels(OWNER).get(0));
+        assertEquals(new Label(id, name + "_2", "CarOutlined"), getLabel(id));
+
+        this.labelDaoJpa.delete(OWNER, id);
+        assertEquals(size, this.labelCache.getLabels(OWNER).size());
+        assertTrue(this.labelCache.getLabels(OWNER).stream().noneMatch(l -> l.getId().equals(id)));
+        assertNull(getLabel(id));
+    }
+
+    @Test
+    public void testCopies() {
+        String name = "l_" + System.nanoTime();
+        Long id = this.labelDaoJpa.create(name, OWNER, "TagOutlined").getId();
+
+        getLabel(id).setValue("changed");
+        this.labelCache.getLabels(OWNER).get(0).setValue("changed");
+        assertEquals(name, getLabel(id).getValue());
+        assertEquals(name, this.labelCache.getLabels(OWNER).get(0).getValue());
+
+        this.labelDaoJpa.delete(OWNER, id);
+    }
+
+    private Label getLabel(Long id) {
+        Map<Long, Label> labels = this.labelCache.getLabels(ImmutableList.of(id));
+        return labels.get(id);
+    }
+}
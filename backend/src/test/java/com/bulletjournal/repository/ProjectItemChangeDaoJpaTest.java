@@ -0,0 +1,201 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.CreateProjectParams;
+import com.bulletjournal.controller.models.CreateTaskParams;
+import com.bulletjournal.controller.models.ProjectType;
+import com.bulletjournal.controller.models.ReminderSetting;
+import com.bulletjournal.daemon.ProjectItemChangeApplier;
+import com.bulletjournal.exceptions.ResourceAlreadyExistException;
+import com.bulletjournal.repository.models.Project;
+import com.bulletjournal.repository.models.Task;
+import com.bulletjournal.repository.models.TaskContent;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ProjectItemChangeDaoJpa} and {@link ProjectItemChangeApplier} applying the change log to
+ * project_item_content_times
+ */
+@RunWith(SpringRunner.class)
+// own context, so stopping its applier leaves other tests alone
+@SpringBootTest(properties = "changelog.intervalInMillis=3600000")
+@ActiveProfiles("test")
+public class ProjectItemChangeDaoJpaTest {
+
+    private static final String OWNER = "change_log_tester";
+    private static final String TIMEZONE = "America/Los_Angeles";
+    private static final Timestamp START_TIME = Timestamp.valueOf("2000-01-01 00:00:00");
+    private static final Timestamp END_TIME = Timestamp.valueOf("2100-01-01 00:00:00");
+
+    @Autowired
+    private ProjectItemChangeDaoJpa projectItemChangeDaoJpa;
+
+    @Autowired
+    private ProjectItemChangeApplier projectItemChangeApplier;
+
+    @Autowired
+    private UserDaoJpa userDaoJpa;
+
+    @Autowired
+    private GroupDaoJpa groupDaoJpa;
+
+    @Autowired
+    private ProjectDaoJpa projectDaoJpa;
+
+    @Autowired
+    private TaskDaoJpa taskDaoJpa;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Project project;
+
+    @Before
+    public void setup() {
+        // changes are applied by the tests only
+        this.projectItemChangeApplier.preDestroy();
+        try {
+            this.userDaoJpa.create(OWNER, TIMEZONE);
+        } catch (ResourceAlreadyExistException ignored) {
+        }
+        this.project = createProject();
+        apply();
+    }
+
+    @Test
+    public void testContentUpdates() {
+        Task task = createTask("t1");
+        assertNull(getContentTime(task));
+
+        TaskContent content = addContent(task, "c1");
+        apply();
+        assertEquals(this.project.getId(), getProjectId(task));
+        assertEquals(getLatestContentUpdate(task), getContentTime(task));
+        assertEquals(ImmutableList.of(task.getId()), findRecentItems(this.project));
+
+        Timestamp updatedAt = Timestamp.valueOf("2050-01-01 00:00:00");
+        this.jdbcTemplate.update("UPDATE task_contents SET updated_at = ? WHERE id = ?", updatedAt,
+                content.getId());
+        apply();
+        assertEquals(updatedAt, getContentTime(task));
+
+        // only the most recently updated content counts
+        addContent(task, "c2");
+        apply();
+        assertEquals(updatedAt, getContentTime(task));
+    }
+
+    @Test
+    public void testItemMove() {
+        Task task = createTask("t1");
+        addContent(task, "c1");
+        apply();
+
+        Project other = createProject();
+        this.jdbcTemplate.update("UPDATE tasks SET project_id = ? WHERE id = ?", other.getId(), task.getId());
+        apply();
+        assertEquals(other.getId(), getProjectId(task));
+        assertEquals(getLatestContentUpdate(task), getContentTime(task));
+        assertEquals(ImmutableList.of(), findRecentItems(this.project));
+        assertEquals(ImmutableList.of(task.getId()), findRecentItems(other));
+    }
+
+    @Test
+    public void testDeletes() {
+        Task task1 = createTask("t1");
+        TaskContent content1 = addContent(task1, "c1");
+        TaskContent content2 = addContent(task1, "c2");
+        Task task2 = createTask("t2");
+        addContent(task2, "c3");
+        apply();
+
+        // the item stays while it has contents
+        this.jdbcTemplate.update("UPDATE task_contents SET updated_at = ? WHERE id = ?",
+                Timestamp.valueOf("2050-01-01 00:00:00"), content2.getId());
+        this.taskDaoJpa.deleteContent(content2.getId(), task1.getId(), OWNER);
+        apply();
+        assertEquals(getLatestContentUpdate(task1), getContentTime(task1));
+
+        this.taskDaoJpa.deleteContent(content1.getId(), task1.getId(), OWNER);
+        apply();
+        assertNull(getContentTime(task1));
+
+        // contents deleted along with their item
+        this.taskDaoJpa.deleteTask(OWNER, task2.getId());
+        apply();
+        assertNull(getContentTime(task2));
+        assertEquals(ImmutableList.of(), findRecentItems(this.project));
+    }
+
+    private Project createProject() {
+        return this.projectDaoJpa.create(new CreateProjectParams("p_ChangeLog_" + System.nanoTime(),
+                ProjectType.TODO, null, this.groupDaoJpa.getDefaultGroup(OWNER).getId()), OWNER, new ArrayList<>());
+    }
+
+    private Task createTask(String name) {
+        return this.taskDaoJpa.create(this.project.getId(), OWNER, new CreateTaskParams(name, null, null, null,
+                new ReminderSetting(), ImmutableList.of(OWNER), TIMEZONE, null));
+    }
+
+    private TaskContent addContent(Task task, String text) {
+        TaskContent content = new TaskContent(text);
+        this.taskDaoJpa.addContent(task.getId(), OWNER, content);
+        return content;
+    }
+
+    /**
+     * Apply all logged changes through the applier
+     */
+    private void apply() {
+        Map<String, Number> before = this.projectItemChangeApplier.getMetrics();
+        // changes locked by appliers of other contexts are skipped, wait for them to be applied as well
+        do {
+            this.projectItemChangeApplier.apply();
+        } while (countChanges() > 0);
+        assertEquals(before.get("failures"), this.projectItemChangeApplier.getMetrics().get("failures"));
+    }
+
+    private long countChanges() {
+        return this.jdbcTemplate.queryForObject("SELECT count(*) FROM project_item_changes", Long.class);
+    }
+
+    private Timestamp getLatestContentUpdate(Task task) {
+        return this.jdbcTemplate.queryForObject("SELECT max(updated_at) FROM task_contents WHERE task_id = ?",
+                Timestamp.class, task.getId());
+    }
+
+    private Timestamp getContentTime(Task task) {
+        List<Timestamp> times = this.jdbcTemplate.queryForList("SELECT most_recent_time FROM " +
+                "project_item_content_times WHERE type = 'TASK' AND item_id = ?", Timestamp.class, task.getId());
+        return times.isEmpty() ? null : times.get(0);
+    }
+
+    private Long getProjectId(Task task) {
+        return this.jdbcTemplate.queryForObject("SELECT project_id FROM project_item_content_times " +
+                "WHERE type = 'TASK' AND item_id = ?", Long.class, task.getId());
+    }
+
+    private List<Long> findRecentItems(Project project) {
+        return this.projectItemChangeDaoJpa.findRecentItemsBetween(ContentType.TASK, START_TIME, END_TIME,
+                ImmutableList.of(project.getId())).stream()
+                .map(row -> ((BigInteger) row[0]).longValue())
+                .collect(Collectors.toList());
+    }
+}
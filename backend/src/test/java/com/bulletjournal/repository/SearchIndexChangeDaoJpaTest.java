@@ -0,0 +1,277 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.CreateProjectParams;
+import com.bulletjournal.controller.models.CreateTaskParams;
+import com.bulletjournal.controller.models.ProjectType;
+import com.bulletjournal.controller.models.ReminderSetting;
+import com.bulletjournal.es.SearchIndexer;
+import com.bulletjournal.es.repository.SearchIndexDaoJpa;
+import com.bulletjournal.es.repository.models.SearchIndexOperation;
+import com.bulletjournal.exceptions.ResourceAlreadyExistException;
+import com.bulletjournal.repository.models.Project;
+import com.bulletjournal.repository.models.Task;
+import com.bulletjournal.repository.models.TaskContent;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link SearchIndexChangeDaoJpa} and the triggers writing search_index_changes
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class SearchIndexChangeDaoJpaTest {
+
+    private static final String OWNER = "search_index_tester";
+    private static final String TIMEZONE = "America/Los_Angeles";
+    private static final int MAX_ATTEMPTS = 2;
+
+    @Autowired
+    private SearchIndexChangeDaoJpa searchIndexChangeDaoJpa;
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @Autowired
+    private UserDaoJpa userDaoJpa;
+
+    @Autowired
+    private GroupDaoJpa groupDaoJpa;
+
+    @Autowired
+    private ProjectDaoJpa projectDaoJpa;
+
+    @Autowired
+    private TaskDaoJpa taskDaoJpa;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Project project;
+
+    @Before
+    public void setup() {
+        // changes are drained by the tests only
+        this.searchIndexer.preDestroy();
+        try {
+            this.userDaoJpa.create(OWNER, TIMEZONE);
+        } catch (ResourceAlreadyExistException ignored) {
+        }
+        this.project = this.projectDaoJpa.create(new CreateProjectParams("p_SearchIndex_" + System.nanoTime(),
+                ProjectType.TODO, null, this.groupDaoJpa.getDefaultGroup(OWNER).getId()), OWNER, new ArrayList<>());
+        drain();
+    }
+
+    @Test
+    public void testTriggers() {
+        Task task = createTask("t1");
+        TaskContent content = addContent(task, "c1");
+        assertEquals(ImmutableList.of(change(task, null), change(task, content)), getChanges());
+        drain();
+
+        // only name and project of items are indexed
+        this.jdbcTemplate.update("UPDATE tasks SET due_date = '2020-01-01' WHERE id = ?", task.getId());
+        assertEquals(ImmutableList.of(), getChanges());
+        this.jdbcTemplate.update("UPDATE tasks SET name = 't2' WHERE id = ?", task.getId());
+        assertEquals(ImmutableList.of(change(task, null)), getChanges());
+        this.jdbcTemplate.update("UPDATE task_contents SET text = 'c2' WHERE id = ?", content.getId());
+        assertEquals(ImmutableList.of(change(task, null), change(task, content)), getChanges());
+        drain();
+
+        // contents deleted along with their item are logged as well
+        this.taskDaoJpa.deleteTask(OWNER, task.getId());
+        assertEquals(ImmutableSet.of(change(task, null), change(task, content)), new HashSet<>(getChanges()));
+    }
+
+    @Test
+    public void testItemAndContentOperations() {
+        Task task = createTask("t1");
+        TaskContent content = addContent(task, "c1");
+        drain();
+
+        this.jdbcTemplate.update("UPDATE tasks SET name = 't2' WHERE id = ?", task.getId());
+        List<SearchIndexOperation> operations = indexChanges(Collections.emptyMap(), 1);
+        // an item change also reindexes its contents
+        assertEquals(ImmutableSet.of(getId(task), getId(content)), getIds(operations));
+        SearchIndexOperation itemOperation = find(operations, getId(task));
+        assertFalse(itemOperation.isDelete());
+        assertEquals("t2", itemOperation.getSearchIndex().getValue());
+        assertEquals(this.project.getId(), itemOperation.getSearchIndex().getProjectId());
+        SearchIndexOperation contentOperation = find(operations, getId(content));
+        assertEquals("c1", contentOperation.getSearchIndex().getValue());
+        assertEquals(getId(task), contentOperation.getSearchIndex().getParentId());
+        assertEquals(this.project.getId(), contentOperation.getSearchIndex().getProjectId());
+
+        this.jdbcTemplate.update("UPDATE task_contents SET text = 'c2' WHERE id = ?", content.getId());
+        operations = indexChanges(Collections.emptyMap(), 1);
+        assertEquals(ImmutableSet.of(getId(content)), getIds(operations));
+        assertEquals("c2", operations.get(0).getSearchIndex().getValue());
+    }
+
+    @Test
+    public void testDeleteOperations() {
+        Task task = createTask("t1");
+        TaskContent content1 = addContent(task, "c1");
+        TaskContent content2 = addContent(task, "c2");
+        drain();
+
+        this.taskDaoJpa.deleteContent(content1.getId(), task.getId(), OWNER);
+        List<SearchIndexOperation> operations = indexChanges(Collections.emptyMap(), 1);
+        assertEquals(ImmutableSet.of(getId(content1)), getIds(operations));
+        assertTrue(operations.get(0).isDelete());
+
+        this.taskDaoJpa.deleteTask(OWNER, task.getId());
+        operations = indexChanges(Collections.emptyMap(), 2);
+        assertEquals(ImmutableSet.of(getId(task), getId(content2)), getIds(operations));
+        assertTrue(operations.stream().allMatch(SearchIndexOperation::isDelete));
+    }
+
+    @Test
+    public void testFailedChanges() {
+        Task task1 = createTask("t1");
+        Task task2 = createTask("t2");
+        Map<String, String> failures = ImmutableMap.of(getId(task1), "mapper_parsing_exception");
+
+        // the failed change stays, the other one is removed
+        assertEquals(ImmutableSet.of(getId(task1), getId(task2)), getIds(indexChanges(failures, 1)));
+        assertEquals(ImmutableList.of(change(task1, null)), getChanges());
+        assertEquals(1, getAttempts(task1));
+
+        // given up once out of attempts
+        assertEquals(ImmutableSet.of(getId(task1)), getIds(indexChanges(failures, 1)));
+        assertEquals(ImmutableList.of(), getChanges());
+        List<Map<String, Object>> failed = this.jdbcTemplate.queryForList(
+                "SELECT attempts, reason FROM search_index_failed_changes WHERE type = 'TASK' AND item_id = ?",
+                task1.getId());
+        assertEquals(1, failed.size());
+        assertEquals(MAX_ATTEMPTS, failed.get(0).get("attempts"));
+        assertEquals("mapper_parsing_exception", failed.get(0).get("reason"));
+        this.jdbcTemplate.update("DELETE FROM search_index_failed_changes WHERE type = 'TASK' AND item_id = ?",
+                task1.getId());
+    }
+
+    @Test
+    public void testFailedContentFailsItemChange() {
+        Task task = createTask("t1");
+        TaskContent content = addContent(task, "c1");
+        drain();
+
+        this.jdbcTemplate.update("UPDATE tasks SET name = 't2' WHERE id = ?", task.getId());
+        indexChanges(ImmutableMap.of(getId(content), "mapper_parsing_exception"), 0);
+        assertEquals(ImmutableList.of(change(task, null)), getChanges());
+        drain();
+    }
+
+    @Test
+    public void testSkipLocked() throws Exception {
+        Task task = createTask("t1");
+        TaskContent content = addContent(task, "c1");
+
+        // the first batch holds the oldest change until released
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() ->
+                this.searchIndexChangeDaoJpa.indexChanges(1, MAX_ATTEMPTS, operations -> {
+                    locked.countDown();
+                    try {
+                        released.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Collections.emptyMap();
+                }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        List<SearchIndexOperation> operations = indexChanges(Collections.emptyMap(), 1);
+        assertEquals(ImmutableSet.of(getId(content)), getIds(operations));
+
+        released.countDown();
+        assertEquals(1, first.get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(ImmutableList.of(), getChanges());
+    }
+
+    private Task createTask(String name) {
+        return this.taskDaoJpa.create(this.project.getId(), OWNER, new CreateTaskParams(name, null, null, null,
+                new ReminderSetting(), ImmutableList.of(OWNER), TIMEZONE, null));
+    }
+
+    private TaskContent addContent(Task task, String text) {
+        TaskContent content = new TaskContent(text);
+        this.taskDaoJpa.addContent(task.getId(), OWNER, content);
+        return content;
+    }
+
+    /**
+     * Index changes of tasks created by this test
+     *
+     * @param failures failure reasons to report by document id
+     * @param removed  the expected number of changes removed from the outbox
+     * @return the operations sent to the indexer
+     */
+    private List<SearchIndexOperation> indexChanges(Map<String, String> failures, int removed) {
+        List<SearchIndexOperation> result = new ArrayList<>();
+        assertEquals(removed, this.searchIndexChangeDaoJpa.indexChanges(100, MAX_ATTEMPTS, operations -> {
+            result.addAll(operations);
+            return failures;
+        }));
+        return result;
+    }
+
+    private void drain() {
+        while (this.searchIndexChangeDaoJpa.indexChanges(100, MAX_ATTEMPTS, operations -> Collections.emptyMap())
+                > 0) {
+        }
+    }
+
+    private List<String> getChanges() {
+        return this.jdbcTemplate.queryForList(
+                "SELECT type, item_id, content_id FROM search_index_changes ORDER BY id").stream()
+                .map(row -> row.get("type") + ":" + row.get("item_id") + ":" + row.get("content_id"))
+                .collect(Collectors.toList());
+    }
+
+    private int getAttempts(Task task) {
+        return this.jdbcTemplate.queryForObject(
+                "SELECT attempts FROM search_index_changes WHERE type = 'TASK' AND item_id = ?",
+                Integer.class, task.getId());
+    }
+
+    private static String change(Task task, TaskContent content) {
+        return ContentType.TASK + ":" + task.getId() + ":" + (content == null ? null : content.getId());
+    }
+
+    private static String getId(Task task) {
+        return SearchIndexDaoJpa.getProjectItemSearchIndexId(ContentType.TASK, task.getId());
+    }
+
+    private static String getId(TaskContent content) {
+        return SearchIndexDaoJpa.getContentSearchIndexId(ContentType.TASK, content.getId());
+    }
+
+    private static Set<String> getIds(List<SearchIndexOperation> operations) {
+        return operations.stream().map(SearchIndexOperation::getId).collect(Collectors.toSet());
+    }
+
+    private static SearchIndexOperation find(List<SearchIndexOperation> operations, String id) {
+        return operations.stream().filter(o -> o.getId().equals(id)).findFirst()
+                .orElseThrow(() -> new AssertionError(id + " not indexed"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.controller.models.CreateProjectParams;
+import com.bulletjournal.controller.models.CreateTaskParams;
+import com.bulletjournal.controller.models.ProjectType;
+import com.bulletjournal.controller.models.ReminderSetting;
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.daemon.ReminderRecord;
+import com.bulletjournal.exceptions.ResourceAlreadyExistException;
+import com.bulletjournal.repository.models.Task;
+import com.google.common.collect.ImmutableList;
+import org.dmfs.rfc5545.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.bulletjournal.controller.models.Before.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests reminders of recurring tasks in {@link TaskDaoJpa}
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class TaskDaoJpaTest {
+
+    private static final String OWNER = "reminder_tester";
+    private static final String TIMEZONE = "America/Los_Angeles";
+
+    @Autowired
+    private UserDaoJpa userDaoJpa;
+
+    @Autowired
+    private GroupDaoJpa groupDaoJpa;
+
+    @Autowired
+    private ProjectDaoJpa projectDaoJpa;
+
+    @Autowired
+    private TaskDaoJpa taskDaoJpa;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long projectId;
+
+    @Before
+    public void setup() {
+        try {
+            this.userDaoJpa.create(OWNER, TIMEZONE);
+        } catch (ResourceAlreadyExistException ignored) {
+        }
+        this.projectId = this.projectDaoJpa.create(new CreateProjectParams("p_Reminder_" + System.nanoTime(),
+                ProjectType.TODO, null, this.groupDaoJpa.getDefaultGroup(OWNER).getId()), OWNER, new ArrayList<>())
+                .getId();
+    }
+
+    @Test
+    public void testRecurringTaskNextRemindingTime() {
+        ZonedDateTime now = ZonedDateTimeHelper.getNow();
+        // daily occurrences starting tomorrow, reminded an hour before
+        long start = TimeUnit.SECONDS.toMillis(now.plusDays(1).toEpochSecond());
+        String recurrenceRule = "DTSTART:" + new DateTime(TimeZone.getTimeZone(TIMEZONE), start).toString()
+                + " RRULE:FREQ=DAILY;INTERVAL=1";
+        Task task = this.taskDaoJpa.create(this.projectId, OWNER, new CreateTaskParams("rt1", null, null, null,
+                new ReminderSetting(null, null, ONE_HR_BEFORE.getValue()),
+                ImmutableList.of(OWNER), TIMEZONE, recurrenceRule));
+        assertNull(getNextRemindingTime(task));
+
+        // loaded by the first scan, which stores when it can fire next
+        assertEquals(ImmutableList.of(), getFireTimes(task, now, now.plusMinutes(20)));
+        assertEquals(start - TimeUnit.HOURS.toMillis(1), getNextRemindingTime(task).getTime());
+
+        // skipped until its next reminding time
+        Timestamp later = new Timestamp(start + TimeUnit.DAYS.toMillis(1));
+        this.jdbcTemplate.update("UPDATE tasks SET next_reminding_time = ? WHERE id = ?", later, task.getId());
+        ZonedDateTime firstStart = now.plusDays(1);
+        assertEquals(ImmutableList.of(), getFireTimes(task, now, firstStart));
+        assertEquals(later, getNextRemindingTime(task));
+
+        // a changed reminder setting clears it
+        this.jdbcTemplate.update("UPDATE tasks SET reminder_before_task = ? WHERE id = ?",
+                THIRTY_MIN_BEFORE.getValue(), task.getId());
+        assertNull(getNextRemindingTime(task));
+        long fireTime = start - TimeUnit.MINUTES.toMillis(30);
+        assertEquals(ImmutableList.of(fireTime), getFireTimes(task, now, firstStart));
+        assertEquals(fireTime, getNextRemindingTime(task).getTime());
+
+        // tasks without reminders are never loaded
+        this.jdbcTemplate.update("UPDATE tasks SET reminder_before_task = ? WHERE id = ?",
+                NONE.getValue(), task.getId());
+        assertEquals(ImmutableList.of(), getFireTimes(task, now, firstStart));
+        assertNull(getNextRemindingTime(task));
+
+        this.taskDaoJpa.deleteTask(OWNER, task.getId());
+    }
+
+    private List<Long> getFireTimes(Task task, ZonedDateTime now, ZonedDateTime until) {
+        return this.taskDaoJpa.getReminderRecords(now, until).stream()
+                .filter(record -> record.getTaskId().equals(task.getId()))
+                .map(ReminderRecord::getFireTime)
+                .collect(Collectors.toList());
+    }
+
+    private Timestamp getNextRemindingTime(Task task) {
+        return this.jdbcTemplate.queryForObject("SELECT next_reminding_time FROM tasks WHERE id = ?",
+                Timestamp.class, task.getId());
+    }
+}
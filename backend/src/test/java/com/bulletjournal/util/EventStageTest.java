@@ -0,0 +1,71 @@
+package com.bulletjournal.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests {@link EventStage}
+ */
+public class EventStageTest {
+
+    @Test
+    public void testOrderPerKey() {
+        Map<String, List<Integer>> handled = Collections.synchronizedMap(new HashMap<>());
+        EventStage<String> stage = new EventStage<>("test", "test-stage", 4, 1000, 1000,
+                event -> event.split(":")[0],
+                events -> events.forEach(event -> {
+                    String[] parts = event.split(":");
+                    handled.computeIfAbsent(parts[0], k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(Integer.valueOf(parts[1]));
+                }));
+        stage.start();
+        for (int i = 0; i < 100; i++) {
+            for (int user = 0; user < 10; user++) {
+                Assert.assertTrue(stage.submit("u" + user + ":" + i));
+            }
+        }
+        stage.stop();
+        stage.awaitTermination(5000);
+
+        Assert.assertEquals(10, handled.size());
+        for (List<Integer> events : handled.values()) {
+            Assert.assertEquals(100, events.size());
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(i, events.get(i).intValue());
+            }
+        }
+        Assert.assertEquals(1000L, stage.getMetrics().get("processed"));
+        Assert.assertEquals(0, stage.getMetrics().get("queueDepth"));
+        Assert.assertFalse(stage.submit("u0:100"));
+    }
+
+    @Test
+    public void testDropWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventStage<String> stage = new EventStage<>("test", "test-stage", 1, 2, 10, event -> event, events -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stage.start();
+        Assert.assertTrue(stage.submit("e0"));
+        blocked.await();
+        // worker is busy with e0, queue holds two more
+        Assert.assertTrue(stage.submit("e1"));
+        Assert.assertTrue(stage.submit("e2"));
+        Assert.assertFalse(stage.submit("e3"));
+        Assert.assertEquals(1L, stage.getMetrics().get("dropped"));
+
+        release.countDown();
+        stage.stop();
+        stage.awaitTermination(5000);
+        Assert.assertEquals(3L, stage.getMetrics().get("processed"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.bulletjournal.util;
+
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link RecurrenceOccurrenceIndex}
+ */
+public class RecurrenceOccurrenceIndexTest {
+
+    private static final String TIMEZONE = "America/Los_Angeles";
+
+    @Test
+    public void testGetOccurrencesBetween() throws Exception {
+        String recurrenceRule = "DTSTART:20200420T070000Z RRULE:FREQ=DAILY;INTERVAL=1";
+        RecurrenceOccurrenceIndex index = new RecurrenceOccurrenceIndex();
+        long now = System.currentTimeMillis();
+
+        // inside of rolling window, served from index
+        DateTime start = new DateTime(TimeZone.getTimeZone(TIMEZONE), now - TimeUnit.DAYS.toMillis(3));
+        DateTime end = new DateTime(TimeZone.getTimeZone(TIMEZONE), now + TimeUnit.DAYS.toMillis(10));
+        List<DateTime> occurrences = index.getOccurrencesBetween(1L, recurrenceRule, TIMEZONE, start, end);
+        Assert.assertEquals(expand(recurrenceRule, start, end), occurrences);
+        Assert.assertEquals(1, index.size());
+        Assert.assertEquals(occurrences, index.getOccurrencesBetween(1L, recurrenceRule, TIMEZONE, start, end));
+
+        // outside of rolling window, expanded directly
+        DateTime farStart = new DateTime(TimeZone.getTimeZone(TIMEZONE), now - TimeUnit.DAYS.toMillis(365));
+        Assert.assertEquals(expand(recurrenceRule, farStart, end),
+                index.getOccurrencesBetween(1L, recurrenceRule, TIMEZONE, farStart, end));
+
+        // rule changed, entry rebuilt
+        String weeklyRule = "DTSTART:20200420T070000Z RRULE:FREQ=WEEKLY;INTERVAL=1";
+        Assert.assertEquals(expand(weeklyRule, start, end),
+                index.getOccurrencesBetween(1L, weeklyRule, TIMEZONE, start, end));
+
+        // finished series
+        String untilRule = "DTSTART:20200420T070000Z RRULE:FREQ=WEEKLY;INTERVAL=1;UNTIL=20200520T070000Z";
+        Assert.assertTrue(index.getOccurrencesBetween(2L, untilRule, TIMEZONE, start, end).isEmpty());
+
+        index.invalidate(1L);
+        index.invalidate(2L);
+        Assert.assertEquals(0, index.size());
+    }
+
+    private static List<DateTime> expand(String recurrenceRule, DateTime start, DateTime end) throws Exception {
+        List<DateTime> result = new ArrayList<>();
+        RecurrenceRuleIterator it = new BuJoRecurrenceRule(recurrenceRule, TIMEZONE).getIterator();
+        while (it.hasNext()) {
+            DateTime curr = it.nextDateTime();
+            if (curr.after(end)) {
+                break;
+            }
+            if (!curr.before(start)) {
+                result.add(curr);
+            }
+        }
+        return result;
+    }
+}